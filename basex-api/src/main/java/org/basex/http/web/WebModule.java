@@ -41,9 +41,9 @@ public final class WebModule {
   }
 
   /**
-   * Checks the module for relevant annotations.
+   * Parses the module and checks it for relevant annotations.
    * @param ctx database context
-   * @return {@code true} if module contains relevant annotations
+   * @return {@code true} if the module could be parsed, or if it contains relevant annotations
    * @throws QueryException query exception
    * @throws IOException I/O exception
    */
@@ -67,8 +67,9 @@ public final class WebModule {
       if(ctx.soptions.get(StaticOptions.RESTXQERRORS)) throw ex;
       // ignore modules that cannot be parsed
       Util.debug(ex);
+      return !(functions.isEmpty() && wsFunctions.isEmpty());
     }
-    return !(functions.isEmpty() && wsFunctions.isEmpty());
+    return true;
   }
 
   /**
@@ -347,7 +347,8 @@ public final class WebModules {
             // create new module
             module = new WebModule(file);
           }
-          // add module if it has been parsed, and if it contains relevant annotations
+          // add module if it has been parsed (modules without relevant annotations are cached
+          // as well, as they would otherwise be parsed again whenever the cache is updated)
           if(parsed || module.parse(ctx)) {
             module.touch();
             cache.put(path, module);
@@ -4,14 +4,18 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.*;
 import java.util.zip.*;
 
 import org.basex.core.*;
 import org.basex.core.MainOptions.MainParser;
 import org.basex.core.cmd.*;
+import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.io.in.*;
+import org.basex.io.serial.*;
+import org.basex.query.value.node.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -25,6 +29,8 @@ import org.basex.util.list.*;
 public final class DirParser extends Parser {
   /** Number of skipped files to log. */
   private static final int SKIPLOG = 10;
+  /** Maximum number of resources per thread that are parsed in advance. */
+  private static final int AHEAD = 4;
   /** Skipped files. */
   private final StringList skipped = new StringList();
   /** File pattern. */
@@ -56,6 +62,15 @@ public final class DirParser extends Parser {
   /** Resource counter. */
   private int resources;
 
+  /** Thread pool for parsing resources in parallel ({@code null}: sequential parsing). */
+  private ExecutorService pool;
+  /** Number of parsing threads. */
+  private final int threads;
+  /** Resources that are parsed in parallel, in the order in which they will be added. */
+  private final ArrayDeque<Future<MemData>> parsed = new ArrayDeque<>();
+  /** Paths of the resources that are parsed in parallel. */
+  private final ArrayDeque<String> paths = new ArrayDeque<>();
+
   /**
    * Constructor.
    * @param source source path
@@ -78,6 +93,7 @@ public final class DirParser extends Parser {
     addRaw = options.get(MainOptions.ADDRAW);
     dtd = options.get(MainOptions.DTD);
     rawParser = options.get(MainOptions.PARSER) == MainParser.RAW;
+    threads = options.get(MainOptions.PARSETHREADS);
     filter = !isDir && !source.isArchive() ? null :
       Pattern.compile(IOFile.regex(options.get(MainOptions.CREATEFILTER)));
   }
@@ -97,7 +113,18 @@ public final class DirParser extends Parser {
   public void parse(final Builder build) throws IOException {
     build.meta.inputsize = 0;
     build.meta.original = original;
-    parse(build, source);
+    if(threads > 1) pool = Executors.newFixedThreadPool(threads);
+    try {
+      parse(build, source);
+      while(!parsed.isEmpty()) add(build);
+    } finally {
+      if(pool != null) {
+        pool.shutdownNow();
+        pool = null;
+        parsed.clear();
+        paths.clear();
+      }
+    }
   }
 
   /**
@@ -195,6 +222,26 @@ public final class DirParser extends Parser {
       if(rawPath != null) {
         Store.store(source.inputSource(), new IOFile(rawPath, targ + name));
       }
+    } else if(include && pool != null) {
+      // parse input in parallel; streams must be cached, as they will be read by another thread
+      IO in = source;
+      if(!(source instanceof IOFile || source instanceof IOContent)) {
+        in = new IOContent(source.read());
+        in.name(name);
+      }
+      final IO input = in;
+      final String trg = targ;
+      parsed.add(pool.submit(() -> {
+        try {
+          return MemBuilder.build("", Parser.singleParser(input, options, trg));
+        } catch(final IOException ex) {
+          if(!skipCorrupt) throw ex;
+          Util.debug(ex);
+          return null;
+        }
+      }));
+      paths.add(source.path());
+      if(parsed.size() >= threads * AHEAD) add(builder);
     } else if(include) {
       // store input as XML
       boolean ok = true;
@@ -232,6 +279,22 @@ public final class DirParser extends Parser {
     if(Prop.debug && (++resources & 0x3FF) == 0) Util.err(";");
   }
 
+  /**
+   * Adds the next resource that has been parsed in parallel.
+   * @param builder builder instance
+   * @throws IOException I/O exception
+   */
+  private void add(final Builder builder) throws IOException {
+    final Future<MemData> future = parsed.poll();
+    final String path = paths.poll();
+    final MemData data = Util.get(future);
+    if(data == null) {
+      skipped.add(path);
+    } else {
+      new BuilderSerializer(builder).serialize(new DBNode(data, 0));
+    }
+  }
+
   @Override
   public String info() {
     final TokenBuilder tb = new TokenBuilder();
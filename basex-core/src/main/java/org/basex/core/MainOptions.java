@@ -22,6 +22,12 @@ public final class MainOptions extends Options {
   public static final BooleanOption MAINMEM = new BooleanOption("MAINMEM", false);
   /** Flag for closing a database after creating it. */
   public static final BooleanOption CREATEONLY = new BooleanOption("CREATEONLY", false);
+  /** Flag for reading database tables and texts from memory-mapped files. */
+  public static final BooleanOption MMAP = new BooleanOption("MMAP", false);
+  /** Flag for reading texts with positional reads (for concurrent readers). */
+  public static final BooleanOption PREAD = new BooleanOption("PREAD", false);
+  /** Flag for logging updates of disk databases in a write-ahead log. */
+  public static final BooleanOption WAL = new BooleanOption("WAL", false);
 
   // Parsing
 
@@ -35,6 +41,8 @@ public final class MainOptions extends Options {
   public static final BooleanOption SKIPCORRUPT = new BooleanOption("SKIPCORRUPT", false);
   /** Flag for adding remaining files as raw files. */
   public static final BooleanOption ADDRAW = new BooleanOption("ADDRAW", false);
+  /** Number of threads for parsing files in parallel (0 or 1: sequential parsing). */
+  public static final NumberOption PARSETHREADS = new NumberOption("PARSETHREADS", 0);
   /** Define CSV parser options. */
   public static final OptionsOption<CsvParserOptions> CSVPARSER =
       new OptionsOption<>("CSVPARSER", new CsvParserOptions());
@@ -101,6 +109,14 @@ public final class MainOptions extends Options {
   public static final BooleanOption AUTOOPTIMIZE = new BooleanOption("AUTOOPTIMIZE", false);
   /** Index split size. */
   public static final NumberOption SPLITSIZE = new NumberOption("SPLITSIZE", 0);
+  /** Number of threads for building index structures in parallel (0 or 1: sequential build). */
+  public static final NumberOption INDEXTHREADS = new NumberOption("INDEXTHREADS", 0);
+  /** Flag for creating Bloom filters for the keys of value indexes. */
+  public static final BooleanOption BLOOMFILTER = new BooleanOption("BLOOMFILTER", false);
+  /** Maximum memory for the cached entries of an index structure (in kilobytes). */
+  public static final NumberOption INDEXCACHE = new NumberOption("INDEXCACHE", 4096);
+  /** Persist the keys of cached index entries and warm up the caches when opening a database. */
+  public static final BooleanOption WARMCACHE = new BooleanOption("WARMCACHE", false);
 
   // Full-Text
 
@@ -141,8 +157,12 @@ public final class MainOptions extends Options {
   public static final NumberOption RUNS = new NumberOption("RUNS", 1);
   /** Flag for enforcing index rewritings. */
   public static final BooleanOption ENFORCEINDEX = new BooleanOption("ENFORCEINDEX", false);
+  /** Flag for evaluating location paths with the node lists of the path index. */
+  public static final BooleanOption PATHINDEX = new BooleanOption("PATHINDEX", false);
   /** Deep node copies. */
   public static final BooleanOption COPYNODE = new BooleanOption("COPYNODE", true);
+  /** Maximum number of tuples sorted in main memory (0: no limit). */
+  public static final NumberOption SORTLIMIT = new NumberOption("SORTLIMIT", 0);
 
   // Serialize
 
@@ -164,6 +184,10 @@ public final class MainOptions extends Options {
 
   /** Flushes the database after each update. */
   public static final BooleanOption AUTOFLUSH = new BooleanOption("AUTOFLUSH", true);
+  /** Maximum delay for flushing updates, in milliseconds (0: flush after each update). */
+  public static final NumberOption FLUSHDELAY = new NumberOption("FLUSHDELAY", 0);
+  /** Number of table entries that will be compacted after each update (0: no compaction). */
+  public static final NumberOption COMPACT = new NumberOption("COMPACT", 0);
   /** Writes original files back after updates. */
   public static final BooleanOption WRITEBACK = new BooleanOption("WRITEBACK", false);
   /** Maximum number of index occurrences to print. */
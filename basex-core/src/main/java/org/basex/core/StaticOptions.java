@@ -3,6 +3,7 @@ package org.basex.core;
 import java.util.*;
 
 import org.basex.io.*;
+import org.basex.io.random.*;
 import org.basex.util.*;
 import org.basex.util.options.*;
 
@@ -33,6 +34,12 @@ public final class StaticOptions extends Options {
   public static final BooleanOption FAIRLOCK = new BooleanOption("FAIRLOCK", false);
   /** Timeout (seconds) for remembering result of asynchronous queries. */
   public static final NumberOption CACHETIMEOUT = new NumberOption("CACHETIMEOUT", 3600);
+  /** Size of the page cache for database files (megabytes); deactivated if set to 0. */
+  public static final NumberOption PAGECACHE = new NumberOption("PAGECACHE", 0);
+  /** Flag for compressing the pages in the page cache. */
+  public static final BooleanOption PAGECOMPRESS = new BooleanOption("PAGECOMPRESS", false);
+  /** Number of threads for parallel query evaluation (0: number of processors). */
+  public static final NumberOption FORKTHREADS = new NumberOption("FORKTHREADS", 0);
 
   /** Comment: written to options file. */
   public static final Comment C_CLIENT = new Comment("Client/Server Architecture");
@@ -131,6 +138,8 @@ public final class StaticOptions extends Options {
     if(!nph.isEmpty()) {
       Prop.setSystem("http.nonProxyHosts", nph);
     }
+    PageCache.get().size(get(PAGECACHE));
+    PageCache.get().compress(get(PAGECOMPRESS));
     if(get(IGNORECERT)) IOUrl.ignoreCert();
     if(get(IGNOREHOSTNAME)) IOUrl.ignoreHostname();
   }
@@ -856,6 +856,8 @@ public interface Text {
   String GLOBAL_OPTIONS = lang("global_options");
   /** "Local Options". */
   String LOCAL_OPTIONS = lang("local_options");
+  /** "Page Cache". */
+  String PAGE_CACHE = lang("page_cache");
 
   /** "(chopped)". */
   String CHOPPED = '(' + lang("chopped") + ") ";
@@ -94,7 +94,7 @@ public abstract class ACreate extends Command {
       try {
         // finish update, remove locks
         Optimize.finish(data);
-        if(lock) data.finishUpdate(options);
+        if(lock) data.finishUpdate(context);
       } catch(final IOException ex) {
         // do not overwrite existing error if something goes wrong
         if(exc == null) exc = ex;
@@ -3,6 +3,8 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.core.parse.*;
@@ -10,6 +12,7 @@ import org.basex.core.parse.Commands.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.util.*;
 import org.basex.util.ft.*;
 
 /**
@@ -60,6 +63,8 @@ public final class CreateIndex extends ACreate {
     }
     data.meta.names(type, options);
     data.meta.splitsize = options.get(MainOptions.SPLITSIZE);
+    data.meta.indexthreads = options.get(MainOptions.INDEXTHREADS);
+    data.meta.bloomfilter = options.get(MainOptions.BLOOMFILTER);
 
     return update(data, new Code() {
       @Override
@@ -82,10 +87,51 @@ public final class CreateIndex extends ACreate {
    * @throws IOException I/O exception
    */
   static void create(final Data data, final ACreate cmd) throws IOException {
-    if(data.meta.createtext) create(IndexType.TEXT, data, cmd);
-    if(data.meta.createattr) create(IndexType.ATTRIBUTE, data, cmd);
-    if(data.meta.createtoken) create(IndexType.TOKEN, data, cmd);
-    if(data.meta.createft) create(IndexType.FULLTEXT, data, cmd);
+    final ArrayList<IndexType> types = new ArrayList<>();
+    if(data.meta.createtext) types.add(IndexType.TEXT);
+    if(data.meta.createattr) types.add(IndexType.ATTRIBUTE);
+    if(data.meta.createtoken) types.add(IndexType.TOKEN);
+    if(data.meta.createft) types.add(IndexType.FULLTEXT);
+    create(types, data, cmd);
+  }
+
+  /**
+   * Builds the specified indexes. If more than one thread is assigned, the indexes will be
+   * built in parallel.
+   * @param types indexes to be built
+   * @param data data reference
+   * @param cmd calling command (may be {@code null})
+   * @throws IOException I/O exception
+   */
+  static void create(final ArrayList<IndexType> types, final Data data, final ACreate cmd)
+      throws IOException {
+
+    final int threads = Math.min(data.meta.indexthreads, types.size());
+    if(threads < 2) {
+      for(final IndexType type : types) create(type, data, cmd);
+      return;
+    }
+
+    for(final IndexType type : types) DropIndex.drop(type, data);
+    final ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      final ArrayList<Future<Void>> futures = new ArrayList<>(types.size());
+      for(final IndexType type : types) {
+        futures.add(pool.submit(() -> {
+          build(type, data, cmd);
+          return null;
+        }));
+      }
+      for(final Future<Void> future : futures) Util.get(future);
+    } finally {
+      // wait until all indexes have been built or discarded
+      pool.shutdown();
+      try {
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      } catch(final InterruptedException ex) {
+        Util.debug(ex);
+      }
+    }
   }
 
   /**
@@ -97,6 +143,18 @@ public final class CreateIndex extends ACreate {
    */
   static void create(final IndexType type, final Data data, final ACreate cmd) throws IOException {
     DropIndex.drop(type, data);
+    build(type, data, cmd);
+  }
+
+  /**
+   * Builds the specified index after the existing index has been dropped.
+   * @param type index to be built
+   * @param data data reference
+   * @param cmd calling command
+   * @throws IOException I/O exception
+   */
+  private static void build(final IndexType type, final Data data, final ACreate cmd)
+      throws IOException {
     data.createIndex(type, cmd);
     data.meta.index(type, true);
   }
@@ -55,6 +55,9 @@ public final class Delete extends ACreate {
   public static void delete(final Data data, final String res) {
     if(data.inMemory()) return;
     final IOFile file = data.meta.binary(res);
-    if(file != null) file.delete();
+    if(file != null && file.exists()) {
+      data.unlogged();
+      file.delete();
+    }
   }
 }
@@ -24,7 +24,9 @@ public final class Flush extends Command {
   @Override
   protected boolean run() {
     final Data data = context.data();
-    if(!options.get(MainOptions.AUTOFLUSH)) data.flush(true);
+    if(!options.get(MainOptions.AUTOFLUSH) || options.get(MainOptions.FLUSHDELAY) > 0) {
+      data.flush(true);
+    }
     return info(DB_FLUSHED_X, data.meta.name, jc().performance);
   }
 
@@ -6,6 +6,7 @@ import java.io.*;
 
 import org.basex.core.*;
 import org.basex.core.users.*;
+import org.basex.io.random.*;
 import org.basex.util.*;
 import org.basex.util.options.*;
 
@@ -47,6 +48,12 @@ public final class Info extends AInfo {
     final User user = context.user();
     info(tb, USED_MEM, Performance.getMemory());
 
+    final PageCache cache = PageCache.get();
+    if(cache.enabled()) {
+      tb.add(NL + PAGE_CACHE + COL + NL);
+      for(final String[] entry : cache.info()) info(tb, entry[0], entry[1]);
+    }
+
     if(user.has(Perm.ADMIN)) {
       final StaticOptions sopts = context.soptions;
       tb.add(NL + GLOBAL_OPTIONS + COL + NL);
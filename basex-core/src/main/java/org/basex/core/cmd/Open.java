@@ -1,6 +1,7 @@
 package org.basex.core.cmd;
 
 import static org.basex.core.Text.*;
+import static org.basex.data.DataText.*;
 
 import java.io.*;
 
@@ -8,6 +9,7 @@ import org.basex.core.*;
 import org.basex.core.locks.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
+import org.basex.io.random.*;
 import org.basex.query.value.seq.*;
 import org.basex.util.*;
 
@@ -91,8 +93,15 @@ public final class Open extends Command {
         // check if the addressed database exists
         if(!context.soptions.dbExists(name)) throw new BaseXException(DB_NOT_FOUND_X, name);
 
-        // do not open a database that is currently updated
+        // replay changes of an interrupted session; the database is consistent afterwards
+        // if all changes of the interrupted update have been logged
         final MetaData meta = new MetaData(name, options, context.soptions);
+        if(!TableDiskAccess.locked(name, context) &&
+            WriteAheadLog.replay(meta.dbfile(DATAWAL)) && meta.logged()) {
+          meta.updateFile().delete();
+        }
+
+        // do not open a database that is currently updated
         if(meta.updateFile().exists()) throw new BaseXException(DB_UPDATED_X, meta.name);
 
         // open database
@@ -3,12 +3,15 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.index.ft.*;
 import org.basex.index.stats.*;
+import org.basex.index.value.*;
 import org.basex.util.list.*;
 
 /**
@@ -36,6 +39,8 @@ public final class Optimize extends ACreate {
   protected boolean run() {
     final Data data = context.data();
     final MetaData meta = data.meta;
+    meta.indexthreads = options.get(MainOptions.INDEXTHREADS);
+    meta.bloomfilter = options.get(MainOptions.BLOOMFILTER);
     size = meta.size;
 
     return update(data, new Code() {
@@ -105,80 +110,167 @@ public final class Optimize extends ACreate {
   public static void optimize(final Data data, final boolean enforceText, final boolean enforceAttr,
       final boolean enforceToken, final boolean enforceFt, final Optimize cmd) throws IOException {
 
-    // initialize structural indexes
+    // update structural indexes
     final MetaData meta = data.meta;
     if(!meta.uptodate) {
-      data.paths.init();
-      data.elemNames.init();
-      data.attrNames.init();
       meta.dirty = true;
-
       final IntList pars = new IntList(), elemStack = new IntList();
-      int n = 0;
-
-      for(int pre = 0; pre < meta.size; ++pre) {
-        final byte kind = (byte) data.kind(pre);
-        final int par = data.parent(pre, kind);
-        while(!pars.isEmpty() && pars.peek() > par) {
-          pars.pop();
-          elemStack.pop();
+      if(meta.statsid >= 0 && meta.statsid <= meta.lastid) {
+        // only new nodes have been inserted: add them to the existing structures
+        final IntList pres = inserted(data);
+        final int ps = pres.size();
+        for(int p = 0; p < ps; p++) {
+          final int pre = pres.get(p);
+          if(p == 0 || pre != pres.get(p - 1) + 1) ancestors(data, pre, pars, elemStack);
+          index(data, pre, pars, elemStack);
+          if(cmd != null) cmd.pre = pre;
         }
+      } else {
+        data.paths.init();
+        data.elemNames.init();
+        data.attrNames.init();
 
-        final int level = pars.size();
-        if(kind == Data.DOC) {
-          data.paths.index(0, Data.DOC, level);
-          pars.push(pre);
-          elemStack.push(0);
-          ++n;
-        } else if(kind == Data.ELEM) {
-          final int id = data.nameId(pre);
-          data.elemNames.index(data.elemNames.key(id));
-          data.paths.index(id, Data.ELEM, level);
-          pars.push(pre);
-          elemStack.push(id);
-        } else if(kind == Data.ATTR) {
-          final int id = data.nameId(pre);
-          final byte[] value = data.text(pre, false);
-          data.attrNames.index(data.attrNames.key(id), value);
-          data.paths.index(id, Data.ATTR, level, value, meta);
-        } else {
-          final byte[] value = data.text(pre, true);
-          if(level > 1) {
-            final Stats stats = data.elemNames.stats(elemStack.peek());
-            if(kind == Data.TEXT) stats.add(value, meta);
-            else stats.setLeaf(false);
-          }
-          data.paths.index(0, kind, level, value, meta);
+        int n = 0;
+        for(int pre = 0; pre < meta.size; ++pre) {
+          if(index(data, pre, pars, elemStack)) ++n;
+          if(cmd != null) cmd.pre = pre;
         }
-        if(cmd != null) cmd.pre = pre;
+        meta.ndocs = n;
       }
-      meta.ndocs = n;
       meta.uptodate = true;
     }
 
     // rebuild value indexes
-    optimize(IndexType.TEXT, data, meta.createtext, enforceText, cmd);
-    optimize(IndexType.ATTRIBUTE, data, meta.createattr, enforceAttr, cmd);
-    optimize(IndexType.TOKEN, data, meta.createtoken, enforceToken, cmd);
-    optimize(IndexType.FULLTEXT, data, meta.createft, enforceFt, cmd);
+    final ArrayList<IndexType> types = new ArrayList<>();
+    optimize(IndexType.TEXT, data, meta.createtext, enforceText, types);
+    optimize(IndexType.ATTRIBUTE, data, meta.createattr, enforceAttr, types);
+    optimize(IndexType.TOKEN, data, meta.createtoken, enforceToken, types);
+    optimize(IndexType.FULLTEXT, data, meta.createft, enforceFt, types);
+    CreateIndex.create(types, data, cmd);
+    // merge pending updates of the value and full-text indexes
+    for(final IndexType type : IndexType.values()) {
+      final Index index = data.index(type);
+      if(index instanceof UpdatableDiskValues) ((UpdatableDiskValues) index).merge();
+      else if(index instanceof FTIndex) ((FTIndex) index).merge();
+    }
+  }
+
+  /**
+   * Returns the pre values of all nodes that have been inserted since the structural indexes
+   * have been updated.
+   * @param data data reference
+   * @return sorted pre values
+   */
+  private static IntList inserted(final Data data) {
+    final MetaData meta = data.meta;
+    final IntList pres = new IntList();
+    if(meta.updindex) {
+      // look up pre values of new ids
+      for(int id = meta.statsid + 1; id <= meta.lastid; id++) {
+        final int pre = data.pre(id);
+        if(pre != -1) pres.add(pre);
+      }
+      pres.sort();
+    } else {
+      for(int pre = 0; pre < meta.size; pre++) {
+        if(data.id(pre) > meta.statsid) pres.add(pre);
+      }
+    }
+    return pres;
+  }
+
+  /**
+   * Positions the path index and the stacks on the ancestors of the specified node.
+   * @param data data reference
+   * @param pre pre value
+   * @param pars stack with pre values of ancestors
+   * @param elemStack stack with name ids of ancestors
+   */
+  private static void ancestors(final Data data, final int pre, final IntList pars,
+      final IntList elemStack) {
+
+    final IntList ancestors = new IntList();
+    int par = pre;
+    while((par = data.parent(par, data.kind(par))) != -1) ancestors.add(par);
+
+    pars.reset();
+    elemStack.reset();
+    data.paths.ancestor(0, Data.DOC, 0);
+    for(int a = ancestors.size() - 1; a >= 0; a--) {
+      final int anc = ancestors.get(a), kind = data.kind(anc), level = pars.size();
+      final int id = kind == Data.ELEM ? data.nameId(anc) : 0;
+      if(level > 0) data.paths.ancestor(id, (byte) kind, level);
+      pars.push(anc);
+      elemStack.push(id);
+    }
+  }
+
+  /**
+   * Adds a node to the structural indexes.
+   * @param data data reference
+   * @param pre pre value
+   * @param pars stack with pre values of ancestors
+   * @param elemStack stack with name ids of ancestors
+   * @return {@code true} if the node is a document node
+   */
+  private static boolean index(final Data data, final int pre, final IntList pars,
+      final IntList elemStack) {
+
+    final MetaData meta = data.meta;
+    final byte kind = (byte) data.kind(pre);
+    final int par = data.parent(pre, kind);
+    while(!pars.isEmpty() && pars.peek() > par) {
+      pars.pop();
+      elemStack.pop();
+    }
+
+    final int level = pars.size();
+    if(kind == Data.DOC) {
+      data.paths.index(0, Data.DOC, level);
+      pars.push(pre);
+      elemStack.push(0);
+      return true;
+    }
+    if(kind == Data.ELEM) {
+      final int id = data.nameId(pre);
+      data.elemNames.index(data.elemNames.key(id));
+      data.paths.index(id, Data.ELEM, level);
+      pars.push(pre);
+      elemStack.push(id);
+    } else if(kind == Data.ATTR) {
+      final int id = data.nameId(pre);
+      final byte[] value = data.text(pre, false);
+      data.attrNames.index(data.attrNames.key(id), value);
+      data.paths.index(id, Data.ATTR, level, value, meta);
+    } else {
+      final byte[] value = data.text(pre, true);
+      if(level > 1) {
+        final Stats stats = data.elemNames.stats(elemStack.peek());
+        if(kind == Data.TEXT) stats.add(value, meta);
+        else stats.setLeaf(false);
+      }
+      data.paths.index(0, kind, level, value, meta);
+    }
+    return false;
   }
 
   /**
-   * Creates or deletes the specified index if the old and new state is different.
+   * Deletes the specified index, or schedules it for creation, if the old and new state is
+   * different.
    * @param type index type
    * @param data data reference
    * @param create new flag
    * @param enforce enforce operation
-   * @param cmd calling command instance
+   * @param types indexes to be created
    * @throws IOException I/O exception
    */
   private static void optimize(final IndexType type, final Data data, final boolean create,
-      final boolean enforce, final Optimize cmd) throws IOException {
+      final boolean enforce, final ArrayList<IndexType> types) throws IOException {
 
     // check if flags have changed
     if(create == data.meta.index(type) && !enforce) return;
     // create or drop index
-    if(create) CreateIndex.create(type, data, cmd);
+    if(create) types.add(type);
     else DropIndex.drop(type, data);
   }
 
@@ -192,13 +284,17 @@ public final class Optimize extends ACreate {
     final int size = md.size;
     for(int pre = 0; pre < size; ++pre) data.id(pre, pre);
     md.lastid = size - 1;
+    md.statsid = -1;
     md.dirty = true;
 
     if(data.meta.updindex) {
       data.idmap = new IdPreMap(md.lastid);
-      if(data.meta.textindex) optimize(IndexType.TEXT, data, true, true, null);
-      if(data.meta.attrindex) optimize(IndexType.ATTRIBUTE, data, true, true, null);
-      if(data.meta.tokenindex) optimize(IndexType.TOKEN, data, true, true, null);
+      final ArrayList<IndexType> types = new ArrayList<>();
+      if(data.meta.textindex) types.add(IndexType.TEXT);
+      if(data.meta.attrindex) types.add(IndexType.ATTRIBUTE);
+      if(data.meta.tokenindex) types.add(IndexType.TOKEN);
+      if(data.meta.ftindex) types.add(IndexType.FULLTEXT);
+      CreateIndex.create(types, data, null);
     }
   }
 }
@@ -90,6 +90,9 @@ public final class OptimizeAll extends ACreate {
     final String name = ometa.name;
     if(context.datas.pins(name) > 1) throw new BaseXException(DB_PINNED_X, name);
 
+    // files of the original database will be replaced
+    odata.unlogged();
+
     // adopt original index options
     options.set(MainOptions.TEXTINDEX, ometa.textindex);
     options.set(MainOptions.ATTRINDEX, ometa.attrindex);
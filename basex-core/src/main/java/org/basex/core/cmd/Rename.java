@@ -66,6 +66,7 @@ public final class Rename extends ACreate {
 
     final IOFile file = data.inMemory() ? null : data.meta.binary(src);
     if(file != null && file.exists()) {
+      data.unlogged();
       final IOFile target = data.meta.binary(trg);
       final IOFile trgdir = target.parent();
       if(!trgdir.md() || !file.rename(target)) ok = !info(NAME_INVALID_X, trg);
@@ -62,6 +62,7 @@ public final class Store extends ACreate {
     return update(data, new Code() {
       @Override
       boolean run() throws IOException {
+        data.unlogged();
         store(in, file);
         return info(QUERY_EXECUTED_X_X, "", jc().performance);
       }
@@ -87,6 +87,14 @@ public abstract class Job {
     children.remove(children.size() - 1);
   }
 
+  /**
+   * Removes the specified job. Required if child jobs are run in parallel.
+   * @param job child job
+   */
+  public final synchronized void popJob(final Job job) {
+    children.remove(job);
+  }
+
   /**
    * Stops a job or sub job.
    */
@@ -128,7 +136,9 @@ public abstract class Job {
    * @param js new state
    */
   public void state(final JobState js) {
-    for(final Job job : children) job.state(js);
+    synchronized(children) {
+      for(final Job job : children) job.state(js);
+    }
     state = js;
     if(js == JobState.STOPPED || js == JobState.TIMEOUT || js == JobState.MEMORY) {
       stopped = true;
@@ -26,6 +26,10 @@ public final class JobPool {
   final Timer timer = new Timer(true);
   /** Timeout (ms). */
   private final long timeout;
+  /** Number of worker threads. */
+  private final int threads;
+  /** Shared worker pool for parallel query evaluation (lazily instantiated). */
+  private ForkJoinPool workers;
 
   /**
    * Constructor.
@@ -33,6 +37,18 @@ public final class JobPool {
    */
   public JobPool(final StaticOptions sopts) {
     timeout = sopts.get(StaticOptions.CACHETIMEOUT) * 1000L;
+    final int t = sopts.get(StaticOptions.FORKTHREADS);
+    threads = Math.min(t > 0 ? t : Runtime.getRuntime().availableProcessors(), 0x7FFF);
+  }
+
+  /**
+   * Returns the shared worker pool for parallel query evaluation.
+   * Its size is limited by {@link StaticOptions#FORKTHREADS}.
+   * @return worker pool
+   */
+  public synchronized ForkJoinPool workers() {
+    if(workers == null) workers = new ForkJoinPool(threads);
+    return workers;
   }
 
   /**
@@ -60,6 +76,7 @@ public final class JobPool {
     timer.cancel();
     for(final Job job : active.values()) job.stop();
     while(!active.isEmpty()) Performance.sleep(1);
+    if(workers != null) workers.shutdownNow();
   }
 
   /**
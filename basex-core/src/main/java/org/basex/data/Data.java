@@ -88,6 +88,8 @@ public abstract class Data {
 
   /** Resource index. */
   public final Resources resources = new Resources(this);
+  /** Pre values of elements with selective names. */
+  public final NameNodes nameNodes = new NameNodes(this);
   /** Meta data. */
   public final MetaData meta;
 
@@ -117,6 +119,8 @@ public abstract class Data {
   protected TableAccess table;
   /** Closed flag. */
   protected boolean closed;
+  /** Indicates if the values of deleted descendants will be freed (see {@link #deleteTexts}). */
+  protected boolean compact;
 
   /**
    * Default constructor.
@@ -164,12 +168,27 @@ public abstract class Data {
    */
   public abstract void startUpdate(MainOptions opts) throws BaseXException;
 
+  /**
+   * Indicates that the current update operation changes files that are not covered by the
+   * write-ahead log. If the operation is interrupted, the database will not be opened again.
+   */
+  public abstract void unlogged();
+
   /**
    * Finishes an update operation: removes the update file and the exclusive lock.
    * @param opts main options
    */
   public abstract void finishUpdate(MainOptions opts);
 
+  /**
+   * Finishes an update operation. If flushes are delayed, they will be run as jobs of the
+   * specified context, and the database will be locked while changes are written to disk.
+   * @param ctx database context
+   */
+  public void finishUpdate(final Context ctx) {
+    finishUpdate(ctx.options);
+  }
+
   /**
    * Flushes updated data.
    * @param all flush all data
@@ -536,18 +555,23 @@ public abstract class Data {
       } else {
         // update element name
         final IntList pres = new IntList();
-        // update text index
-        if(meta.updindex && meta.textindex) {
+        // update text and full-text index
+        if(meta.updindex && (meta.textindex || meta.ftindex)) {
           final int last = pre + size;
           for(int curr = pre + attSize(pre, kind); curr < last; curr += size(curr, kind(curr))) {
             if(kind(curr) == TEXT) pres.add(curr);
           }
-          textIndex.delete(new ValueCache(pres, IndexType.TEXT, this));
+          if(meta.textindex) textIndex.delete(new ValueCache(pres, IndexType.TEXT, this));
+          if(meta.ftindex) ftIndex.delete(new ValueCache(pres, IndexType.FULLTEXT, this));
         }
         table.write1(pre, 3, uriId);
-        final int nameId = elemNames.put(name);
+        final int oldId = nameId(pre), nameId = elemNames.put(name);
         table.write2(nsPre, 1, (nsFlag || nsFlag(nsPre) ? 1 << 15 : 0) | nameId);
-        if(!pres.isEmpty()) textIndex.add(new ValueCache(pres, IndexType.TEXT, this));
+        nameNodes.rename(pre, oldId, nameId);
+        if(!pres.isEmpty()) {
+          if(meta.textindex) textIndex.add(new ValueCache(pres, IndexType.TEXT, this));
+          if(meta.ftindex) ftIndex.add(new ValueCache(pres, IndexType.FULLTEXT, this));
+        }
       }
     }
   }
@@ -581,8 +605,9 @@ public abstract class Data {
     final int tPar = parent(pre, tKind);
     bufferSize(sCount);
 
-    // update index structures
+    // update index structures; free textual values if the heap files will be compacted
     indexDelete(pre, id(pre), tSize);
+    if(compact) deleteTexts(pre, tSize);
 
     final Data sData = source.data;
     int sTopPre = source.start;
@@ -674,8 +699,8 @@ public abstract class Data {
     // delete entries in value indexes
     indexDelete(pre, id(pre), size);
 
-    /// delete textual values
-    if(kind != DOC && kind != ELEM) delete(pre, kind != ATTR);
+    // delete textual values of the node and its descendants
+    deleteTexts(pre, size);
 
     // reduce size of ancestors
     int par = pre;
@@ -706,6 +731,19 @@ public abstract class Data {
     updateDist(pre, -size);
   }
 
+  /**
+   * Deletes the textual values of the specified nodes. The values of descendants are only
+   * deleted if the heap files will be compacted ({@link MainOptions#COMPACT}).
+   * @param pre pre value of the first node
+   * @param size number of nodes
+   */
+  private void deleteTexts(final int pre, final int size) {
+    for(int p = pre, last = compact ? pre + size : pre + 1; p < last; p++) {
+      final int kind = kind(p);
+      if(kind != DOC && kind != ELEM) delete(p, kind != ATTR);
+    }
+  }
+
   /**
    * Inserts standalone attributes (without root element).
    * @param pre target pre value (insertion position)
@@ -735,7 +773,7 @@ public abstract class Data {
     final int sCount = source.size();
     if(sCount == 0) return;
 
-    meta.update();
+    meta.update(true);
     resources.docs();
 
     // resize buffer to cache more entries
@@ -1067,11 +1105,15 @@ public abstract class Data {
    * @param size number of descendants
    */
   protected final void indexDelete(final int pre, final int id, final int size) {
-    if(id != -1) resources.delete(pre, size);
+    if(id != -1) {
+      resources.delete(pre, size);
+      nameNodes.delete(pre, size);
+    }
     if(meta.updindex) {
       if(meta.textindex) textIndex.delete(new ValueCache(pre, size, IndexType.TEXT, this));
       if(meta.attrindex) attrIndex.delete(new ValueCache(pre, size, IndexType.ATTRIBUTE, this));
       if(meta.tokenindex) tokenIndex.delete(new ValueCache(pre, size, IndexType.TOKEN, this));
+      if(meta.ftindex) ftIndex.delete(new ValueCache(pre, size, IndexType.FULLTEXT, this));
       if(id != -1) idmap.delete(pre, id, -size);
     }
   }
@@ -1084,12 +1126,16 @@ public abstract class Data {
    * @param clip data clip to be inserted
    */
   protected final void indexAdd(final int pre, final int id, final int size, final DataClip clip) {
-    if(id != -1) resources.insert(pre, clip);
+    if(id != -1) {
+      resources.insert(pre, clip);
+      nameNodes.insert(pre, size);
+    }
     if(meta.updindex) {
       if(id != -1) idmap.insert(pre, id, size);
       if(meta.textindex) textIndex.add(new ValueCache(pre, size, IndexType.TEXT, this));
       if(meta.attrindex) attrIndex.add(new ValueCache(pre, size, IndexType.ATTRIBUTE, this));
       if(meta.tokenindex) tokenIndex.add(new ValueCache(pre, size, IndexType.TOKEN, this));
+      if(meta.ftindex) ftIndex.add(new ValueCache(pre, size, IndexType.FULLTEXT, this));
     }
   }
 
@@ -70,6 +70,8 @@ public interface DataText {
   String DBUPTODATE = "UPTODATE";
   /** Last (highest) id. */
   String DBLASTID = "LASTID";
+  /** Last id included in the statistics. */
+  String DBSTATSID = "STATSID";
   /** Documents. */
   String DBDOCS = "DOCS";
   /** Recreate text index. */
@@ -114,6 +116,8 @@ public interface DataText {
   String DATAPTH = "pth";
   /** Database - ID-PRE mapping. */
   String DATAIDP = "idp";
+  /** Database - Write-ahead log. */
+  String DATAWAL = "wal";
 
   // XML SERIALIZATION ============================================================================
 
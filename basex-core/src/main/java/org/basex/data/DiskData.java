@@ -5,10 +5,12 @@ import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.build.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
+import org.basex.core.jobs.*;
 import org.basex.index.*;
 import org.basex.index.ft.*;
 import org.basex.index.name.*;
@@ -17,6 +19,7 @@ import org.basex.index.value.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
+import org.basex.io.out.*;
 import org.basex.io.random.*;
 import org.basex.util.*;
 
@@ -56,6 +59,21 @@ public final class DiskData extends Data {
   private DataAccess texts;
   /** Values access file. */
   private DataAccess values;
+  /** Write-ahead log ({@code null} if updates are not logged). */
+  private WriteAheadLog wal;
+
+  /** Timer for delayed flushes (lazily instantiated). */
+  private static Timer timer;
+  /** Delayed flush ({@code null} if no updates are pending). */
+  private TimerTask delayed;
+  /** Time of the first update that has not been flushed yet. */
+  private long pending;
+  /** Indicates if an update is running. */
+  private boolean updating;
+  /** Context for running delayed flushes ({@code null} if no context has been assigned). */
+  private Context context;
+  /** Next entry to be compacted ({@code -1}: compaction is not running). */
+  private int compacting = -1;
 
   /**
    * Default constructor, called from {@link Open#open}.
@@ -122,9 +140,18 @@ public final class DiskData extends Data {
    * @throws IOException I/O exception
    */
   private void init() throws IOException {
-    table = new TableDiskAccess(meta, false);
-    texts = new DataAccess(meta.dbfile(DATATXT));
-    values = new DataAccess(meta.dbfile(DATAATV));
+    if(meta.wal) wal = new WriteAheadLog(meta.dbfile(DATAWAL));
+    table = new TableDiskAccess(meta, false, wal);
+    texts = new DataAccess(meta.dbfile(DATATXT), meta.mmap, meta.pread, wal);
+    values = new DataAccess(meta.dbfile(DATAATV), meta.mmap, meta.pread, wal);
+  }
+
+  /**
+   * Returns the write-ahead log.
+   * @return log ({@code null} if updates are not logged)
+   */
+  public WriteAheadLog wal() {
+    return wal;
   }
 
   /**
@@ -134,29 +161,69 @@ public final class DiskData extends Data {
   private void write() throws IOException {
     if(!meta.dirty) return;
 
-    try(DataOutput out = new DataOutput(meta.dbfile(DATAINF))) {
-      meta.write(out);
-      out.writeToken(token(DBTAGS));
-      elemNames.write(out);
-      out.writeToken(token(DBATTS));
-      attrNames.write(out);
-      out.writeToken(token(DBPATH));
-      paths.write(out);
-      out.writeToken(token(DBNS));
-      nspaces.write(out);
-      out.writeToken(token(DBDOCS));
-      resources.write(out);
-      out.write(0);
+    if(wal != null) {
+      // files will be written when the log is committed
+      final ArrayOutput ao = new ArrayOutput();
+      final DataOutput out = new DataOutput(ao);
+      write(out);
+      wal.file(meta.dbfile(DATAINF).name(), ao.next());
+      if(meta.updindex) {
+        idmap.write(out);
+        wal.file(meta.dbfile(DATAIDP).name(), ao.next());
+      }
+    } else {
+      try(DataOutput out = new DataOutput(meta.dbfile(DATAINF))) {
+        write(out);
+      }
+      if(meta.updindex) idmap.write(meta.dbfile(DATAIDP));
     }
-    if(meta.updindex) idmap.write(meta.dbfile(DATAIDP));
     meta.dirty = false;
   }
 
+  /**
+   * Writes all meta data to the specified output stream.
+   * @param out output stream
+   * @throws IOException I/O exception
+   */
+  private void write(final DataOutput out) throws IOException {
+    meta.write(out);
+    out.writeToken(token(DBTAGS));
+    elemNames.write(out);
+    out.writeToken(token(DBATTS));
+    attrNames.write(out);
+    out.writeToken(token(DBPATH));
+    paths.write(out);
+    out.writeToken(token(DBNS));
+    nspaces.write(out);
+    out.writeToken(token(DBDOCS));
+    resources.write(out);
+    out.write(0);
+  }
+
+  /**
+   * Adds all changes to the write-ahead log and commits the log.
+   * Afterwards, the changes can be written to the database files.
+   * @throws IOException I/O exception
+   */
+  private void commit() throws IOException {
+    ((TableDiskAccess) table).log(wal);
+    texts.log(wal);
+    values.log(wal);
+    for(final IndexType type : IndexType.values()) {
+      final Index index = index(type);
+      if(index instanceof DiskValues) ((DiskValues) index).log(wal);
+      else if(index instanceof FTIndex) ((FTIndex) index).log(wal);
+    }
+    write();
+    wal.commit();
+  }
+
   @Override
   public synchronized void close() {
     if(closed) return;
     super.close();
     try {
+      if(wal != null) commit();
       write();
       table.close();
       texts.close();
@@ -165,6 +232,8 @@ public final class DiskData extends Data {
       close(IndexType.ATTRIBUTE);
       close(IndexType.TOKEN);
       close(IndexType.FULLTEXT);
+      if(wal != null) wal.close();
+      if(delayed != null) release();
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -185,6 +254,8 @@ public final class DiskData extends Data {
 
   @Override
   public void createIndex(final IndexType type, final Command cmd) throws IOException {
+    // index files are not logged: discard log entries that may refer to the old files
+    truncate();
     // close existing index
     close(type);
     final IndexBuilder ib;
@@ -197,17 +268,34 @@ public final class DiskData extends Data {
       if(cmd != null) cmd.pushJob(ib);
       set(type, ib.build());
     } finally {
-      if(cmd != null) cmd.popJob();
+      if(cmd != null) cmd.popJob(ib);
     }
   }
 
   @Override
   public void dropIndex(final IndexType type) throws BaseXException {
+    try {
+      truncate();
+    } catch(final IOException ex) {
+      throw new BaseXException(ex);
+    }
     close(type);
     final Index index = index(type);
     if(index != null && !index.drop()) throw new BaseXException(INDEX_NOT_DROPPED_X, type);
   }
 
+  /**
+   * Writes pending changes to disk and truncates the write-ahead log.
+   * Called before index files are changed that are not covered by the log.
+   * @throws IOException I/O exception
+   */
+  private void truncate() throws IOException {
+    if(wal == null) return;
+    flush(true);
+    wal.truncate();
+    unlogged();
+  }
+
   /**
    * Assigns the specified index.
    * @param type index to be opened
@@ -227,33 +315,141 @@ public final class DiskData extends Data {
   @Override
   public void startUpdate(final MainOptions opts) throws BaseXException {
     if(!table.lock(true)) throw new BaseXException(DB_PINNED_X, meta.name);
-    if(opts.get(MainOptions.AUTOFLUSH)) {
-      final IOFile upd = meta.updateFile();
-      if(upd.exists()) throw new BaseXException(DB_UPDATED_X, meta.name);
-      if(!upd.touch()) throw Util.notExpected("%: could not create lock file.", meta.name);
+    synchronized(this) {
+      // skip creation of lock file if it has been kept for a delayed flush
+      if(opts.get(MainOptions.AUTOFLUSH) && delayed == null) {
+        final IOFile upd = meta.updateFile();
+        if(upd.exists()) throw new BaseXException(DB_UPDATED_X, meta.name);
+        try {
+          // mark lock file if changes are logged (see MetaData#logged)
+          upd.write(wal != null ? token(DATAWAL) : EMPTY);
+        } catch(final IOException ex) {
+          Util.debug(ex);
+          throw Util.notExpected("%: could not create lock file.", meta.name);
+        }
+      }
+      compact = opts.get(MainOptions.COMPACT) > 0;
+      updating = true;
     }
   }
 
+  @Override
+  public synchronized void unlogged() {
+    final IOFile upd = meta.updateFile();
+    if(wal == null || !upd.exists()) return;
+    try {
+      upd.write(EMPTY);
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      throw Util.notExpected("%: could not update lock file.", meta.name);
+    }
+  }
+
+  @Override
+  public synchronized void finishUpdate(final Context ctx) {
+    context = ctx;
+    finishUpdate(ctx.options);
+  }
+
   @Override
   public synchronized void finishUpdate(final MainOptions opts) {
     // OPTIMIZE ALL / db:optimize(..., true) will close the database before this function is called
     if(closed) return;
+    final int compact = opts.get(MainOptions.COMPACT);
+    if(compact > 0) compact(compact);
+    updating = false;
 
-    // remove updating file
     final boolean auto = opts.get(MainOptions.AUTOFLUSH);
-    if(auto) {
-      final IOFile upd = meta.updateFile();
-      if(!upd.exists()) throw Util.notExpected("%: lock file does not exist.", meta.name);
-      if(!upd.delete()) throw Util.notExpected("%: could not delete lock file.", meta.name);
+    final long delay = opts.get(MainOptions.FLUSHDELAY);
+    if(auto && delay > 0 && context != null) {
+      // group commit: coalesce the updates of the given time frame, keep lock file until flush
+      final long time = System.currentTimeMillis();
+      if(delayed == null) {
+        pending = time;
+        final Context ctx = context;
+        delayed = new TimerTask() {
+          @Override
+          public void run() {
+            // index structures may be rewritten: wait until running queries have been finished
+            final Job job = new Job() {
+              @Override
+              public void addLocks() {
+                jc().locks.writes.add(meta.name);
+              }
+            };
+            job.register(ctx);
+            try {
+              synchronized(DiskData.this) {
+                // if an update is running, the database will be flushed when it is finished
+                if(delayed == this && !updating && !closed) flush(true);
+              }
+            } finally {
+              job.unregister(ctx);
+            }
+          }
+        };
+        timer().schedule(delayed, delay);
+      } else if(time - pending >= delay) {
+        flush(true);
+      }
+    } else if(delayed != null) {
+      // flush updates of previous transactions
+      flush(true);
+    } else {
+      // remove updating file
+      if(auto) {
+        final IOFile upd = meta.updateFile();
+        if(!upd.exists()) throw Util.notExpected("%: lock file does not exist.", meta.name);
+        if(!upd.delete()) throw Util.notExpected("%: could not delete lock file.", meta.name);
+      }
+      flush(auto);
     }
-
-    flush(auto);
     if(!table.lock(false)) throw Util.notExpected("Database '%': could not unlock.", meta.name);
   }
 
+  /**
+   * Performs a step of the incremental compaction of the heap files. The free space of the files
+   * is parsed first. If it exceeds a threshold, the table is traversed, and texts and attribute
+   * values are moved to free areas at the beginning of the files. Free space at the end of the
+   * files is discarded.
+   * @param n number of entries to be processed
+   */
+  private void compact(final int n) {
+    final boolean tt = texts.track(n), vt = values.track(n);
+    if(!tt || !vt) return;
+
+    int pre = compacting;
+    if(pre == -1) {
+      if(!fragmented(texts) && !fragmented(values)) return;
+      pre = 0;
+    }
+    // pre values may have been shifted by updates: entries may be skipped or visited twice
+    final int size = meta.size;
+    for(final int end = (int) Math.min(size, (long) pre + n); pre < end; pre++) {
+      final int kind = kind(pre);
+      if(kind == ELEM) continue;
+      final long ref = textRef(pre);
+      if(Inline.inlined(ref)) continue;
+      final long off = (kind == ATTR ? values : texts).relocate(ref & Compress.COMPRESS - 1);
+      if(off != -1) textRef(pre, off | ref & Compress.COMPRESS);
+    }
+    compacting = pre < size ? pre : -1;
+  }
+
+  /**
+   * Checks if a heap file is fragmented.
+   * @param store heap file
+   * @return result of check
+   */
+  private static boolean fragmented(final DataAccess store) {
+    return store.unused() > Math.max(IO.BLOCKSIZE, store.length() >>> 3);
+  }
+
   @Override
   public synchronized void flush(final boolean all) {
     try {
+      // log changes before they are written to disk
+      if(all && wal != null) commit();
       table.flush(all);
       if(all) {
         write();
@@ -261,12 +457,35 @@ public final class DiskData extends Data {
         values.flush();
         if(textIndex != null) textIndex.flush();
         if(attrIndex != null) attrIndex.flush();
+        if(tokenIndex != null) tokenIndex.flush();
+        if(ftIndex != null) ftIndex.flush();
+        if(wal != null) wal.checkpoint();
+        if(delayed != null && !updating) release();
       }
     } catch(final IOException ex) {
       Util.stack(ex);
     }
   }
 
+  /**
+   * Cancels a delayed flush and removes the lock file that has been kept for it.
+   * Called after all updates have been written to disk.
+   */
+  private void release() {
+    delayed.cancel();
+    delayed = null;
+    if(!meta.updateFile().delete()) Util.debug("%: could not delete lock file.", meta.name);
+  }
+
+  /**
+   * Returns the timer for delayed flushes.
+   * @return timer
+   */
+  private static synchronized Timer timer() {
+    if(timer == null) timer = new Timer("Flush", true);
+    return timer;
+  }
+
   @Override
   public byte[] text(final int pre, final boolean text) {
     final long value = textRef(pre);
@@ -291,9 +510,10 @@ public final class DiskData extends Data {
     if(Inline.inlined(value)) return Inline.unpackLength(value);
 
     final DataAccess da = text ? texts : values;
-    final int l = da.readNum(value & Compress.COMPRESS - 1);
+    final long pos = value & Compress.COMPRESS - 1;
+    final int l = da.readNumAt(pos);
     // if text is compressed, read number of compressed bytes
-    return Compress.compressed(value) ? da.readNum() : l;
+    return Compress.compressed(value) ? da.readNumAt(pos + Num.length(l)) : l;
   }
 
   /**
@@ -303,7 +523,7 @@ public final class DiskData extends Data {
    * @return text
    */
   private byte[] txt(final long offset, final boolean text) {
-    final byte[] txt = (text ? texts : values).readToken(offset & Compress.COMPRESS - 1);
+    final byte[] txt = (text ? texts : values).readTokenAt(offset & Compress.COMPRESS - 1);
     return Compress.compressed(offset) ? Compress.unpack(txt) : txt;
   }
 
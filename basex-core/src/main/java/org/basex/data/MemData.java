@@ -85,7 +85,7 @@ public final class MemData extends Data {
       if(cmd != null) cmd.pushJob(ib);
       set(type, ib.build());
     } finally {
-      if(cmd != null) cmd.popJob();
+      if(cmd != null) cmd.popJob(ib);
     }
   }
 
@@ -120,6 +120,9 @@ public final class MemData extends Data {
   @Override
   public void startUpdate(final MainOptions opts) { }
 
+  @Override
+  public void unlogged() { }
+
   @Override
   public void finishUpdate(final MainOptions opts) { }
 
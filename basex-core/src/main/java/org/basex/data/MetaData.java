@@ -91,10 +91,28 @@ public final class MetaData {
 
   /** Indicates if index structures are out-dated. */
   public boolean uptodate = true;
+  /** Last node id that is included in the statistics and the path index. If the structures are
+   * out-dated, and if nodes have only been inserted, they can be updated incrementally by adding
+   * all nodes with larger ids ({@code -1}: structures must be rebuilt). */
+  public int statsid = -1;
   /** Indicate if the database may be corrupt. */
   public boolean corrupt;
   /** Dirty flag. */
   public boolean dirty;
+  /** Flag for memory-mapped table access (not stored on disk). */
+  public boolean mmap;
+  /** Flag for positional text reads (not stored on disk). */
+  public boolean pread;
+  /** Flag for logging updates in a write-ahead log (not stored on disk). */
+  public boolean wal;
+  /** Number of threads for building index structures (not stored on disk). */
+  public int indexthreads;
+  /** Flag for creating Bloom filters for value indexes (not stored on disk). */
+  public boolean bloomfilter;
+  /** Maximum memory for the cached entries of an index, in kilobytes (not stored on disk). */
+  public int indexcache;
+  /** Flag for persisting the keys of cached index entries (not stored on disk). */
+  public boolean warmcache;
 
   /** Number of nodes. */
   public int size;
@@ -130,6 +148,13 @@ public final class MetaData {
     casesens = options.get(MainOptions.CASESENS);
     updindex = options.get(MainOptions.UPDINDEX);
     autooptimize = options.get(MainOptions.AUTOOPTIMIZE);
+    mmap = options.get(MainOptions.MMAP);
+    pread = options.get(MainOptions.PREAD);
+    wal = options.get(MainOptions.WAL);
+    indexthreads = options.get(MainOptions.INDEXTHREADS);
+    bloomfilter = options.get(MainOptions.BLOOMFILTER);
+    indexcache = options.get(MainOptions.INDEXCACHE);
+    warmcache = options.get(MainOptions.WARMCACHE);
     maxlen = options.get(MainOptions.MAXLEN);
     maxcats = options.get(MainOptions.MAXCATS);
     stopwords = options.get(MainOptions.STOPWORDS);
@@ -271,6 +296,20 @@ public final class MetaData {
     return dbfile(DATAUPD);
   }
 
+  /**
+   * Checks if all changes of an interrupted update have been added to the write-ahead log.
+   * If this is the case, the database will be consistent after the log has been replayed.
+   * @return result of check
+   */
+  public boolean logged() {
+    try {
+      return Token.eq(updateFile().read(), Token.token(DATAWAL));
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      return false;
+    }
+  }
+
   /**
    * Returns a reference to the specified binary file.
    * @param pth internal file path
@@ -409,6 +448,7 @@ public final class MetaData {
         case DBFTST:     stemming = toBoolean(v); break;
         case DBFTCS:     casesens = toBoolean(v); break;
         case DBUPTODATE: uptodate = toBoolean(v); break;
+        case DBSTATSID:  statsid = toInt(v); break;
       }
     }
 
@@ -457,6 +497,7 @@ public final class MetaData {
     writeInfo(out, DBMAXCATS,  maxcats);
     writeInfo(out, DBUPTODATE, uptodate);
     writeInfo(out, DBLASTID,   lastid);
+    writeInfo(out, DBSTATSID,  statsid);
     if(language != null) writeInfo(out, DBFTLN, language.toString());
     out.write(0);
   }
@@ -465,6 +506,17 @@ public final class MetaData {
    * Notifies the meta structures of an update and invalidates the indexes.
    */
   public void update() {
+    update(false);
+  }
+
+  /**
+   * Notifies the meta structures of an update and invalidates the indexes.
+   * @param insert indicates if new nodes will be inserted, and if no existing nodes are changed
+   */
+  public void update(final boolean insert) {
+    // remember the last id of the nodes that are included in the statistics
+    if(!insert) statsid = -1;
+    else if(uptodate) statsid = lastid;
     // update database timestamp
     time = System.currentTimeMillis();
     uptodate = false;
@@ -473,8 +525,8 @@ public final class MetaData {
       textindex = false;
       attrindex = false;
       tokenindex = false;
+      ftindex = false;
     }
-    ftindex = false;
   }
 
   /**
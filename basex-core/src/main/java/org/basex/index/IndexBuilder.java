@@ -31,9 +31,9 @@ public abstract class IndexBuilder extends Job {
   protected final boolean text;
 
   /** Number of index operations to perform before writing a partial index to disk. */
-  private final int splitSize;
+  protected final int splitSize;
   /** Maximum memory to consume. */
-  private final long maxMem = (long) (Runtime.getRuntime().maxMemory() * 0.8);
+  protected final long maxMem = (long) (Runtime.getRuntime().maxMemory() * 0.8);
 
   /** Names and namespace uri of element or attributes to include. */
   private final IndexNames includeNames;
@@ -86,7 +86,16 @@ public abstract class IndexBuilder extends Job {
    * @return result of check
    */
   protected final boolean indexEntry() {
-    return data.kind(pre) == (text ? Data.TEXT : Data.ATTR) && includeNames.contains(pre, text);
+    return indexEntry(pre);
+  }
+
+  /**
+   * Checks if the specified entry should be indexed.
+   * @param pr pre value
+   * @return result of check
+   */
+  protected final boolean indexEntry(final int pr) {
+    return data.kind(pr) == (text ? Data.TEXT : Data.ATTR) && includeNames.contains(pr, text);
   }
 
   /**
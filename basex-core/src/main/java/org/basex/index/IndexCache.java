@@ -2,43 +2,102 @@ package org.basex.index;
 
 import static org.basex.util.Token.*;
 
-import java.lang.ref.*;
+import java.io.*;
 import java.util.concurrent.locks.*;
 
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
 import org.basex.util.*;
 
 /**
- * This class caches sizes and offsets from index results.
+ * <p>This class caches sizes and offsets from index results.</p>
+ *
+ * <p>The estimated memory consumption of the cached entries is bounded by a budget. If the budget
+ * is exhausted, a new entry will only be admitted if its key has been requested more often than
+ * the key of the entry that would be evicted. Request frequencies are estimated by a count-min
+ * sketch with small counters, which are halved periodically. Eviction candidates are chosen by
+ * a clock algorithm.</p>
+ *
+ * <p>The keys of the cached entries can be written to disk and used to warm up the cache when
+ * an index is opened again.</p>
  *
  * @author BaseX Team 2005-19, BSD License
  * @author Dimitar Popov
  */
 public final class IndexCache {
-  /** Queue used to collect unused keys. */
-  private final ReferenceQueue<IndexEntry> queue = new ReferenceQueue<>();
+  /** Estimated memory consumption of an entry, excluding its key. */
+  private static final int OVERHEAD = 80;
+  /** Number of rows of the frequency sketch. */
+  private static final int ROWS = 4;
+  /** Hash seeds for the rows of the frequency sketch. */
+  private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+  /** Maximum value of a frequency counter. */
+  private static final int MAX = 15;
+
   /** Read-write lock. */
   private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock(true);
   /** Hash table buckets. */
   private BucketEntry[] buckets = new BucketEntry[Array.CAPACITY];
+  /** Cached entries, in the order in which they are visited by the clock hand. */
+  private BucketEntry[] clock = new BucketEntry[Array.CAPACITY];
+  /** Position of the clock hand. */
+  private int hand;
   /** Number of entries in the cache. */
   private int size;
 
+  /** Maximum memory consumption of the cached entries (in bytes). */
+  private final long budget;
+  /** Estimated memory consumption of the cached entries (in bytes). */
+  private long weight;
+
+  /** Frequency sketch (concurrent updates may get lost, which is tolerable for estimates). */
+  private final byte[] sketch;
+  /** Bit mask for the columns of a sketch row. */
+  private final int mask;
+  /** Number of recorded requests after which all counters will be halved. */
+  private final int sample;
+  /** Number of recorded requests since the counters have been halved. */
+  private int requests;
+
+  /**
+   * Constructor, using the default budget.
+   */
+  public IndexCache() {
+    this(MainOptions.INDEXCACHE.value() * 1024L);
+  }
+
+  /**
+   * Constructor.
+   * @param budget maximum memory consumption of the cached entries (in bytes)
+   */
+  public IndexCache(final long budget) {
+    this.budget = budget;
+    int width = 64;
+    while(width < budget / OVERHEAD && width < 1 << 24) width <<= 1;
+    sketch = new byte[width * ROWS];
+    mask = width - 1;
+    sample = width * 10;
+  }
+
   /**
    * Gets cached entry for the specified key.
    * @param key key
-   * @return cached entry or {@code null} if the entry is stale
+   * @return cached entry or {@code null} if the entry is not cached
    */
   public IndexEntry get(final byte[] key) {
     final int hash = hash(key);
+    record(hash);
     rwl.readLock().lock();
 
     try {
       final int i = indexFor(hash, buckets.length);
-      BucketEntry e = buckets[i];
-      while(e != null) {
-        final IndexEntry entry = e.get();
-        if(entry != null && e.hash == hash && eq(entry.key, key)) return entry;
-        e = e.next;
+      for(BucketEntry e = buckets[i]; e != null; e = e.next) {
+        if(e.hash == hash && eq(e.entry.key, key)) {
+          e.used = true;
+          return e.entry;
+        }
       }
     } finally {
       rwl.readLock().unlock();
@@ -48,7 +107,8 @@ public final class IndexCache {
 
   /**
    * Adds a new cache entry. If an entry with the specified key already exists,
-   * it will be updated.
+   * it will be updated. If the budget is exhausted and the key is requested less often than the
+   * key of an eviction candidate, the returned entry will not be cached.
    * @param key key
    * @param count number of index hits
    * @param offset offset to id list
@@ -59,24 +119,18 @@ public final class IndexCache {
     rwl.writeLock().lock();
 
     try {
-      purge();
       final int i = indexFor(hash, buckets.length);
-      BucketEntry current = buckets[i], prev = current;
-      while(current != null) {
-        final BucketEntry next = current.next;
-        final IndexEntry entry = current.get();
-        if(entry == null) {
-          delete(i, current, prev, next);
-        } else if(current.hash == hash && eq(entry.key, key)) {
-          update(entry, count, offset);
+      for(BucketEntry e = buckets[i]; e != null; e = e.next) {
+        final IndexEntry entry = e.entry;
+        if(e.hash == hash && eq(entry.key, key)) {
+          entry.size = count;
+          entry.offset = offset;
           return entry;
         }
-        prev = current;
-        current = next;
       }
 
       final IndexEntry entry = new IndexEntry(key, count, offset);
-      add(i, hash, entry);
+      if(admit(hash, weight(key))) add(hash, entry);
       return entry;
     } finally {
       rwl.writeLock().unlock();
@@ -92,20 +146,12 @@ public final class IndexCache {
     rwl.writeLock().lock();
 
     try {
-      purge();
       final int i = indexFor(hash, buckets.length);
-      BucketEntry e = buckets[i], prev = e;
-      while(e != null) {
-        final BucketEntry next = e.next;
-        final IndexEntry entry = e.get();
-        if(entry == null) {
-          delete(i, e, prev, next);
-        } else if(e.hash == hash && eq(entry.key, key)) {
-          delete(i, e, prev, next);
+      for(BucketEntry e = buckets[i]; e != null; e = e.next) {
+        if(e.hash == hash && eq(e.entry.key, key)) {
+          delete(e);
           break;
         }
-        prev = e;
-        e = next;
       }
     } finally {
       rwl.writeLock().unlock();
@@ -113,67 +159,135 @@ public final class IndexCache {
   }
 
   /**
-   * Purges stale entries from the cache.
+   * Writes the keys of all cached entries to the specified file.
+   * Keys with higher request frequencies are written first.
+   * @param file file
+   * @throws IOException I/O exception
    */
-  private void purge() {
-    for(Object x; (x = queue.poll()) != null;) {
-      final BucketEntry e = (BucketEntry) x;
-      final int i = indexFor(e.hash, buckets.length);
-      BucketEntry prev = buckets[i], p = prev;
-      while(p != null) {
-        final BucketEntry next = p.next;
-        if(p == e) {
-          delete(i, e, prev, next);
-          break;
-        }
-        prev = p;
-        p = next;
-      }
+  public void write(final IOFile file) throws IOException {
+    final byte[][] keys;
+    rwl.readLock().lock();
+    try {
+      final int[] freqs = new int[size];
+      for(int c = 0; c < size; c++) freqs[c] = frequency(clock[c].hash);
+      final int[] order = Array.createOrder(freqs, false);
+      keys = new byte[size][];
+      for(int c = 0; c < size; c++) keys[c] = clock[order[c]].entry.key;
+    } finally {
+      rwl.readLock().unlock();
+    }
+    try(DataOutput out = new DataOutput(file)) {
+      out.writeTokens(keys);
     }
   }
 
   /**
-   * Add a new index entry to the bucket with the specified index.
-   * @param i bucket index
-   * @param hash hash of the new index key
-   * @param entry index entry
+   * Reads keys that have been written by {@link #write(IOFile)} and deletes the file.
+   * @param file file
+   * @return keys (empty if the file does not exist)
+   * @throws IOException I/O exception
    */
-  private void add(final int i, final int hash, final IndexEntry entry) {
-    buckets[i] = new BucketEntry(hash, buckets[i], entry, queue);
-    if(++size == buckets.length) rehash();
+  public static byte[][] read(final IOFile file) throws IOException {
+    if(!file.exists()) return new byte[0][];
+    try(DataInput in = new DataInput(file)) {
+      return in.readTokens();
+    } finally {
+      file.delete();
+    }
+  }
+
+  /**
+   * Returns the number of cached entries.
+   * @return number of entries
+   */
+  public int size() {
+    rwl.readLock().lock();
+    try {
+      return size;
+    } finally {
+      rwl.readLock().unlock();
+    }
+  }
+
+  /**
+   * Checks if an entry can be added. If the budget is exhausted, eviction candidates are removed
+   * as long as they are requested less often than the new key.
+   * @param hash hash of the new key
+   * @param w estimated memory consumption of the new entry
+   * @return result of check
+   */
+  private boolean admit(final int hash, final long w) {
+    if(w > budget) return false;
+    if(weight + w <= budget) return true;
+
+    final int freq = frequency(hash);
+    while(weight + w > budget) {
+      final BucketEntry victim = victim();
+      if(frequency(victim.hash) >= freq) return false;
+      delete(victim);
+    }
+    return true;
+  }
+
+  /**
+   * Returns the next eviction candidate.
+   * Entries that have been requested since the hand has last passed them are skipped.
+   * @return entry
+   */
+  private BucketEntry victim() {
+    while(true) {
+      if(hand >= size) hand = 0;
+      final BucketEntry e = clock[hand];
+      if(!e.used) return e;
+      e.used = false;
+      hand++;
+    }
   }
 
   /**
-   * Update an existing index entry.
-   * @param entry index entry to update
-   * @param size new size
-   * @param offset new offset
+   * Adds a new index entry.
+   * @param hash hash of the new index key
+   * @param entry index entry
    */
-  private static void update(final IndexEntry entry, final int size, final long offset) {
-    entry.size = size;
-    entry.offset = offset;
+  private void add(final int hash, final IndexEntry entry) {
+    final int i = indexFor(hash, buckets.length);
+    final BucketEntry e = new BucketEntry(hash, buckets[i], entry);
+    buckets[i] = e;
+    if(size == clock.length) clock = Array.copy(clock, new BucketEntry[Array.newSize(size)]);
+    e.slot = size;
+    clock[size] = e;
+    weight += weight(entry.key);
+    if(++size == buckets.length) rehash();
   }
 
   /**
-   * Deletes a cached entry from the buckets with the specified index.
-   * @param i buckets index
+   * Deletes a cached entry.
    * @param e cached entry to delete
-   * @param p previous cache entry
-   * @param n next cache entry
    */
-  private void delete(final int i, final BucketEntry e, final BucketEntry p, final BucketEntry n) {
-    if(p == e) buckets[i] = n;
-    else p.next = n;
+  private void delete(final BucketEntry e) {
+    // remove entry from hash table
+    final int i = indexFor(e.hash, buckets.length);
+    if(buckets[i] == e) {
+      buckets[i] = e.next;
+    } else {
+      BucketEntry p = buckets[i];
+      while(p.next != e) p = p.next;
+      p.next = e.next;
+    }
     e.next = null;
-    --size;
+
+    // move last entry of the clock to the free slot
+    final BucketEntry last = clock[--size];
+    clock[e.slot] = last;
+    last.slot = e.slot;
+    clock[size] = null;
+    weight -= weight(e.entry.key);
   }
 
   /**
    * Resizes the hash table.
    */
   private void rehash() {
-    purge();
-
     final int s = size << 1;
     final BucketEntry[] tmp = new BucketEntry[s];
 
@@ -192,6 +306,53 @@ public final class IndexCache {
     buckets = tmp;
   }
 
+  /**
+   * Records a request for the specified key.
+   * @param hash hash of the key
+   */
+  private void record(final int hash) {
+    for(int r = 0; r < ROWS; r++) {
+      final int c = column(hash, r);
+      if(sketch[c] < MAX) sketch[c]++;
+    }
+    if(++requests >= sample) {
+      requests = 0;
+      final int sl = sketch.length;
+      for(int s = 0; s < sl; s++) sketch[s] >>= 1;
+    }
+  }
+
+  /**
+   * Returns the estimated request frequency of the specified key.
+   * @param hash hash of the key
+   * @return frequency
+   */
+  private int frequency(final int hash) {
+    int freq = MAX;
+    for(int r = 0; r < ROWS; r++) freq = Math.min(freq, sketch[column(hash, r)]);
+    return freq;
+  }
+
+  /**
+   * Returns the position of a counter in the frequency sketch.
+   * @param hash hash of the key
+   * @param row row
+   * @return position
+   */
+  private int column(final int hash, final int row) {
+    final int h = hash * SEEDS[row];
+    return row * (mask + 1) + ((h ^ h >>> 16) & mask);
+  }
+
+  /**
+   * Returns the estimated memory consumption of an entry.
+   * @param key key
+   * @return memory consumption
+   */
+  private static long weight(final byte[] key) {
+    return key.length + OVERHEAD;
+  }
+
   /**
    * Returns buckets index for a hash code.
    * @param h hash code
@@ -207,24 +368,28 @@ public final class IndexCache {
    * each buckets. It also stores the hash of the current entry for better
    * performance.
    */
-  private static class BucketEntry extends SoftReference<IndexEntry> {
+  private static class BucketEntry {
     /** Hash code of the stored cache entry key. */
     final int hash;
+    /** Stored cache entry. */
+    final IndexEntry entry;
     /** Next buckets entry or {@code null} if the last one for this buckets. */
     BucketEntry next;
+    /** Position in the clock. */
+    int slot;
+    /** Indicates if the entry has been requested since the clock hand has last passed it. */
+    boolean used;
 
     /**
      * Constructor.
      * @param h hash code of the cache entry key
      * @param n next buckets entry or {@code null} if the last one
      * @param v stored cache entry
-     * @param rq reference queue
      */
-    BucketEntry(final int h, final BucketEntry n, final IndexEntry v,
-        final ReferenceQueue<IndexEntry> rq) {
-      super(v, rq);
+    BucketEntry(final int h, final BucketEntry n, final IndexEntry v) {
       hash = h;
       next = n;
+      entry = v;
     }
   }
 }
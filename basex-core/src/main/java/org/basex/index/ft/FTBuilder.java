@@ -9,6 +9,7 @@ import java.io.*;
 import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.io.*;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
 import org.basex.util.ft.*;
@@ -35,28 +36,41 @@ public final class FTBuilder extends IndexBuilder {
    */
   public FTBuilder(final Data data) throws IOException {
     super(data, IndexType.FULLTEXT);
-    final MetaData meta = data.meta;
     tree = new FTIndexTrees(data.meta.maxlen);
+    lexer = lexer(data, new StopWords(data, data.meta.stopwords));
+  }
 
+  /**
+   * Returns a lexer for the full-text options of the specified database.
+   * @param data data reference
+   * @param sw stop words
+   * @return lexer
+   * @throws BaseXException database exception
+   */
+  static FTLexer lexer(final Data data, final StopWords sw) throws BaseXException {
+    final MetaData meta = data.meta;
     final FTOpt fto = new FTOpt();
     fto.set(FTFlag.DC, meta.diacritics);
     fto.set(FTFlag.ST, meta.stemming);
     fto.cs = meta.casesens ? FTCase.SENSITIVE : FTCase.INSENSITIVE;
-    fto.sw = new StopWords(data, meta.stopwords);
-    fto.ln = data.meta.language;
+    fto.sw = sw;
+    fto.ln = meta.language;
 
     if(!Tokenizer.supportFor(fto.ln))
       throw new BaseXException(NO_TOKENIZER_X, fto.ln);
     if(meta.stemming && !Stemmer.supportFor(fto.ln))
       throw new BaseXException(NO_STEMMER_X, fto.ln);
 
-    lexer = new FTLexer(fto);
+    return new FTLexer(fto);
   }
 
   @Override
   public FTIndex build() throws IOException {
     Util.debug(detailedInfo());
+    // discard pending updates of an old index
+    data.meta.dbfile(DATAFTX + 'd').delete();
 
+    final boolean updindex = data.meta.updindex;
     try {
       for(pre = 0; pre < size; ++pre) {
         if((pre & 0x0FFF) == 0) check();
@@ -76,7 +90,7 @@ public final class FTBuilder extends IndexBuilder {
               writeIndex(true);
               clean();
             }
-            tree.index(tok, pre, pos, splits);
+            tree.index(tok, updindex ? data.id(pre) : pre, pos, splits);
             count++;
           }
         }
@@ -113,7 +127,7 @@ public final class FTBuilder extends IndexBuilder {
 
       // open all temporary sorted lists
       final FTList[] v = new FTList[splits];
-      for(int b = 0; b < splits; ++b) v[b] = new FTList(data, b);
+      for(int b = 0; b < splits; ++b) v[b] = new FTList(data, DATAFTX + b);
 
       final IntList il = new IntList();
       while(check(v)) {
@@ -150,6 +164,73 @@ public final class FTBuilder extends IndexBuilder {
     }
   }
 
+  /**
+   * Merges pending updates into the index files.
+   * @param data data reference
+   * @param updates pending updates
+   * @throws IOException I/O exception
+   */
+  static void merge(final Data data, final FTUpdates updates) throws IOException {
+    final String name = DATAFTX + 'n';
+    try(DataOutput outX = new DataOutput(data.meta.dbfile(name + 'x'));
+        DataOutput outY = new DataOutput(data.meta.dbfile(name + 'y'));
+        DataOutput outZ = new DataOutput(data.meta.dbfile(name + 'z'))) {
+
+      // the old index files will be deleted as soon as they have been parsed
+      final FTList list = new FTList(data, DATAFTX);
+      final TokenList tokens = updates.sorted();
+      final IntList ind = new IntList(), ids = new IntList(), pos = new IntList();
+      final int ts = tokens.size();
+      int t = 0, j = 0;
+      while(list.tok.length > 0 || t < ts) {
+        // choose next token: merge entries of index files and pending entries
+        final int c = list.tok.length == 0 ? 1 : t == ts ? -1 : compare(list.tok, tokens.get(t));
+        final byte[] token = c <= 0 ? list.tok : tokens.get(t);
+        ids.reset();
+        pos.reset();
+        if(c <= 0) {
+          ids.add(list.prv);
+          pos.add(list.pov);
+          updates.filter(ids, pos);
+          list.next();
+        }
+        if(c >= 0) updates.entries(tokens.get(t++), ids, pos);
+
+        final int size = ids.size();
+        if(size == 0) continue;
+        if(j < token.length) {
+          j = token.length;
+          ind.add(j);
+          ind.add((int) outY.size());
+        }
+        outY.writeBytes(token);
+        outY.write5(outZ.size());
+        outY.write4(size);
+        for(int i = 0; i < size; i++) {
+          outZ.writeNum(ids.get(i));
+          outZ.writeNum(pos.get(i));
+        }
+      }
+      writeInd(outX, ind, ++j, (int) outY.size());
+    }
+    for(final char c : new char[] { 'x', 'y', 'z' }) {
+      final IOFile source = data.meta.dbfile(name + c), target = data.meta.dbfile(DATAFTX + c);
+      target.delete();
+      if(!source.rename(target)) throw new BaseXException(FILE_NOT_RENAMED_X, target);
+    }
+  }
+
+  /**
+   * Compares two tokens by their length and characters.
+   * @param token1 first token
+   * @param token2 second token
+   * @return difference
+   */
+  static int compare(final byte[] token1, final byte[] token2) {
+    final int d = token1.length - token2.length;
+    return d != 0 ? d : diff(token1, token2);
+  }
+
   /**
    * Writes the token length index to disk.
    * @param outX output
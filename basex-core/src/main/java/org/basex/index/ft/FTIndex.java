@@ -13,6 +13,7 @@ import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
 import org.basex.index.value.*;
+import org.basex.io.*;
 import org.basex.io.random.*;
 import org.basex.query.expr.ft.*;
 import org.basex.query.util.*;
@@ -47,30 +48,40 @@ import org.basex.util.similarity.*;
  *   {@code pre1/pos1, pre2/pos2, pre3/pos3, ...} [{@link Num}]</li>
  * </ul>
  *
+ * <p>If the index is updatable, ids are stored instead of pre values, and updates are
+ * collected by {@link FTUpdates} and merged into the index files later on. Otherwise, the
+ * entries of a token are decoded in blocks while they are being iterated.</p>
+ *
  * @author BaseX Team 2005-19, BSD License
  * @author Christian Gruen
  */
 public final class FTIndex extends ValueIndex {
   /** Entry size. */
   private static final int ENTRY = 9;
+  /** Number of entries that are decoded at once by lazy iterators. */
+  private static final int BLOCK = 1 << 10;
 
   /** Cached texts. Increases used memory, but speeds up repeated queries. */
-  private final IntObjMap<byte[]> ctext = new IntObjMap<>();
+  private IntObjMap<byte[]> ctext = new IntObjMap<>();
   /** Levenshtein reference. */
   private final Levenshtein ls = new Levenshtein();
 
   /** Index storing each unique token length and pointer
    * on the first token with this length. */
-  private final DataAccess inX;
+  private DataAccess inX;
   /** Index storing each token, its data size and pointer on the data. */
-  private final DataAccess inY;
+  private DataAccess inY;
   /** Storing pre and pos values for each token. */
-  private final DataAccess inZ;
+  private DataAccess inZ;
 
   /** Cache for number of hits and data reference per token. */
-  private final IndexCache cache = new IndexCache();
+  private IndexCache cache;
+  /** File with the keys of cached index entries. */
+  private final IOFile keys;
   /** Token positions. */
   private final int[] tp;
+  /** Pending updates ({@code null} if the index is not updatable). */
+  private final FTUpdates updates;
 
   /**
    * Constructor, initializing the index structure.
@@ -79,11 +90,25 @@ public final class FTIndex extends ValueIndex {
    */
   public FTIndex(final Data data) throws IOException {
     super(data, IndexType.FULLTEXT);
-    // cache token length index
+    tp = new int[data.meta.maxlen + 3];
+    updates = data.meta.updindex ? new FTUpdates(data) : null;
+    open();
+
+    // warm up cache with the keys that were cached when the index was closed
+    keys = data.meta.dbfile(DATAFTX + 'c');
+    if(data.meta.warmcache) {
+      for(final byte[] key : IndexCache.read(keys)) entry(key);
+    }
+  }
+
+  /**
+   * Opens the index files and caches the token length index.
+   * @throws IOException I/O Exception
+   */
+  private void open() throws IOException {
     inY = new DataAccess(data.meta.dbfile(DATAFTX + 'y'));
     inZ = new DataAccess(data.meta.dbfile(DATAFTX + 'z'));
     inX = new DataAccess(data.meta.dbfile(DATAFTX + 'x'));
-    tp = new int[data.meta.maxlen + 3];
     final int tl = tp.length;
     for(int i = 0; i < tl; ++i) tp[i] = -1;
     for(int is = inX.readNum(); --is >= 0;) {
@@ -91,6 +116,7 @@ public final class FTIndex extends ValueIndex {
       tp[p] = inX.read4();
     }
     tp[tl - 1] = (int) inY.length();
+    cache = new IndexCache(data.meta.indexcache * 1024L);
   }
 
   @Override
@@ -101,7 +127,7 @@ public final class FTIndex extends ValueIndex {
     // estimate costs for queries which stretch over multiple index entries
     final FTOpt opt = ((FTLexer) it).ftOpt();
     return IndexCosts.get(opt.is(FZ) || opt.is(WC) ? Math.max(1, data.meta.size >> 4) :
-      entry(tok).size);
+      entry(tok).size + (updates != null ? updates.size(tok) : 0));
   }
 
   @Override
@@ -118,7 +144,12 @@ public final class FTIndex extends ValueIndex {
 
     // return cached or new result
     final IndexEntry e = entry(tok);
-    return e.size > 0 ? iter(e.offset, e.size, inZ, tok) : FTIndexIterator.FTEMPTY;
+    if(updates == null) return e.size == 0 ? FTIndexIterator.FTEMPTY : iter(e, tok);
+    final IntList pr = new IntList(e.size), ps = new IntList(e.size);
+    read(e.offset, e.size, pr, ps);
+    updates.filter(pr, ps);
+    updates.entries(tok, pr, ps);
+    return pr.isEmpty() ? FTIndexIterator.FTEMPTY : iter(pr, ps, tok);
   }
 
   /**
@@ -137,6 +168,7 @@ public final class FTIndex extends ValueIndex {
 
   @Override
   public EntryIterator entries(final IndexEntries entries) {
+    merge();
     final byte[] prefix = entries.get();
     return new EntryIterator() {
       int ti = prefix.length - 1, i, e, nr;
@@ -210,6 +242,7 @@ public final class FTIndex extends ValueIndex {
 
   @Override
   public synchronized byte[] info(final MainOptions options) {
+    merge();
     final TokenBuilder tb = new TokenBuilder();
     final long l = inX.length() + inY.length() + inZ.length();
     tb.add(LI_NAMES).add(data.meta.ftinclude).add(NL);
@@ -228,13 +261,35 @@ public final class FTIndex extends ValueIndex {
 
   @Override
   public synchronized void close() {
+    if(data.meta.warmcache) {
+      try {
+        cache.write(keys);
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+    }
+    if(updates != null) {
+      try {
+        updates.write();
+      } catch(final IOException ex) {
+        Util.stack(ex);
+      }
+    }
+    closeFiles();
+  }
+
+  /**
+   * Closes the index files.
+   */
+  private void closeFiles() {
     inX.close();
     inY.close();
     inZ.close();
   }
 
   @Override
-  public int size() {
+  public synchronized int size() {
+    merge();
     final int tl = tp.length;
     int size = 0, t = tl - 1;
     while(true) {
@@ -337,12 +392,31 @@ public final class FTIndex extends ValueIndex {
       int t = s + 1, r = -1;
       while(t < tl && r == -1) r = tp[t++];
       while(p < r) {
-        if(ls.similar(inY.readBytes(p, s), token, k)) {
-          iter = FTIndexIterator.union(iter(pointer(p, s), size(p, s), inZ, token), iter);
+        final byte[] tok = inY.readBytes(p, s);
+        if(ls.similar(tok, token, k)) {
+          final int size = size(p, s);
+          final IntList pr = new IntList(size), ps = new IntList(size);
+          read(pointer(p, s), size, pr, ps);
+          if(updates != null) {
+            updates.filter(pr, ps);
+            updates.entries(tok, pr, ps);
+          }
+          if(!pr.isEmpty()) iter = FTIndexIterator.union(iter(pr, ps, token), iter);
         }
         p += s + ENTRY;
       }
     }
+    // add pending tokens that do not exist in the index files
+    if(updates != null) {
+      for(final byte[] tok : updates.tokens()) {
+        if(tok.length >= tokl - k && tok.length <= tokl + k && token(tok) == -1 &&
+            ls.similar(tok, token, k)) {
+          final IntList pr = new IntList(), ps = new IntList();
+          updates.entries(tok, pr, ps);
+          if(!pr.isEmpty()) iter = FTIndexIterator.union(iter(pr, ps, token), iter);
+        }
+      }
+    }
     return iter;
   }
 
@@ -372,46 +446,45 @@ public final class FTIndex extends ValueIndex {
       while(i < e) {
         final byte[] t = inY.readBytes(i, ti);
         if(!startsWith(t, pref)) break;
-        if(wc.match(t)) {
-          inZ.cursor(pointer(i, ti));
-          final int s = size(i, ti);
-          for(int d = 0; d < s; d++) {
-            pr.add(inZ.readNum());
-            ps.add(inZ.readNum());
-          }
-        }
+        if(wc.match(t)) read(pointer(i, ti), size(i, ti), pr, ps);
         i += ti + ENTRY;
       }
     }
-    return iter(new FTCache(pr, ps), token);
+    if(updates != null) {
+      updates.filter(pr, ps);
+      for(final byte[] tok : updates.tokens()) {
+        if(wc.match(tok)) updates.entries(tok, pr, ps);
+      }
+    }
+    return iter(pr, ps, token);
   }
 
   /**
-   * Returns an iterator for an index entry.
+   * Reads the id/pos entries of an index entry.
    * @param off offset on entries
    * @param size number of id/pos entries
-   * @param da data source
-   * @param token index token
-   * @return iterator
+   * @param pr pre values (or ids)
+   * @param ps positions
    */
-  private static FTIndexIterator iter(final long off, final int size, final DataAccess da,
-      final byte[] token) {
-    da.cursor(off);
-    final IntList pr = new IntList(size), ps = new IntList(size);
+  private void read(final long off, final int size, final IntList pr, final IntList ps) {
+    if(size == 0) return;
+    inZ.cursor(off);
     for(int c = 0; c < size; c++) {
-      pr.add(da.readNum());
-      ps.add(da.readNum());
+      pr.add(inZ.readNum());
+      ps.add(inZ.readNum());
     }
-    return iter(new FTCache(pr, ps), token);
   }
 
   /**
-   * Returns an iterator for an index entry.
-   * @param ftc id cache
+   * Returns an iterator for the specified entries.
+   * @param pr pre values (or ids, if the index is updatable)
+   * @param ps positions
    * @param token index token
    * @return iterator
    */
-  private static FTIndexIterator iter(final FTCache ftc, final byte[] token) {
+  private FTIndexIterator iter(final IntList pr, final IntList ps, final byte[] token) {
+    if(updates != null) updates.pres(pr, ps);
+    final FTCache ftc = new FTCache(pr, ps);
     final int size = ftc.pre.size();
 
     return new FTIndexIterator() {
@@ -430,6 +503,105 @@ public final class FTIndex extends ValueIndex {
         return true;
       }
 
+      @Override
+      public boolean skip(final int target) {
+        // binary search for the first entry with a pre value that is equal or larger
+        int l = c, h = size - 1;
+        while(l <= h) {
+          final int m = l + h >>> 1;
+          if(ftc.pre.get(ftc.order[m]) < target) l = m + 1;
+          else h = m - 1;
+        }
+        c = l;
+        return more();
+      }
+
+      @Override
+      public FTMatches matches() {
+        return all;
+      }
+
+      @Override
+      public int pre() {
+        return pre;
+      }
+
+      @Override
+      public void pos(final int p) {
+        pos = p;
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+
+      @Override
+      public String toString() {
+        return Strings.concat(token, '(', size, "x)");
+      }
+    };
+  }
+
+  /**
+   * Returns an iterator that decodes the entries of a token in blocks.
+   * Pre values and positions are stored in ascending order if the index is not updatable.
+   * @param entry index entry
+   * @param token index token
+   * @return iterator
+   */
+  private FTIndexIterator iter(final IndexEntry entry, final byte[] token) {
+    final int size = entry.size, capacity = Math.min(size, BLOCK);
+    return new FTIndexIterator() {
+      final FTMatches all = new FTMatches();
+      final IntList pr = new IntList(capacity), ps = new IntList(capacity);
+      long off = entry.offset;
+      int read, b, pos, pre;
+
+      @Override
+      public boolean more() {
+        if(!block()) return false;
+        all.reset(pos);
+        pre = pr.get(b);
+        all.or(ps.get(b++));
+        while(block() && pre == pr.get(b)) all.or(ps.get(b++));
+        return true;
+      }
+
+      @Override
+      public boolean skip(final int target) {
+        // skip blocks and entries with smaller pre values
+        while(block()) {
+          if(pr.get(pr.size() - 1) < target) {
+            b = pr.size();
+          } else {
+            while(pr.get(b) < target) b++;
+            break;
+          }
+        }
+        return more();
+      }
+
+      /**
+       * Decodes the next block of entries if all entries of the current block have been
+       * returned.
+       * @return {@code true} if more entries exist
+       */
+      private boolean block() {
+        if(b < pr.size()) return true;
+        if(read == size) return false;
+        final int bs = Math.min(size - read, BLOCK);
+        pr.reset();
+        ps.reset();
+        synchronized(FTIndex.this) {
+          read(off, bs, pr, ps);
+          off = inZ.cursor();
+        }
+        read += bs;
+        b = 0;
+        return true;
+      }
+
       @Override
       public FTMatches matches() {
         return all;
@@ -484,15 +656,54 @@ public final class FTIndex extends ValueIndex {
   }
 
   @Override
-  public void add(final ValueCache vc) {
-    throw Util.notExpected();
+  public synchronized void add(final ValueCache vc) {
+    if(updates == null) throw Util.notExpected();
+    updates.add(vc);
   }
 
   @Override
-  public void delete(final ValueCache vc) {
-    throw Util.notExpected();
+  public synchronized void delete(final ValueCache vc) {
+    if(updates == null) throw Util.notExpected();
+    updates.delete(vc);
   }
 
   @Override
-  public void flush() { }
+  public synchronized void flush() {
+    if(updates == null) return;
+    try {
+      if(updates.merge(inZ.length())) merge();
+      updates.write();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  /**
+   * Adds the pending updates to the specified log. If the updates have grown too large,
+   * they will first be merged into the index files.
+   * @param wal write-ahead log
+   * @throws IOException I/O exception
+   */
+  public synchronized void log(final WriteAheadLog wal) throws IOException {
+    if(updates == null) return;
+    if(updates.merge(inZ.length())) merge();
+    final byte[] contents = updates.contents();
+    if(contents != null) wal.file(updates.name(), contents);
+  }
+
+  /**
+   * Merges the pending updates into the index files.
+   */
+  public synchronized void merge() {
+    if(updates == null || updates.isEmpty()) return;
+    closeFiles();
+    try {
+      FTBuilder.merge(data, updates);
+      updates.clear();
+      ctext = new IntObjMap<>();
+      open();
+    } catch(final IOException ex) {
+      throw Util.notExpected(ex);
+    }
+  }
 }
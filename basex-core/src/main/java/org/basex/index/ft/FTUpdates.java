@@ -0,0 +1,299 @@
+package org.basex.index.ft;
+
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+
+import org.basex.data.*;
+import org.basex.index.value.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.io.out.*;
+import org.basex.util.ft.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This class organizes updates of the full-text index that have not been merged into the
+ * index files yet. New tokens are kept in main memory, and the ids of deleted or updated nodes
+ * are used to discard obsolete entries of the index files. The updates are stored in a separate
+ * file with the prefix {@link DataText#DATAFTX} and the suffix {@code d}.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+final class FTUpdates {
+  /** Minimum number of pending entries before the updates are merged into the index files. */
+  private static final int MERGE = 1 << 16;
+
+  /** Data reference. */
+  private final Data data;
+  /** File with pending updates. */
+  private final IOFile file;
+  /** Word parser. */
+  private final FTLexer lexer;
+  /** Added tokens, with alternating ids and positions. */
+  private final TokenObjMap<IntList> tokens = new TokenObjMap<>();
+  /** Ids of nodes whose entries in the index files are obsolete. */
+  private IntSet deleted = new IntSet();
+  /** Number of pending entries. */
+  private int size;
+  /** Dirty flag. */
+  private boolean dirty;
+
+  /**
+   * Constructor.
+   * @param data data reference
+   * @throws IOException I/O exception
+   */
+  FTUpdates(final Data data) throws IOException {
+    this.data = data;
+    file = data.meta.dbfile(DATAFTX + 'd');
+    final StopWords sw = new StopWords();
+    sw.compile(data);
+    lexer = FTBuilder.lexer(data, sw);
+    if(file.exists()) read();
+  }
+
+  /**
+   * Adds the tokens of the specified texts.
+   * @param vc value cache with texts and ids
+   */
+  void add(final ValueCache vc) {
+    final StopWords sw = lexer.ftOpt().sw;
+    for(final byte[] text : vc) {
+      final IntList ids = vc.ids(text);
+      final int is = ids.size();
+      lexer.init(text);
+      int pos = -1;
+      while(lexer.hasNext()) {
+        final byte[] token = lexer.nextToken();
+        ++pos;
+        if(token.length > data.meta.maxlen || sw.contains(token)) continue;
+        IntList list = tokens.get(token);
+        if(list == null) {
+          list = new IntList(2);
+          tokens.put(token, list);
+        }
+        for(int i = 0; i < is; i++) list.add(ids.get(i)).add(pos);
+        size += is;
+      }
+    }
+    dirty = true;
+  }
+
+  /**
+   * Deletes the tokens of the specified texts.
+   * @param vc value cache with texts and ids
+   */
+  void delete(final ValueCache vc) {
+    for(final byte[] text : vc) {
+      final IntList ids = vc.ids(text);
+      final int is = ids.size();
+      for(int i = 0; i < is; i++) {
+        if(deleted.add(ids.get(i))) size++;
+      }
+      // remove entries that have been added since the last merge
+      lexer.init(text);
+      while(lexer.hasNext()) {
+        final IntList list = tokens.get(lexer.nextToken());
+        if(list != null) size -= remove(list, ids);
+      }
+    }
+    dirty = true;
+  }
+
+  /**
+   * Removes all entries with the specified ids from a list.
+   * @param list list with alternating ids and positions
+   * @param ids ids
+   * @return number of removed entries
+   */
+  private static int remove(final IntList list, final IntList ids) {
+    final int ls = list.size();
+    int l = 0;
+    for(int i = 0; i < ls; i += 2) {
+      if(ids.contains(list.get(i))) continue;
+      list.set(l++, list.get(i));
+      list.set(l++, list.get(i + 1));
+    }
+    list.size(l);
+    return ls - l >> 1;
+  }
+
+  /**
+   * Removes the entries of deleted nodes from a list with entries of the index files.
+   * @param ids ids
+   * @param pos positions
+   */
+  void filter(final IntList ids, final IntList pos) {
+    if(deleted.isEmpty()) return;
+    final int is = ids.size();
+    int l = 0;
+    for(int i = 0; i < is; i++) {
+      final int id = ids.get(i);
+      if(deleted.contains(id)) continue;
+      ids.set(l, id);
+      pos.set(l++, pos.get(i));
+    }
+    ids.size(l);
+    pos.size(l);
+  }
+
+  /**
+   * Adds the pending entries of a token to the specified lists.
+   * @param token token
+   * @param ids ids
+   * @param pos positions
+   */
+  void entries(final byte[] token, final IntList ids, final IntList pos) {
+    final IntList list = tokens.get(token);
+    if(list == null) return;
+    final int ls = list.size();
+    for(int l = 0; l < ls; l += 2) {
+      ids.add(list.get(l));
+      pos.add(list.get(l + 1));
+    }
+  }
+
+  /**
+   * Returns the number of pending entries of a token.
+   * @param token token
+   * @return number of entries
+   */
+  int size(final byte[] token) {
+    final IntList list = tokens.get(token);
+    return list == null ? 0 : list.size() >> 1;
+  }
+
+  /**
+   * Replaces the ids of a list with pre values. Ids of nodes that have been deleted are removed.
+   * @param ids ids
+   * @param pos positions
+   */
+  void pres(final IntList ids, final IntList pos) {
+    final int is = ids.size();
+    int l = 0;
+    for(int i = 0; i < is; i++) {
+      final int pre = data.pre(ids.get(i));
+      if(pre == -1) continue;
+      ids.set(l, pre);
+      pos.set(l++, pos.get(i));
+    }
+    ids.size(l);
+    pos.size(l);
+  }
+
+  /**
+   * Returns all tokens with pending entries.
+   * @return tokens
+   */
+  TokenSet tokens() {
+    return tokens;
+  }
+
+  /**
+   * Returns the tokens with pending entries, sorted by their length and their characters.
+   * @return tokens
+   */
+  TokenList sorted() {
+    final TokenList list = new TokenList(tokens.size());
+    for(final byte[] token : tokens) {
+      if(size(token) > 0) list.add(token);
+    }
+    return list.sort(FTBuilder::compare, true);
+  }
+
+  /**
+   * Checks if no updates are pending.
+   * @return result of check
+   */
+  boolean isEmpty() {
+    return size == 0 && deleted.isEmpty();
+  }
+
+  /**
+   * Checks if the updates should be merged into the index files.
+   * @param length length of the index file with the ids and positions
+   * @return result of check
+   */
+  boolean merge(final long length) {
+    return size > Math.max(MERGE, length >>> 3);
+  }
+
+  /**
+   * Discards all pending updates (invoked after they have been merged into the index files).
+   */
+  void clear() {
+    tokens.clear();
+    deleted = new IntSet();
+    size = 0;
+    dirty = false;
+    file.delete();
+  }
+
+  /**
+   * Returns the name of the file with the pending updates.
+   * @return file name
+   */
+  String name() {
+    return file.name();
+  }
+
+  /**
+   * Reads the pending updates.
+   * @throws IOException I/O exception
+   */
+  private void read() throws IOException {
+    try(DataInput in = new DataInput(file)) {
+      for(final int id : in.readNums()) deleted.add(id);
+      size = deleted.size();
+      for(int t = in.readNum(); --t >= 0;) {
+        final byte[] token = in.readToken();
+        final int[] entries = in.readNums();
+        tokens.put(token, new IntList(entries));
+        size += entries.length >> 1;
+      }
+    }
+  }
+
+  /**
+   * Writes the pending updates if they have been changed.
+   * @throws IOException I/O exception
+   */
+  void write() throws IOException {
+    if(!dirty) return;
+    try(DataOutput out = new DataOutput(file)) {
+      write(out);
+    }
+  }
+
+  /**
+   * Returns the serialized pending updates and resets the dirty flag.
+   * @return contents, or {@code null} if the updates have not been changed
+   * @throws IOException I/O exception
+   */
+  byte[] contents() throws IOException {
+    if(!dirty) return null;
+    final ArrayOutput ao = new ArrayOutput();
+    write(new DataOutput(ao));
+    return ao.finish();
+  }
+
+  /**
+   * Writes the pending updates to the specified output.
+   * @param out output
+   * @throws IOException I/O exception
+   */
+  private void write(final DataOutput out) throws IOException {
+    out.writeNums(deleted.toArray());
+    final TokenList list = sorted();
+    out.writeNum(list.size());
+    for(final byte[] token : list) {
+      out.writeToken(token);
+      out.writeNums(tokens.get(token).toArray());
+    }
+    dirty = false;
+  }
+}
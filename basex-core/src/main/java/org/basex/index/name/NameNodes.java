@@ -0,0 +1,214 @@
+package org.basex.index.name;
+
+import static org.basex.util.Token.*;
+
+import org.basex.data.*;
+import org.basex.index.stats.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * <p>This index references the pre values of all elements with selective names.
+ * A name is selective if the statistics of the element names indicate that it occurs in only
+ * a small fraction of all database nodes.</p>
+ *
+ * <p>The pre values of a name are collected when they are requested for the first time.
+ * After that, they are incrementally updated along with the table.</p>
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class NameNodes {
+  /** Maximum share of the nodes of a selective name (1 / RATIO). */
+  private static final int RATIO = 32;
+  /** Minimum number of database nodes (smaller databases are always scanned). */
+  private static final int MIN_SIZE = 1 << 16;
+
+  /** Data reference. */
+  private final Data data;
+  /** Pre values of elements, indexed by name ids (entries can be {@code null}). */
+  private IntList[] pres = { };
+  /** Ids of selective names, indexed by local names (empty if a name is not selective). */
+  private final TokenObjMap<int[]> ids = new TokenObjMap<>();
+  /** Number of element names when the selective names were chosen. */
+  private int names;
+
+  /**
+   * Constructor.
+   * @param data data reference
+   */
+  public NameNodes(final Data data) {
+    this.data = data;
+  }
+
+  /**
+   * Returns the pre values of all elements in the specified range that have the specified
+   * local name. {@code null} is returned if the name is not selective, or if the index would
+   * need to be built for a range that can be cheaply scanned.
+   * @param local local name
+   * @param start first pre value
+   * @param end pre value after the last node
+   * @return sorted pre values or {@code null}
+   */
+  public synchronized int[] pres(final byte[] local, final int start, final int end) {
+    final int[] nids = ids(local);
+    if(nids == null || nids.length == 0) return null;
+
+    // only build the index if a large range is to be scanned
+    boolean built = true;
+    for(final int id : nids) built &= id < pres.length && pres[id] != null;
+    if(!built) {
+      if((long) (end - start) * RATIO < data.meta.size) return null;
+      build(nids);
+    }
+
+    // collect pre values in the specified range
+    final IntList list = new IntList();
+    for(final int id : nids) {
+      final IntList il = pres[id];
+      final int is = il.size();
+      for(int i = index(il, start); i < is; i++) {
+        final int pre = il.get(i);
+        if(pre >= end) break;
+        list.add(pre);
+      }
+    }
+    return nids.length == 1 ? list.finish() : list.sort().finish();
+  }
+
+  /**
+   * Checks if the specified local name is selective.
+   * @param local local name
+   * @return result of check
+   */
+  public synchronized boolean selective(final byte[] local) {
+    final int[] nids = ids(local);
+    return nids != null && nids.length != 0;
+  }
+
+  /**
+   * Returns the ids of the selective element names with the specified local name.
+   * @param local local name
+   * @return name ids, an empty array if the name is not selective, or {@code null} if the
+   *   statistics are not up-to-date
+   */
+  private int[] ids(final byte[] local) {
+    // discard cached names if new names have been added
+    final Names elemNames = data.elemNames;
+    final int size = elemNames.size();
+    if(names != size) {
+      ids.clear();
+      names = size;
+    }
+
+    int[] nids = ids.get(local);
+    if(nids == null) {
+      if(!data.meta.uptodate) return null;
+      if(data.meta.size < MIN_SIZE) return new int[0];
+
+      final IntList list = new IntList();
+      long count = 0;
+      for(int id = 1; id <= size; id++) {
+        if(eq(local(elemNames.key(id)), local)) {
+          final Stats stats = elemNames.stats(id);
+          if(stats != null) count += stats.count;
+          list.add(id);
+        }
+      }
+      nids = count * RATIO < data.meta.size ? list.finish() : new int[0];
+      ids.put(local, nids);
+    }
+    return nids;
+  }
+
+  /**
+   * Collects the pre values of the specified names.
+   * @param nids name ids
+   */
+  private void build(final int[] nids) {
+    final IntList missing = new IntList();
+    for(final int id : nids) {
+      if(id >= pres.length) pres = Array.copy(pres, new IntList[data.elemNames.size() + 1]);
+      if(pres[id] == null) {
+        pres[id] = new IntList();
+        missing.add(id);
+      }
+    }
+    final int size = data.meta.size;
+    for(int pre = 0; pre < size; pre++) {
+      if(data.kind(pre) != Data.ELEM) continue;
+      final int id = data.nameId(pre);
+      if(missing.contains(id)) pres[id].add(pre);
+    }
+  }
+
+  /**
+   * Adds entries to the index and updates subsequent nodes.
+   * @param pre insertion position
+   * @param size number of inserted nodes
+   */
+  public synchronized void insert(final int pre, final int size) {
+    IntList[] adds = null;
+    for(int p = pre, end = pre + size; p < end; p++) {
+      if(data.kind(p) != Data.ELEM) continue;
+      final int id = data.nameId(p);
+      if(id < pres.length && pres[id] != null) {
+        if(adds == null) adds = new IntList[pres.length];
+        if(adds[id] == null) adds[id] = new IntList();
+        adds[id].add(p);
+      }
+    }
+
+    final int pl = pres.length;
+    for(int id = 0; id < pl; id++) {
+      final IntList il = pres[id];
+      if(il == null) continue;
+      final int i = index(il, pre);
+      il.incFrom(size, i);
+      if(adds != null && adds[id] != null) il.insert(i, adds[id].finish());
+    }
+  }
+
+  /**
+   * Deletes entries from the index and updates subsequent nodes.
+   * @param pre pre value of the first deleted node
+   * @param size number of deleted nodes
+   */
+  public synchronized void delete(final int pre, final int size) {
+    for(final IntList il : pres) {
+      if(il == null) continue;
+      final int is = il.size(), s = index(il, pre), e = index(il, pre + size);
+      for(int i = e; i < is; i++) il.set(s + i - e, il.get(i) - size);
+      il.size(is - e + s);
+    }
+  }
+
+  /**
+   * Updates the index after an element has been renamed.
+   * @param pre pre value of the element
+   * @param oldId old name id
+   * @param newId new name id
+   */
+  public synchronized void rename(final int pre, final int oldId, final int newId) {
+    if(oldId == newId) return;
+    if(oldId < pres.length && pres[oldId] != null) {
+      final int i = pres[oldId].sortedIndexOf(pre);
+      if(i >= 0) pres[oldId].remove(i);
+    }
+    if(newId < pres.length && pres[newId] != null) {
+      pres[newId].insert(index(pres[newId], pre), pre);
+    }
+  }
+
+  /**
+   * Returns the index of the first entry that is equal to or greater than the specified value.
+   * @param list sorted list
+   * @param pre pre value
+   * @return index
+   */
+  private static int index(final IntList list, final int pre) {
+    final int i = list.sortedIndexOf(pre);
+    return i < 0 ? -i - 1 : i;
+  }
+}
@@ -30,6 +30,8 @@ public final class PathIndex implements Index {
   private Data data;
   /** Root node. */
   private PathNode root;
+  /** Pre values of the instances of path nodes (created on demand). */
+  private final Map<PathNode, int[]> instances = new HashMap<>();
 
   /**
    * Constructor.
@@ -81,6 +83,7 @@ public final class PathIndex implements Index {
    * Initializes the index.
    */
   public void init() {
+    clear();
     root = new PathNode();
     stack.clear();
     stack.add(root);
@@ -122,6 +125,26 @@ public final class PathIndex implements Index {
     }
   }
 
+  /**
+   * Positions the node stack on an ancestor of the nodes that will be added next.
+   * The statistics of the ancestor will not be changed. Called top-down for all ancestors if
+   * nodes are added to an existing index.
+   * @param name name id ({@code 0} for document nodes)
+   * @param kind node kind
+   * @param level level of the ancestor
+   */
+  public void ancestor(final int name, final byte kind, final int level) {
+    if(level == 0) {
+      clear();
+      stack.clear();
+      stack.add(root);
+    } else {
+      final PathNode node = stack.get(level - 1).child(name, kind);
+      while(level >= stack.size()) stack.add(null);
+      stack.set(level, node != null ? node : stack.get(level - 1).index(name, kind, null, null));
+    }
+  }
+
   // Traverse Index ===============================================================================
 
   /**
@@ -238,6 +261,88 @@ public final class PathIndex implements Index {
     return tl;
   }
 
+  // Access Instances =============================================================================
+
+  /**
+   * Returns the pre values of all database nodes that belong to the specified path nodes.
+   * The pre values of each path node are collected when they are requested for the first time.
+   * They are discarded when the path summary is updated.
+   * Called by the query optimizer. The path summary must be up-to-date.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param nodes path nodes
+   * @return sorted pre values (must not be modified)
+   */
+  public int[] pres(final ArrayList<PathNode> nodes) {
+    final ArrayList<int[]> lists = new ArrayList<>();
+    synchronized(instances) {
+      final HashSet<PathNode> missing = new HashSet<>();
+      for(final PathNode node : nodes) {
+        if(!instances.containsKey(node)) missing.add(node);
+      }
+      if(!missing.isEmpty()) collect(missing);
+      for(final PathNode node : nodes) lists.add(instances.get(node));
+    }
+    if(lists.size() == 1) return lists.get(0);
+
+    // merge pre values (lists are disjoint)
+    final IntList pres = new IntList();
+    for(final int[] list : lists) pres.add(list);
+    return pres.sort().finish();
+  }
+
+  /**
+   * Collects the pre values of the specified path nodes.
+   * Subtrees will be skipped if they contain none of the requested nodes.
+   * @param nodes path nodes
+   */
+  private void collect(final HashSet<PathNode> nodes) {
+    // choose ancestors of the requested nodes
+    final HashSet<PathNode> parents = new HashSet<>();
+    final HashMap<PathNode, IntList> pres = new HashMap<>();
+    for(final PathNode node : nodes) {
+      pres.put(node, new IntList());
+      for(PathNode pn = node.parent; pn != null && parents.add(pn);) pn = pn.parent;
+    }
+
+    // traverse relevant subtrees of the database
+    final ArrayList<PathNode> stack = new ArrayList<>();
+    final IntList ends = new IntList();
+    final int size = data.meta.size;
+    for(int pre = 0; pre < size;) {
+      final int kind = data.kind(pre);
+      while(!ends.isEmpty() && ends.peek() <= pre) {
+        ends.pop();
+        stack.remove(stack.size() - 1);
+      }
+      final PathNode node = kind == Data.DOC ? root : stack.isEmpty() ? null :
+        stack.get(stack.size() - 1).child(
+          kind == Data.ELEM || kind == Data.ATTR ? data.nameId(pre) : 0, (byte) kind);
+
+      final IntList list = pres.get(node);
+      if(list != null) list.add(pre);
+      final int sz = data.size(pre, kind);
+      if(parents.contains(node)) {
+        stack.add(node);
+        ends.push(pre + sz);
+        pre++;
+      } else {
+        pre += sz;
+      }
+    }
+    for(final Map.Entry<PathNode, IntList> entry : pres.entrySet()) {
+      instances.put(entry.getKey(), entry.getValue().finish());
+    }
+  }
+
+  /**
+   * Discards the cached pre values.
+   */
+  private void clear() {
+    synchronized(instances) {
+      instances.clear();
+    }
+  }
+
   // Info =========================================================================================
 
   @Override
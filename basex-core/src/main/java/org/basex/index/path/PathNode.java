@@ -84,11 +84,10 @@ public final class PathNode {
    * @return node reference
    */
   PathNode index(final int id, final byte knd, final byte[] value, final MetaData meta) {
-    for(final PathNode child : children) {
-      if(child.kind == knd && child.name == id) {
-        child.index(value, meta);
-        return child;
-      }
+    final PathNode node = child(id, knd);
+    if(node != null) {
+      node.index(value, meta);
+      return node;
     }
 
     final PathNode child = new PathNode(id, knd, this);
@@ -102,6 +101,19 @@ public final class PathNode {
     return child;
   }
 
+  /**
+   * Returns the child node with the specified name and kind.
+   * @param id name id
+   * @param knd node kind
+   * @return node reference or {@code null}
+   */
+  PathNode child(final int id, final byte knd) {
+    for(final PathNode child : children) {
+      if(child.kind == knd && child.name == id) return child;
+    }
+    return null;
+  }
+
   /**
    * Indexes a value.
    * @param value value (can be {@code null})
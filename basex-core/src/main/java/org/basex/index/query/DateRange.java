@@ -0,0 +1,128 @@
+package org.basex.index.query;
+
+import org.basex.index.*;
+import org.basex.query.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * This class stores a range of dates or dates with times for index access.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class DateRange implements IndexToken {
+  /** Index type. */
+  private final IndexType type;
+  /** Type of the dates ({@link AtomType#DAT} or {@link AtomType#DTM}). */
+  public final Type dateType;
+  /** Minimum value (can be {@code null} if {@link #max} is assigned). */
+  public final ADate min;
+  /** Include minimum value. */
+  public final boolean mni;
+  /** Maximum value (can be {@code null} if {@link #min} is assigned). */
+  public final ADate max;
+  /** Include maximum value. */
+  public final boolean mxi;
+  /** Id of the element or attribute name whose values are compared ({@code 0}: unknown). */
+  public final int name;
+
+  /**
+   * Constructor.
+   * @param type index type
+   * @param min minimum value (can be {@code null} if {@code max} is assigned)
+   * @param mni include minimum value
+   * @param max maximum value (can be {@code null} if {@code min} is assigned)
+   * @param mxi include maximum value
+   * @param name id of the element or attribute name whose values are compared
+   *   ({@code 0}: unknown)
+   */
+  public DateRange(final IndexType type, final ADate min, final boolean mni, final ADate max,
+      final boolean mxi, final int name) {
+    this.type = type;
+    this.min = min;
+    this.mni = mni;
+    this.max = max;
+    this.mxi = mxi;
+    this.name = name;
+    dateType = (min != null ? min : max).type;
+  }
+
+  /**
+   * Indicates if the dates of the range have a time zone.
+   * @return result of check
+   */
+  public boolean hasTz() {
+    return (min != null ? min : max).hasTz();
+  }
+
+  /**
+   * Converts a key to a date.
+   * @param key key
+   * @return date, or {@code null} if the key cannot be converted
+   */
+  public ADate date(final byte[] key) {
+    return date(key, dateType);
+  }
+
+  /**
+   * Converts a key to a date.
+   * @param key key
+   * @param type type of the date ({@link AtomType#DAT} or {@link AtomType#DTM})
+   * @return date, or {@code null} if the key cannot be converted
+   */
+  public static ADate date(final byte[] key, final Type type) {
+    // skip keys that do not start with a year and a hyphen (avoids costly exceptions)
+    final int kl = key.length;
+    int k = 0;
+    while(k < kl && Token.ws(key[k])) k++;
+    if(k < kl && key[k] == '-') k++;
+    final int s = k;
+    while(k < kl && Token.digit(key[k])) k++;
+    if(k - s < 4 || k == kl || key[k] != '-') return null;
+
+    try {
+      return (ADate) type.cast(new Atm(key), null, null, null);
+    } catch(final QueryException ex) {
+      Util.debug(ex);
+      return null;
+    }
+  }
+
+  /**
+   * Checks if the specified node may be compared by this range. The name of the node is
+   * checked if it is known; otherwise, all nodes may be compared.
+   * @param name name id of the element or attribute ({@code 0}: no element or attribute)
+   * @return result of check
+   */
+  public boolean compared(final int name) {
+    return this.name == 0 || this.name == name;
+  }
+
+  /**
+   * Checks if the specified date is in the range.
+   * @param date date (can be {@code null})
+   * @return result of check
+   */
+  public boolean contains(final ADate date) {
+    if(date == null) return false;
+    try {
+      final int mn = min == null ? 1 : date.diff(min, null, null);
+      final int mx = max == null ? -1 : date.diff(max, null, null);
+      return (mni ? mn >= 0 : mn > 0) && (mxi ? mx <= 0 : mx < 0);
+    } catch(final QueryException ex) {
+      throw Util.notExpected(ex);
+    }
+  }
+
+  @Override
+  public IndexType type() {
+    return type;
+  }
+
+  @Override
+  public byte[] get() {
+    return Token.EMPTY;
+  }
+}
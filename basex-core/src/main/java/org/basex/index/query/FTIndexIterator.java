@@ -97,29 +97,33 @@ public abstract class FTIndexIterator implements IndexIterator {
       final int dis) {
 
     return new FTIndexIterator() {
-      private FTIndexIterator ii1, ii2;
       private FTMatches all;
 
       @Override
       public boolean more() {
-        int d = 0;
-        while(true) {
-          if(d <= 0) ii1 = i1.more() ? i1 : null;
-          if(d >= 0) ii2 = i2.more() ? i2 : null;
-          if(ii1 == null || ii2 == null) return false;
-          d = ii1.pre() - ii2.pre();
-          if(d != 0) continue;
-          all = ii1.matches();
-          final FTMatches all2 = ii2.matches();
-          if(dis == 0) {
-            for(final FTMatch m1 : all) {
-              for(final FTMatch m2 : all2) m1.add(m2);
+        boolean more = i1.more() && i2.more();
+        while(more) {
+          // skip the results of the iterator with the smaller pre value
+          final int pre1 = i1.pre(), pre2 = i2.pre();
+          if(pre1 < pre2) {
+            more = i1.skip(pre2);
+          } else if(pre1 > pre2) {
+            more = i2.skip(pre1);
+          } else {
+            all = i1.matches();
+            final FTMatches all2 = i2.matches();
+            if(dis == 0) {
+              for(final FTMatch m1 : all) {
+                for(final FTMatch m2 : all2) m1.add(m2);
+              }
+              return true;
+            } else if(all.phrase(all2, dis)) {
+              return true;
             }
-            return true;
-          } else if(all.phrase(all2, dis)) {
-            return true;
+            more = i1.more() && i2.more();
           }
         }
+        return false;
       }
 
       @Override
@@ -129,7 +133,7 @@ public abstract class FTIndexIterator implements IndexIterator {
 
       @Override
       public int pre() {
-        return ii1.pre();
+        return i1.pre();
       }
 
       @Override
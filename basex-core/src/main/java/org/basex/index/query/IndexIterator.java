@@ -34,4 +34,18 @@ public interface IndexIterator {
    * @return result approximate number of results
    */
   int size();
+
+  /**
+   * Skips all results with pre values smaller than the specified value and returns true if
+   * a result with an equal or larger pre value exists. The iterator will advance by at least
+   * one result. Can be overwritten by iterators that can skip results more efficiently.
+   * @param pre minimum pre value
+   * @return result of check
+   */
+  default boolean skip(final int pre) {
+    while(more()) {
+      if(pre() >= pre) return true;
+    }
+    return false;
+  }
 }
@@ -104,7 +104,9 @@ public final class Stats {
    * @param meta meta data
    */
   public void add(final byte[] value, final MetaData meta) {
-    byte t = type;
+    // categories of existing statistics will be reassigned when the statistics are written
+    byte t = type == INTEGER_CATEGORY ? INTEGER : type == DOUBLE_CATEGORY ? DOUBLE :
+      type == STRING_CATEGORY ? STRING : type;
     final int vl = value.length;
     // only analyze non-empty values
     if(vl > 0) {
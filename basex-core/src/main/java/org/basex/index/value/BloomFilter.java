@@ -0,0 +1,107 @@
+package org.basex.index.value;
+
+import java.io.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+
+/**
+ * Bloom filter for the keys of a value index. If a key is not contained in the filter, it does
+ * not exist in the index, and the binary search in the index files can be skipped. False
+ * positives are possible; their rate is around one percent if no keys are added after the
+ * filter has been created.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+final class BloomFilter {
+  /** Number of bits per key. */
+  private static final int BITS = 10;
+  /** Number of hash functions. */
+  private static final int HASHES = 7;
+
+  /** Bit array. */
+  private final long[] bits;
+
+  /**
+   * Constructor.
+   * @param keys expected number of keys
+   */
+  BloomFilter(final int keys) {
+    this(new long[(int) Math.max(1, Math.min(1 << 28, ((long) keys * BITS + 63) >>> 6))]);
+  }
+
+  /**
+   * Constructor.
+   * @param bits bit array
+   */
+  private BloomFilter(final long[] bits) {
+    this.bits = bits;
+  }
+
+  /**
+   * Adds a key.
+   * @param key key
+   */
+  void add(final byte[] key) {
+    final long hash = hash(key), size = bits.length * 64L;
+    final int h1 = (int) hash, h2 = (int) (hash >>> 32) | 1;
+    for(int h = 0; h < HASHES; h++) {
+      final long bit = ((h1 + (long) h * h2) & Long.MAX_VALUE) % size;
+      bits[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  /**
+   * Checks if the specified key may have been added.
+   * @param key key
+   * @return {@code false} if the key has definitely not been added
+   */
+  boolean contains(final byte[] key) {
+    final long hash = hash(key), size = bits.length * 64L;
+    final int h1 = (int) hash, h2 = (int) (hash >>> 32) | 1;
+    for(int h = 0; h < HASHES; h++) {
+      final long bit = ((h1 + (long) h * h2) & Long.MAX_VALUE) % size;
+      if((bits[(int) (bit >>> 6)] & 1L << bit) == 0) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Writes the filter to the specified file.
+   * @param file file
+   * @throws IOException I/O exception
+   */
+  void write(final IOFile file) throws IOException {
+    try(DataOutput out = new DataOutput(file)) {
+      out.writeLongs(bits);
+    }
+  }
+
+  /**
+   * Reads a filter from the specified file.
+   * @param file file
+   * @return filter, or {@code null} if the file does not exist
+   * @throws IOException I/O exception
+   */
+  static BloomFilter read(final IOFile file) throws IOException {
+    if(!file.exists()) return null;
+    try(DataInput in = new DataInput(file)) {
+      return new BloomFilter(in.readLongs(in.readNum()));
+    }
+  }
+
+  /**
+   * Computes a 64-bit hash value for the specified key (FNV-1a, followed by a final mix).
+   * @param key key
+   * @return hash value
+   */
+  private static long hash(final byte[] key) {
+    long h = 0xCBF29CE484222325L;
+    for(final byte b : key) h = (h ^ b) * 0x100000001B3L;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    return h ^ h >>> 33;
+  }
+}
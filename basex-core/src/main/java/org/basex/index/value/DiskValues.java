@@ -5,6 +5,7 @@ import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
 import java.util.concurrent.atomic.*;
 
 import org.basex.core.*;
@@ -12,8 +13,11 @@ import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
+import org.basex.io.*;
 import org.basex.io.random.*;
 import org.basex.query.util.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
 import org.basex.util.list.*;
@@ -31,11 +35,22 @@ public class DiskValues extends ValueIndex {
   /** ID lists. */
   final DataAccess idxl;
   /** Cached index entries: mapping between keys and index entries. */
-  final IndexCache cache = new IndexCache();
+  final IndexCache cache;
+  /** File with the keys of cached index entries ({@code null} for partial indexes). */
+  private final IOFile keys;
+  /** Bloom filter for the keys of the index ({@code null} if no filter exists). */
+  private final BloomFilter bloom;
+  /** Indicates if keys have been added to the Bloom filter. */
+  private boolean bloomed;
   /** Cached texts: mapping between key positions in the reference file, and the indexed texts. */
   final IntObjMap<byte[]> ctext = new IntObjMap<>();
   /** Number of current index entries. */
   final AtomicInteger size = new AtomicInteger();
+  /** Keys sorted by numbers or dates (created on demand). */
+  final Map<Type, RangeKeys> ranges = new HashMap<>();
+
+  /** Number of ids that are decoded at once by lazy iterators. */
+  private static final int BLOCK = 1 << 10;
 
   /** Synchronization object. */
   private final Object monitor = new Object();
@@ -60,9 +75,21 @@ public class DiskValues extends ValueIndex {
    */
   DiskValues(final Data data, final IndexType type, final String pref) throws IOException {
     super(data, type);
-    idxl = new DataAccess(data.meta.dbfile(pref + 'l'));
-    idxr = new DataAccess(data.meta.dbfile(pref + 'r'));
+    final WriteAheadLog wal = data instanceof DiskData ? ((DiskData) data).wal() : null;
+    idxl = new DataAccess(data.meta.dbfile(pref + 'l'), false, wal);
+    idxr = new DataAccess(data.meta.dbfile(pref + 'r'), false, wal);
     size.set(idxl.read4());
+    cache = new IndexCache(data.meta.indexcache * 1024L);
+
+    // partial indexes have no Bloom filter
+    final boolean partial = !pref.equals(fileSuffix(type));
+    bloom = partial ? null : BloomFilter.read(data.meta.dbfile(pref + 'b'));
+
+    // warm up cache with the keys that were cached when the index was closed
+    keys = partial ? null : data.meta.dbfile(pref + 'c');
+    if(keys != null && data.meta.warmcache) {
+      for(final byte[] key : IndexCache.read(keys)) entry(key);
+    }
   }
 
   @Override
@@ -93,34 +120,17 @@ public class DiskValues extends ValueIndex {
 
   @Override
   public final IndexCosts costs(final IndexToken it) {
-    return IndexCosts.get(
-      it instanceof StringRange ? Math.max(1, data.meta.size / 10) :
-      it instanceof NumericRange ? Math.max(1, data.meta.size / 3) :
-      entry(it.get()).size);
+    if(it instanceof StringRange) return IndexCosts.get(Math.max(1, data.meta.size / 10));
+    final int count = count(it);
+    return count == -1 ? null : IndexCosts.get(count);
   }
 
   @Override
-  public final IndexIterator iter(final IndexToken token) {
-    final IntList pres;
-    if(token instanceof StringRange) {
-      pres = idRange((StringRange) token);
-    } else if(token instanceof NumericRange) {
-      pres = idRange((NumericRange) token);
-    } else {
-      final IndexEntry ie = entry(token.get());
-      pres = pres(ie.size, ie.offset);
-    }
-
-    return new IndexIterator() {
-      final int s = pres.size();
-      int p;
-      @Override
-      public boolean more() { return p < s; }
-      @Override
-      public int pre() { return pres.get(p++); }
-      @Override
-      public int size() { return s; }
-    };
+  public IndexIterator iter(final IndexToken token) {
+    if(token instanceof StringRange || token instanceof NumericRange ||
+        token instanceof DateRange) return iter(pres(token));
+    final IndexEntry ie = entry(token.get());
+    return iter(ie.size, ie.offset);
   }
 
   @Override
@@ -129,8 +139,22 @@ public class DiskValues extends ValueIndex {
   }
 
   @Override
-  public final void close() {
+  public void close() {
     synchronized(monitor) {
+      if(keys != null && data.meta.warmcache) {
+        try {
+          cache.write(keys);
+        } catch(final IOException ex) {
+          Util.debug(ex);
+        }
+      }
+      if(bloomed) {
+        try {
+          bloom.write(data.meta.dbfile(fileSuffix(type) + 'b'));
+        } catch(final IOException ex) {
+          Util.debug(ex);
+        }
+      }
       idxl.close();
       idxr.close();
     }
@@ -147,7 +171,7 @@ public class DiskValues extends ValueIndex {
   }
 
   @Override
-  public final EntryIterator entries(final IndexEntries input) {
+  public EntryIterator entries(final IndexEntries input) {
     final byte[] key = input.get();
     if(key.length == 0) return allKeys(input.descending);
     if(input.prefix) return keysWithPrefix(key);
@@ -155,11 +179,168 @@ public class DiskValues extends ValueIndex {
   }
 
   @Override
-  public final void flush() {
+  public void flush() {
     idxl.flush();
     idxr.flush();
   }
 
+  /**
+   * Adds all changes to the specified log.
+   * @param wal write-ahead log
+   * @throws IOException I/O exception
+   */
+  public void log(final WriteAheadLog wal) throws IOException {
+    idxl.log(wal);
+    idxr.log(wal);
+  }
+
+  /**
+   * Returns an iterator for the specified pre values.
+   * @param pres sorted pre values
+   * @return iterator
+   */
+  static IndexIterator iter(final IntList pres) {
+    return new IndexIterator() {
+      final int s = pres.size();
+      int p = -1;
+      @Override
+      public boolean more() { return ++p < s; }
+      @Override
+      public int pre() { return pres.get(p); }
+      @Override
+      public int size() { return s; }
+      @Override
+      public boolean skip(final int target) {
+        // binary search for the first entry with a pre value that is equal or larger
+        int l = p + 1, h = s - 1;
+        while(l <= h) {
+          final int m = l + h >>> 1;
+          if(pres.get(m) < target) l = m + 1;
+          else h = m - 1;
+        }
+        p = l;
+        return p < s;
+      }
+    };
+  }
+
+  /**
+   * Returns an iterator that decodes the ids of an index entry in blocks.
+   * Ids are identical to pre values and stored in ascending order.
+   * @param sz number of values
+   * @param offset offset
+   * @return iterator
+   */
+  private IndexIterator iter(final int sz, final long offset) {
+    return new IndexIterator() {
+      final int[] block = new int[Math.min(sz, BLOCK)];
+      long off = offset;
+      int read, b, bs, id, pre;
+
+      @Override
+      public boolean more() {
+        if(!block()) return false;
+        pre = block[b++];
+        return true;
+      }
+
+      @Override
+      public boolean skip(final int target) {
+        // skip blocks and entries with smaller pre values
+        while(block()) {
+          if(block[bs - 1] < target) {
+            b = bs;
+          } else {
+            while(block[b] < target) b++;
+            break;
+          }
+        }
+        return more();
+      }
+
+      /**
+       * Decodes the next block of ids if all ids of the current block have been returned.
+       * @return {@code true} if more ids exist
+       */
+      private boolean block() {
+        if(b < bs) return true;
+        if(read == sz) return false;
+        bs = Math.min(sz - read, BLOCK);
+        synchronized(monitor) {
+          idxl.cursor(off);
+          for(int i = 0; i < bs; i++) {
+            id += idxl.readNum();
+            // token index: skip position
+            if(type == IndexType.TOKEN) idxl.readNum();
+            block[i] = id;
+          }
+          off = idxl.cursor();
+        }
+        read += bs;
+        b = 0;
+        return true;
+      }
+
+      @Override
+      public int pre() { return pre; }
+      @Override
+      public int size() { return sz; }
+    };
+  }
+
+  /**
+   * Returns the sorted pre values of the specified token.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param token index token
+   * @return pre values
+   */
+  protected IntList pres(final IndexToken token) {
+    if(token instanceof StringRange) return idRange((StringRange) token);
+    if(token instanceof NumericRange) return idRange((NumericRange) token);
+    if(token instanceof DateRange) return idRange((DateRange) token);
+    final IndexEntry ie = entry(token.get());
+    return pres(ie.size, ie.offset);
+  }
+
+  /**
+   * Returns the number of index entries of the specified token.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param token index token (no string range)
+   * @return number of entries, or {@code -1} if the index cannot be accessed
+   */
+  protected int count(final IndexToken token) {
+    if(token instanceof NumericRange) {
+      final NumericRange nr = (NumericRange) token;
+      synchronized(monitor) {
+        final RangeKeys keys = rangeKeys(AtomType.DBL);
+        return keys.count(keys.from(nr.min), keys.to(nr.max));
+      }
+    }
+    if(token instanceof DateRange) {
+      final DateRange dr = (DateRange) token;
+      synchronized(monitor) {
+        final RangeKeys keys = rangeKeys(dr.dateType);
+        if(!keys.comparable(dr.hasTz()) || !keys.valid(dr)) return -1;
+        return keys.count(keys.from(minValue(dr)), keys.to(maxValue(dr)));
+      }
+    }
+    return entry(token.get()).size;
+  }
+
+  /**
+   * Adds a new key to the Bloom filter. When the first key is added, the filter file is deleted,
+   * and it will be written again when the index is closed.
+   * @param key key
+   */
+  final void bloom(final byte[] key) {
+    if(bloom == null) return;
+    if(!bloomed) {
+      data.meta.dbfile(fileSuffix(type) + 'b').delete();
+      bloomed = true;
+    }
+    bloom.add(key);
+  }
+
   /**
    * Returns the {@code pre} value for the specified id.
    * @param id id value
@@ -211,6 +392,9 @@ public class DiskValues extends ValueIndex {
    * @return cache entry
    */
   private IndexEntry entry(final byte[] key) {
+    // skip lookup if the key does not exist
+    if(bloom != null && !bloom.contains(key)) return new IndexEntry(key, 0, 0);
+
     final IndexEntry entry = cache.get(key);
     if(entry != null) return entry;
 
@@ -429,36 +613,137 @@ public class DiskValues extends ValueIndex {
    * @return results
    */
   private IntList idRange(final NumericRange tok) {
-    // check if min and max are positive integers with the same number of digits
-    final double min = tok.min, max = tok.max;
-    final int len = max > 0 && (long) max == max ? token(max).length : 0;
-    final boolean simple = len != 0 && min > 0 && (long) min == min && token(min).length == len;
+    final IntList pres = new IntList();
+    synchronized(monitor) {
+      final RangeKeys keys = rangeKeys(AtomType.DBL);
+      final int to = keys.to(tok.max);
+      for(int k = keys.from(tok.min); k < to; k++) addPres(keys.index(k), pres);
+    }
+    return pres.sort();
+  }
 
+  /**
+   * Performs a date range query.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param tok index term
+   * @return results
+   */
+  private IntList idRange(final DateRange tok) {
     final IntList pres = new IntList();
     synchronized(monitor) {
+      final RangeKeys keys = rangeKeys(tok.dateType);
+      if(keys.comparable(tok.hasTz())) {
+        final double min = minValue(tok), max = maxValue(tok);
+        final int to = keys.to(max);
+        for(int k = keys.from(min); k < to; k++) {
+          // compare dates at the boundaries, which may be rounded to the same value
+          final int index = keys.index(k);
+          final double value = keys.value(k);
+          if(value != min && value != max || tok.contains(tok.date(indexEntry(index).key)))
+            addPres(index, pres);
+        }
+      } else {
+        // order of dates depends on the implicit time zone: parse and compare all keys
+        final int entries = size();
+        for(int index = 0; index < entries; index++) {
+          if(tok.contains(tok.date(indexEntry(index).key))) addPres(index, pres);
+        }
+      }
+    }
+    return pres.sort();
+  }
+
+  /**
+   * Returns the keys that can be converted to the specified type, sorted by their values.
+   * If dates are requested, the names of the nodes with keys that cannot be converted are
+   * recorded as well.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @param type type ({@link AtomType#DBL}, {@link AtomType#DAT} or {@link AtomType#DTM})
+   * @return keys
+   */
+  private RangeKeys rangeKeys(final Type type) {
+    RangeKeys keys = ranges.get(type);
+    if(keys == null) {
+      final DoubleList values = new DoubleList();
+      final IntList indexes = new IntList(), counts = new IntList();
+      final IntSet invalid = new IntSet();
+      final boolean text = this.type == IndexType.TEXT, dbl = type == AtomType.DBL;
+      boolean zoned = false, unzoned = false;
       final int entries = size();
-      final boolean text = type == IndexType.TEXT;
-      for(int index = 0; index < entries; ++index) {
+      for(int index = 0; index < entries; index++) {
         final int count = idxl.readNum(idxr.read5(index * 5L));
-        int id = idxl.readNum();
-        final int pre = pre(id);
-
-        final double v = data.textDbl(pre, text);
-        if(v >= min && v <= max) {
-          // value is in range
-          for(int c = 0; c < count; c++) {
-            pres.add(pre(id));
-            id += idxl.readNum();
+        final int pre = pre(idxl.readNum());
+        final double value;
+        if(dbl) {
+          value = data.textDbl(pre, text);
+        } else {
+          final ADate date = DateRange.date(data.text(pre, text), type);
+          if(date == null) {
+            final IntList pres = new IntList();
+            addPres(index, pres);
+            for(final int p : pres.finish()) invalid.add(name(p));
+            continue;
           }
-        } else if(simple && v > max && data.textLen(pre, text) == len) {
-          // if limits are integers, if min, max and current value have the same
-          // string length, and if current value is larger than max, test can be
-          // skipped, as all remaining values will be bigger
-          break;
+          if(date.hasTz()) zoned = true;
+          else unzoned = true;
+          value = date.utcSeconds().doubleValue();
+        }
+        if(!Double.isNaN(value)) {
+          values.add(value);
+          indexes.add(index);
+          counts.add(count);
         }
       }
+      keys = new RangeKeys(values, indexes, counts, zoned, unzoned, invalid);
+      ranges.put(type, keys);
+    }
+    return keys;
+  }
+
+  /**
+   * Returns the id of the element or attribute name of an indexed value.
+   * @param pre pre value of a text or attribute
+   * @return name id, or {@code 0} if the text is no child of an element
+   */
+  final int name(final int pre) {
+    if(type != IndexType.TEXT) return data.nameId(pre);
+    final int par = data.parent(pre, Data.TEXT);
+    return data.kind(par) == Data.ELEM ? data.nameId(par) : 0;
+  }
+
+  /**
+   * Returns the minimum value of a date range.
+   * @param tok index term
+   * @return value
+   */
+  private static double minValue(final DateRange tok) {
+    return tok.min == null ? Double.NEGATIVE_INFINITY : tok.min.utcSeconds().doubleValue();
+  }
+
+  /**
+   * Returns the maximum value of a date range.
+   * @param tok index term
+   * @return value
+   */
+  private static double maxValue(final DateRange tok) {
+    return tok.max == null ? Double.POSITIVE_INFINITY : tok.max.utcSeconds().doubleValue();
+  }
+
+  /**
+   * Adds the pre values of the specified key to a list.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @param index position of the key
+   * @param pres pre values
+   */
+  private void addPres(final int index, final IntList pres) {
+    final int count = idxl.readNum(idxr.read5(index * 5L));
+    int id = 0;
+    for(int c = 0; c < count; c++) {
+      id += idxl.readNum();
+      // token index: skip position
+      if(type == IndexType.TOKEN) idxl.readNum();
+      pres.add(pre(id));
     }
-    return pres.sort();
   }
 
   /**
@@ -3,6 +3,8 @@ package org.basex.index.value;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
@@ -32,8 +34,19 @@ import org.basex.util.list.*;
  * @author Christian Gruen
  */
 public final class DiskValuesBuilder extends ValuesBuilder {
+  /** Minimum number of nodes of a partition that is indexed in parallel. */
+  private static final int PARTITION = 1 << 16;
+
   /** Temporary value tree. */
   private IndexTree index;
+  /** Number of flushes that have been triggered by partitions with exhausted main memory. */
+  private int flushes;
+  /** Number of partitions that still need to write their trees for a pending flush. */
+  private int pending;
+  /** Number of partitions that are being indexed. */
+  private int active;
+  /** Indicates if the indexing of partitions has been aborted. */
+  private volatile boolean aborted;
 
   /**
    * Constructor.
@@ -50,33 +63,32 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     Util.debug(detailedInfo());
 
     try {
-      final boolean updindex = data.meta.updindex;
-      for(pre = 0; pre < size; ++pre) {
-        if((pre & 0x0FFF) == 0) check();
-        if(indexEntry()) {
-          final int id = updindex ? data.id(pre) : pre;
-          if(tokenize) {
-            int pos = 0;
-            for(final byte[] token : distinctTokens(data.text(pre, text))) {
-              index.add(token, id, pos++);
-              count++;
-            }
-          } else if(data.textLen(pre, text) <= data.meta.maxlen) {
-            index.add(data.text(pre, text), id, 0);
-            count++;
-          }
-        }
-      }
-
-      writeIndex(splits > 0);
-      if(splits > 1) {
+      // discard pending entries of an updatable index and an old Bloom filter
+      data.meta.dbfile(DiskValues.fileSuffix(type) + 'u').delete();
+      data.meta.dbfile(DiskValues.fileSuffix(type) + 'b').delete();
+      final int threads = Math.min(data.meta.indexthreads, size / PARTITION);
+      if(threads > 1) {
+        // index partitions in parallel, merge partial index files
         index = null;
+        partitions(threads);
         clean();
         merge();
+      } else {
+        for(pre = 0; pre < size; ++pre) {
+          if((pre & 0x0FFF) == 0) check();
+          if(indexEntry()) count += add(index, pre);
+        }
+
+        writeIndex(index, splits > 0 ? splits++ : -1);
+        if(splits > 1) {
+          index = null;
+          clean();
+          merge();
+        }
       }
 
       finishIndex();
-      return updindex ? new UpdatableDiskValues(data, type) : new DiskValues(data, type);
+      return data.meta.updindex ? new UpdatableDiskValues(data, type) : new DiskValues(data, type);
 
     } catch(final Throwable th) {
       // drop index files
@@ -90,12 +102,123 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     super.check();
     // check if main memory is exhausted
     if(splitRequired()) {
-      writeIndex(true);
+      writeIndex(index, splits++);
       index = new IndexTree(type);
       clean();
     }
   }
 
+  /**
+   * Adds the value of the specified node to an index tree.
+   * @param tree index tree
+   * @param pr pre value
+   * @return number of index operations
+   */
+  private int add(final IndexTree tree, final int pr) {
+    final int id = data.meta.updindex ? data.id(pr) : pr;
+    int ops = 0;
+    if(tokenize) {
+      for(final byte[] token : distinctTokens(data.text(pr, text))) tree.add(token, id, ops++);
+    } else if(data.textLen(pr, text) <= data.meta.maxlen) {
+      tree.add(data.text(pr, text), id, 0);
+      ops++;
+    }
+    return ops;
+  }
+
+  /**
+   * Indexes disjoint pre ranges of the database in parallel.
+   * Each partition is written to a partial index file.
+   * @param threads number of threads
+   * @throws IOException I/O exception
+   */
+  private void partitions(final int threads) throws IOException {
+    active = threads;
+    final ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      final ArrayList<Future<Void>> futures = new ArrayList<>(threads);
+      for(int t = 0; t < threads; t++) {
+        futures.add(pool.submit(new Partition((int) ((long) size * t / threads),
+            (int) ((long) size * (t + 1) / threads))));
+      }
+      for(final Future<Void> future : futures) Util.get(future);
+    } finally {
+      // stop remaining partitions, wait until all files have been written
+      aborted = true;
+      pool.shutdown();
+      try {
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      } catch(final InterruptedException ex) {
+        Util.debug(ex);
+      }
+    }
+  }
+
+  /**
+   * Checks if the index tree of a partition needs to be written to disk, and updates the
+   * progress information. If main memory is exhausted, the trees of all partitions will be
+   * written, and memory will be freed after the last tree has been written.
+   * @param part partition
+   * @param pr current pre value of the partition
+   * @return result of check
+   */
+  private synchronized boolean split(final Partition part, final int pr) {
+    checkStop();
+    pre += pr - part.last;
+    part.last = pr;
+    if(splitSize > 0) return part.ops >= splitSize;
+
+    if(part.flushes == flushes) {
+      // no flush pending: check if main memory is exhausted
+      if(pending > 0 || part.ops == 0 || Performance.memory() < maxMem) return false;
+      flushes++;
+      pending = active;
+    }
+    part.flushes = flushes;
+    return true;
+  }
+
+  /**
+   * Finishes the indexing of a partition.
+   * @param part partition
+   * @return {@code true} if the partition still needs to write its tree for a pending flush
+   */
+  private synchronized boolean finish(final Partition part) {
+    pre += part.end - part.last;
+    part.last = part.end;
+    active--;
+    final boolean flush = part.flushes != flushes;
+    part.flushes = flushes;
+    return flush;
+  }
+
+  /**
+   * Writes the index tree of a partition to a partial index file if it is not empty.
+   * @param part partition
+   * @param flush indicates if the tree is written for a pending flush
+   * @throws IOException I/O exception
+   */
+  private void write(final Partition part, final boolean flush) throws IOException {
+    if(part.ops > 0) {
+      final int split;
+      synchronized(this) {
+        split = splits++;
+        count += part.ops;
+      }
+      writeIndex(part.tree, split);
+      part.tree = new IndexTree(type);
+      part.ops = 0;
+    }
+
+    if(flush) {
+      final boolean gc;
+      synchronized(this) {
+        gc = --pending == 0;
+      }
+      if(gc) clean();
+    }
+  }
+
   /**
    * Merges cached index files.
    * @throws IOException I/O exception
@@ -111,7 +234,12 @@ public final class DiskValuesBuilder extends ValuesBuilder {
       final IntList ml = new IntList();
       final IntList id = new IntList(), pos = tokenize ? new IntList() : null;
       final DiskValuesMerger[] vm = new DiskValuesMerger[splits];
-      for(int i = 0; i < splits; ++i) vm[i] = new DiskValuesMerger(data, type, i);
+      int keys = 0;
+      for(int i = 0; i < splits; ++i) {
+        vm[i] = new DiskValuesMerger(data, type, i);
+        keys += vm[i].size();
+      }
+      final BloomFilter bloom = data.meta.bloomfilter ? new BloomFilter(keys) : null;
 
       // parse through all values
       while(true) {
@@ -134,6 +262,7 @@ public final class DiskValuesBuilder extends ValuesBuilder {
           }
           ml.add(i);
         }
+        if(bloom != null) bloom.add(vm[min].key);
 
         // parse through all values, cache and sort id values
         final int ms = ml.size();
@@ -154,6 +283,7 @@ public final class DiskValuesBuilder extends ValuesBuilder {
         write(outL, outR, id, pos);
         ++entries;
       }
+      if(bloom != null) bloom.write(data.meta.dbfile(f + 'b'));
     }
 
     // write number of entries to first position
@@ -163,21 +293,27 @@ public final class DiskValuesBuilder extends ValuesBuilder {
   }
 
   /**
-   * Writes the current index tree to disk.
-   * @param partial partial flag
+   * Writes an index tree to disk.
+   * @param tree index tree
+   * @param split number of the partial index ({@code -1}: final index)
    * @throws IOException I/O exception
    */
-  private void writeIndex(final boolean partial) throws IOException {
+  private void writeIndex(final IndexTree tree, final int split) throws IOException {
     // write id arrays and references
-    final String name = DiskValues.fileSuffix(type) + (partial ? splits : "");
+    final boolean partial = split != -1;
+    final String name = DiskValues.fileSuffix(type) + (partial ? split : "");
+    final BloomFilter bloom = !partial && data.meta.bloomfilter ?
+      new BloomFilter(tree.size()) : null;
     try(DataOutput outL = new DataOutput(data.meta.dbfile(name + 'l'));
         DataOutput outR = new DataOutput(data.meta.dbfile(name + 'r'))) {
-      outL.write4(index.size());
+      outL.write4(tree.size());
 
       final IntList id = new IntList(), pos = tokenize ? new IntList() : null;
-      index.init();
-      while(index.more()) {
-        final byte[] values = index.ids.get(index.next());
+      tree.init();
+      while(tree.more()) {
+        final int i = tree.next();
+        final byte[] values = tree.ids.get(i);
+        if(bloom != null) bloom.add(tree.keys.get(i));
         final int vs = Num.size(values);
 
         if(partial) {
@@ -198,16 +334,15 @@ public final class DiskValuesBuilder extends ValuesBuilder {
         }
       }
     }
+    if(bloom != null) bloom.write(data.meta.dbfile(name + 'b'));
 
     // temporarily write texts
     if(partial) {
       try(DataOutput outT = new DataOutput(data.meta.dbfile(name + 't'))) {
-        index.init();
-        while(index.more()) outT.writeToken(index.keys.get(index.next()));
+        tree.init();
+        while(tree.more()) outT.writeToken(tree.keys.get(tree.next()));
       }
     }
-    // increase split counter
-    splits++;
   }
 
   /**
@@ -243,4 +378,44 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     id.reset();
     if(pos != null) pos.reset();
   }
+
+  /**
+   * Partition of the database that is indexed by a separate thread.
+   */
+  private final class Partition implements Callable<Void> {
+    /** First pre value. */
+    private final int start;
+    /** Pre value after the last node. */
+    private final int end;
+    /** Temporary value tree. */
+    private IndexTree tree = new IndexTree(type);
+    /** Number of index operations since the tree has last been written. */
+    private long ops;
+    /** Number of flushes that have been registered by this partition. */
+    private int flushes;
+    /** Last pre value that has been reported for the progress information. */
+    private int last;
+
+    /**
+     * Constructor.
+     * @param start first pre value
+     * @param end pre value after the last node
+     */
+    private Partition(final int start, final int end) {
+      this.start = start;
+      this.end = end;
+      last = start;
+    }
+
+    @Override
+    public Void call() throws IOException {
+      for(int pr = start; pr < end; pr++) {
+        if(aborted) return null;
+        if((pr & 0x0FFF) == 0 && split(this, pr)) write(this, true);
+        if(indexEntry(pr)) ops += add(tree, pr);
+      }
+      write(this, finish(this));
+      return null;
+    }
+  }
 }
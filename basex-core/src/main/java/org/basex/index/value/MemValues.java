@@ -63,13 +63,25 @@ public final class MemValues extends ValueIndex {
     }
 
     return new IndexIterator() {
-      int p;
+      int p = -1;
       @Override
-      public boolean more() { return p < len; }
+      public boolean more() { return ++p < len; }
       @Override
-      public int pre() { return pres[p++]; }
+      public int pre() { return pres[p]; }
       @Override
       public int size() { return len; }
+      @Override
+      public boolean skip(final int target) {
+        // binary search for the first entry with a pre value that is equal or larger
+        int l = p + 1, h = len - 1;
+        while(l <= h) {
+          final int m = l + h >>> 1;
+          if(pres[m] < target) l = m + 1;
+          else h = m - 1;
+        }
+        p = l;
+        return p < len;
+      }
     };
   }
 
@@ -0,0 +1,139 @@
+package org.basex.index.value;
+
+import org.basex.index.query.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This class references the keys of a value index that can be converted to numbers or dates.
+ * The keys are sorted by their converted values, which allows range queries to be answered
+ * without parsing all keys. Instances are created on demand, and they are discarded whenever
+ * the index files are updated.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+final class RangeKeys {
+  /** Sorted values. */
+  private final double[] values;
+  /** Positions of the keys in the index files. */
+  private final int[] indexes;
+  /** Number of index entries before each key, and total number of entries. */
+  private final int[] sums;
+  /** Indicates if dates with a time zone exist. */
+  private final boolean zoned;
+  /** Indicates if dates without time zone exist. */
+  private final boolean unzoned;
+  /** Names of the nodes with keys that could not be converted ({@code 0}: other nodes). */
+  private final IntSet invalid;
+
+  /**
+   * Constructor.
+   * @param values values (will be sorted)
+   * @param indexes positions of the keys
+   * @param counts number of index entries of the keys
+   * @param zoned indicates if dates with a time zone exist
+   * @param unzoned indicates if dates without time zone exist
+   * @param invalid names of the nodes with keys that could not be converted
+   */
+  RangeKeys(final DoubleList values, final IntList indexes, final IntList counts,
+      final boolean zoned, final boolean unzoned, final IntSet invalid) {
+    this.values = values.finish();
+    this.zoned = zoned;
+    this.unzoned = unzoned;
+    this.invalid = invalid;
+
+    final int[] order = Array.createOrder(this.values, true);
+    final int vl = order.length;
+    this.indexes = new int[vl];
+    sums = new int[vl + 1];
+    for(int v = 0; v < vl; v++) {
+      this.indexes[v] = indexes.get(order[v]);
+      sums[v + 1] = sums[v] + counts.get(order[v]);
+    }
+  }
+
+  /**
+   * Checks if the keys can be compared with dates with or without time zone.
+   * Otherwise, the order of the keys would depend on the implicit time zone.
+   * @param tz time zone flag
+   * @return result of check
+   */
+  boolean comparable(final boolean tz) {
+    return tz ? !unzoned : !zoned;
+  }
+
+  /**
+   * Checks if the keys of all nodes that may be compared by the specified range could be
+   * converted. Otherwise, the sequential evaluation of the comparison would raise an error.
+   * @param range date range
+   * @return result of check
+   */
+  boolean valid(final DateRange range) {
+    final int il = invalid.size();
+    for(int i = 1; i <= il; i++) {
+      if(range.compared(invalid.key(i))) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Returns the position of the first value that is equal to or greater than the specified value.
+   * @param min minimum value
+   * @return position
+   */
+  int from(final double min) {
+    int l = 0, h = values.length;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(values[m] < min) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the position after the last value that is equal to or smaller than the specified
+   * value.
+   * @param max maximum value
+   * @return position
+   */
+  int to(final double max) {
+    int l = 0, h = values.length;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(values[m] <= max) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Returns the value at the specified position.
+   * @param p position
+   * @return value
+   */
+  double value(final int p) {
+    return values[p];
+  }
+
+  /**
+   * Returns the position of the key at the specified position in the index files.
+   * @param p position
+   * @return position in the index files
+   */
+  int index(final int p) {
+    return indexes[p];
+  }
+
+  /**
+   * Returns the number of index entries of the keys in the specified range.
+   * @param from first position
+   * @param to position after the last key
+   * @return number of entries
+   */
+  int count(final int from, final int to) {
+    return from < to ? sums[to] - sums[from] : 0;
+  }
+}
@@ -1,9 +1,14 @@
 package org.basex.index.value;
 
+import static org.basex.util.Token.*;
+
 import java.io.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.io.random.*;
+import org.basex.query.value.item.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -11,12 +16,19 @@ import org.basex.util.list.*;
  * This class provides access and update functions to attribute values and text contents stored on
  * disk. The data structure is described in the {@link DiskValuesBuilder} class.
  *
+ * <p>New entries are collected by {@link ValueUpdates} and returned together with the entries of
+ * the index files. If their number exceeds a fraction of the size of the index files, they are
+ * merged into the index files. This way, the index files need not be rewritten for each
+ * update.</p>
+ *
  * @author BaseX Team 2005-19, BSD License
  * @author Christian Gruen
  */
 public final class UpdatableDiskValues extends DiskValues {
   /** Free slots. */
   private final FreeSlots free = new FreeSlots();
+  /** Pending entries. */
+  private final ValueUpdates updates;
 
   /**
    * Constructor, initializing the index structure.
@@ -26,6 +38,7 @@ public final class UpdatableDiskValues extends DiskValues {
    */
   public UpdatableDiskValues(final Data data, final IndexType type) throws IOException {
     super(data, type, fileSuffix(type));
+    updates = new ValueUpdates(data, type, fileSuffix(type));
   }
 
   @Override
@@ -33,8 +46,211 @@ public final class UpdatableDiskValues extends DiskValues {
     return data.pre(id);
   }
 
+  @Override
+  public IndexIterator iter(final IndexToken token) {
+    return iter(pres(token));
+  }
+
+  @Override
+  protected synchronized IntList pres(final IndexToken token) {
+    final IntList pres = super.pres(token);
+    if(updates.isEmpty()) return pres;
+
+    final int size = pres.size();
+    for(final byte[] key : keys(token)) updates.pres(key, pres);
+    return pres.size() == size ? pres : pres.sort();
+  }
+
+  @Override
+  protected synchronized int count(final IndexToken token) {
+    int count = super.count(token);
+    if(count != -1) {
+      if(token instanceof DateRange && !valid((DateRange) token)) return -1;
+      for(final byte[] key : keys(token)) count += updates.count(key);
+    }
+    return count;
+  }
+
+  /**
+   * Checks if the pending keys can be used for evaluating a date range: all keys of nodes that
+   * may be compared by the range must be convertible to dates, and the order of the dates must
+   * not depend on the implicit time zone.
+   * @param range date range
+   * @return result of check
+   */
+  private boolean valid(final DateRange range) {
+    final boolean tz = range.hasTz();
+    for(final byte[] key : updates.keys()) {
+      final ADate date = range.date(key);
+      if(date != null) {
+        if(date.hasTz() != tz) return false;
+      } else {
+        final IntList pres = new IntList();
+        updates.pres(key, pres);
+        for(final int pre : pres.finish()) {
+          if(range.compared(name(pre))) return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the pending keys that match the specified token.
+   * @param token index token
+   * @return keys
+   */
+  private TokenList keys(final IndexToken token) {
+    final TokenList keys = new TokenList();
+    if(updates.isEmpty()) return keys;
+
+    if(token instanceof StringRange) {
+      final StringRange sr = (StringRange) token;
+      for(final byte[] key : updates.keys()) {
+        final int min = diff(key, sr.min), max = diff(key, sr.max);
+        if((min > 0 || sr.mni && min == 0) && (max < 0 || sr.mxi && max == 0)) keys.add(key);
+      }
+    } else if(token instanceof NumericRange) {
+      final NumericRange nr = (NumericRange) token;
+      for(final byte[] key : updates.keys()) {
+        final double d = toDouble(key);
+        if(d >= nr.min && d <= nr.max) keys.add(key);
+      }
+    } else if(token instanceof DateRange) {
+      final DateRange dr = (DateRange) token;
+      for(final byte[] key : updates.keys()) {
+        if(dr.contains(dr.date(key))) keys.add(key);
+      }
+    } else {
+      keys.add(token.get());
+    }
+    return keys;
+  }
+
+  @Override
+  public synchronized EntryIterator entries(final IndexEntries input) {
+    final EntryIterator entries = super.entries(input);
+    if(updates.isEmpty()) return entries;
+
+    // choose pending keys (all keys, keys with a prefix, or keys before or after a key)
+    final byte[] prefix = input.get();
+    final boolean desc = input.descending && !input.prefix;
+    final TokenList keys = new TokenList();
+    for(final byte[] key : updates.keys()) {
+      if(prefix.length == 0 || (input.prefix ? startsWith(key, prefix) :
+        desc == diff(key, prefix) < 0)) keys.add(key);
+    }
+    if(desc) keys.sort(true, false);
+
+    // merge keys of index files and pending keys
+    return new EntryIterator() {
+      byte[] key = entries.next();
+      int k, count = -1;
+
+      @Override
+      public byte[] next() {
+        final byte[] next = k < keys.size() ? keys.get(k) : null;
+        if(key == null && next == null) {
+          count = -1;
+          return null;
+        }
+        final int d = key == null ? 1 : next == null ? -1 :
+          desc ? diff(next, key) : diff(key, next);
+        if(d > 0) {
+          count = 0;
+        } else {
+          count = entries.count();
+          if(d < 0) {
+            final byte[] curr = key;
+            key = entries.next();
+            return curr;
+          }
+          key = entries.next();
+        }
+        count += updates.count(next);
+        k++;
+        return next;
+      }
+
+      @Override
+      public int count() {
+        return count;
+      }
+    };
+  }
+
   @Override
   public synchronized void add(final ValueCache values) {
+    updates.add(values);
+  }
+
+  @Override
+  public synchronized void delete(final ValueCache values) {
+    ranges.clear();
+    // create a list of the indexes of the keys which should be completely deleted
+    final IntList keys = new IntList();
+    int p = 0;
+    final int sz = size();
+    // update id lists of keys (in ascending order; speeds up binary search)
+    for(final byte[] key : values) {
+      // skip keys whose ids have only been added to the pending entries
+      final IntList ids = updates.delete(key, values.ids(key));
+      if(ids.isEmpty()) continue;
+      p = get(key, p, sz);
+      if(p < 0) throw Util.notExpected("Key does not exist: '%'", key);
+      if(deleteIds(p, key, ids, values.pos(key) != null)) keys.add(p);
+      p++;
+    }
+    deleteKeys(keys);
+  }
+
+  @Override
+  public synchronized void flush() {
+    try {
+      if(updates.merge(idxl.length())) merge();
+      updates.write();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+    super.flush();
+  }
+
+  @Override
+  public synchronized void close() {
+    // write pending entries (they have not been flushed yet if AUTOFLUSH is disabled)
+    flush();
+    super.close();
+  }
+
+  /**
+   * Adds all changes to the specified log. If the pending entries have grown too large,
+   * they will first be merged into the index files.
+   * @param wal write-ahead log
+   * @throws IOException I/O exception
+   */
+  @Override
+  public synchronized void log(final WriteAheadLog wal) throws IOException {
+    if(updates.merge(idxl.length())) merge();
+    final byte[] contents = updates.contents();
+    if(contents != null) wal.file(updates.name(), contents);
+    super.log(wal);
+  }
+
+  /**
+   * Merges the pending entries into the index files.
+   */
+  public synchronized void merge() {
+    if(updates.isEmpty()) return;
+    merge(updates.cache());
+    updates.clear();
+  }
+
+  /**
+   * Merges entries into the index files.
+   * @param values value cache
+   */
+  private void merge(final ValueCache values) {
+    ranges.clear();
     // create a sorted list of the new keys and update the old keys
     final TokenList newKeys = new TokenList();
 
@@ -82,27 +298,12 @@ public final class UpdatableDiskValues extends DiskValues {
         writeIndex(newIndex--, off, ctext.put(oldIndex--, null));
       }
       // add the new key and its ids
+      bloom(key);
       writeIds(key, values.ids(key), values.pos(key), newIndex--);
     }
     size(sz + ns);
   }
 
-  @Override
-  public synchronized void delete(final ValueCache values) {
-    // create a list of the indexes of the keys which should be completely deleted
-    final IntList keys = new IntList();
-    int p = 0;
-    final int sz = size();
-    // update id lists of keys (in ascending order; speeds up binary search)
-    for(final byte[] key : values) {
-      p = get(key, p, sz);
-      if(p < 0) throw Util.notExpected("Key does not exist: '%'", key);
-      if(deleteIds(p, key, values)) keys.add(p);
-      p++;
-    }
-    deleteKeys(keys);
-  }
-
   @Override
   protected IntList pres(final int sz, final long offset) {
     return super.pres(sz, offset).sort();
@@ -112,13 +313,14 @@ public final class UpdatableDiskValues extends DiskValues {
    * Removes record ids from the index.
    * @param index index of the key
    * @param key record key
-   * @param values value cache
+   * @param ids ids to be deleted
+   * @param pos indicates if positions are stored
    * @return {@code true} if list was completely deleted
    */
-  private boolean deleteIds(final int index, final byte[] key, final ValueCache values) {
+  private boolean deleteIds(final int index, final byte[] key, final IntList ids,
+      final boolean pos) {
     final long off = idxr.read5(index * 5L);
-    final IntList ids = values.ids(key).sort();
-    final boolean pos = values.pos(key) != null;
+    ids.sort();
 
     // read each id from the list and skip the ones that should be deleted
     final int oldSize = idxl.readNum(off), delSize = ids.size(), newSize = oldSize - delSize;
@@ -51,26 +51,36 @@ public final class ValueCache implements Iterable<byte[]> {
    * @param data data reference
    */
   public ValueCache(final IntList pres, final IndexType type, final Data data) {
-    pos = type == IndexType.TOKEN ? new ArrayList<>() : null;
+    this(type);
 
     final IndexNames in = new IndexNames(type, data);
-    final boolean text = type == IndexType.TEXT;
+    final boolean text = type == IndexType.TEXT || type == IndexType.FULLTEXT;
     final int pl = pres.size(), kind = text ? Data.TEXT : Data.ATTR;
     for(int p = 0; p < pl; p++) {
       final int pre = pres.get(p);
       if(data.kind(pre) == kind && in.contains(pre, text)) {
         if(type == IndexType.TOKEN) {
+          final int id = data.id(pre);
           int ps = 0;
-          for(final byte[] token : distinctTokens(data.text(pre, false))) {
-            addId(token, pre, ps++, data);
-          }
+          for(final byte[] token : distinctTokens(data.text(pre, false))) add(token, id, ps++);
+        } else if(type == IndexType.FULLTEXT) {
+          // texts will be tokenized by the full-text index
+          add(data.text(pre, true), data.id(pre), 0);
         } else if(data.textLen(pre, text) <= data.meta.maxlen) {
-          addId(data.text(pre, text), pre, 0, data);
+          add(data.text(pre, text), data.id(pre), 0);
         }
       }
     }
   }
 
+  /**
+   * Constructor for an empty cache.
+   * @param type index type
+   */
+  ValueCache(final IndexType type) {
+    pos = type == IndexType.TOKEN ? new ArrayList<>() : null;
+  }
+
   /**
    * Caches all texts and ids in the specified database range.
    * @param pre pre value
@@ -85,13 +95,12 @@ public final class ValueCache implements Iterable<byte[]> {
   }
 
   /**
-   * Adds a single node id and position.
+   * Adds a single id and position.
    * @param text text
-   * @param pre pre value
+   * @param id id
    * @param ps position
-   * @param data data reference
    */
-  private void addId(final byte[] text, final int pre, final int ps, final Data data) {
+  void add(final byte[] text, final int id, final int ps) {
     final int i = keys.put(text) - 1;
     final boolean exists = i < ids.size();
 
@@ -102,7 +111,7 @@ public final class ValueCache implements Iterable<byte[]> {
       list = new IntList(1);
       ids.add(list);
     }
-    list.add(data.id(pre));
+    list.add(id);
 
     if(pos != null) {
       if(exists) {
@@ -129,7 +138,7 @@ public final class ValueCache implements Iterable<byte[]> {
    * @param key key
    * @return id list
    */
-  IntList ids(final byte[] key) {
+  public IntList ids(final byte[] key) {
     return ids.get(keys.id(key) - 1);
   }
 
@@ -0,0 +1,265 @@
+package org.basex.index.value;
+
+import java.io.*;
+
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.io.out.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This class organizes entries of an updatable value index that have not been merged into the
+ * index files yet. The entries are kept in main memory and stored in a separate file with the
+ * prefix of the index files and the suffix {@code u}. As ids are unique, an id is either
+ * stored in the index files or in the pending entries of a key.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+final class ValueUpdates {
+  /** Minimum number of pending entries before the entries are merged into the index files. */
+  private static final int MERGE = 1 << 16;
+
+  /** Data reference. */
+  private final Data data;
+  /** Index type. */
+  private final IndexType type;
+  /** File with pending entries. */
+  private final IOFile file;
+  /** Number of integers per entry (token index: ids and positions). */
+  private final int step;
+  /** Pending entries: keys and ids (token index: alternating ids and positions). */
+  private final TokenObjMap<IntList> entries = new TokenObjMap<>();
+  /** Sorted keys with pending entries ({@code null} if keys have been added). */
+  private TokenList keys;
+  /** Number of pending entries. */
+  private int size;
+  /** Dirty flag. */
+  private boolean dirty;
+
+  /**
+   * Constructor.
+   * @param data data reference
+   * @param type index type
+   * @param pref file prefix
+   * @throws IOException I/O exception
+   */
+  ValueUpdates(final Data data, final IndexType type, final String pref) throws IOException {
+    this.data = data;
+    this.type = type;
+    file = data.meta.dbfile(pref + 'u');
+    step = type == IndexType.TOKEN ? 2 : 1;
+    if(file.exists()) read();
+  }
+
+  /**
+   * Adds entries.
+   * @param vc value cache with keys and ids
+   */
+  void add(final ValueCache vc) {
+    for(final byte[] key : vc) {
+      final IntList ids = vc.ids(key), pos = vc.pos(key);
+      IntList list = entries.get(key);
+      if(list == null) {
+        list = new IntList(step);
+        entries.put(key, list);
+        keys = null;
+      } else if(list.isEmpty()) {
+        keys = null;
+      }
+      final int is = ids.size();
+      for(int i = 0; i < is; i++) {
+        list.add(ids.get(i));
+        if(pos != null) list.add(pos.get(i));
+      }
+      size += is;
+    }
+    dirty = true;
+  }
+
+  /**
+   * Deletes the pending entries of a key.
+   * @param key key
+   * @param ids ids of the entries to be deleted
+   * @return ids that have not been found, and that are stored in the index files
+   */
+  IntList delete(final byte[] key, final IntList ids) {
+    final IntList list = entries.get(key);
+    if(list == null || list.isEmpty()) return ids;
+
+    final IntSet delete = new IntSet(), deleted = new IntSet();
+    final int is = ids.size(), ls = list.size();
+    for(int i = 0; i < is; i++) delete.add(ids.get(i));
+    int l = 0;
+    for(int i = 0; i < ls; i += step) {
+      final int id = list.get(i);
+      if(delete.contains(id)) {
+        deleted.add(id);
+      } else {
+        for(int s = 0; s < step; s++) list.set(l++, list.get(i + s));
+      }
+    }
+    if(l == ls) return ids;
+
+    list.size(l);
+    if(l == 0) keys = null;
+    size -= deleted.size();
+    dirty = true;
+
+    final IntList rest = new IntList();
+    for(int i = 0; i < is; i++) {
+      final int id = ids.get(i);
+      if(!deleted.contains(id)) rest.add(id);
+    }
+    return rest;
+  }
+
+  /**
+   * Returns the number of pending entries of a key.
+   * @param key key
+   * @return number of entries
+   */
+  int count(final byte[] key) {
+    final IntList list = entries.get(key);
+    return list == null ? 0 : list.size() / step;
+  }
+
+  /**
+   * Adds the pre values of the pending entries of a key to the specified list.
+   * @param key key
+   * @param pres pre values
+   */
+  void pres(final byte[] key, final IntList pres) {
+    final IntList list = entries.get(key);
+    if(list == null) return;
+    final int ls = list.size();
+    for(int l = 0; l < ls; l += step) pres.add(data.pre(list.get(l)));
+  }
+
+  /**
+   * Returns the keys with pending entries in ascending order.
+   * @return keys
+   */
+  TokenList keys() {
+    if(keys == null) {
+      final TokenList list = new TokenList(entries.size());
+      for(final byte[] key : entries) {
+        if(!entries.get(key).isEmpty()) list.add(key);
+      }
+      keys = list.sort();
+    }
+    return keys;
+  }
+
+  /**
+   * Returns a value cache with all pending entries.
+   * @return value cache
+   */
+  ValueCache cache() {
+    final ValueCache vc = new ValueCache(type);
+    for(final byte[] key : keys()) {
+      final IntList list = entries.get(key);
+      final int ls = list.size();
+      for(int l = 0; l < ls; l += step) vc.add(key, list.get(l), step == 2 ? list.get(l + 1) : 0);
+    }
+    return vc;
+  }
+
+  /**
+   * Checks if no entries are pending.
+   * @return result of check
+   */
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Checks if the pending entries should be merged into the index files.
+   * @param length length of the index file with the id lists
+   * @return result of check
+   */
+  boolean merge(final long length) {
+    return size > Math.max(MERGE, length >>> 3);
+  }
+
+  /**
+   * Discards all pending entries (invoked after they have been merged into the index files).
+   */
+  void clear() {
+    entries.clear();
+    keys = null;
+    size = 0;
+    dirty = true;
+  }
+
+  /**
+   * Returns the name of the file with the pending entries.
+   * @return file name
+   */
+  String name() {
+    return file.name();
+  }
+
+  /**
+   * Reads the pending entries.
+   * @throws IOException I/O exception
+   */
+  private void read() throws IOException {
+    try(DataInput in = new DataInput(file)) {
+      for(int k = in.readNum(); --k >= 0;) {
+        final byte[] key = in.readToken();
+        final int[] list = in.readNums();
+        entries.put(key, new IntList(list));
+        size += list.length / step;
+      }
+    }
+  }
+
+  /**
+   * Writes the pending entries if they have been changed.
+   * The file will be deleted if no entries are pending.
+   * @throws IOException I/O exception
+   */
+  void write() throws IOException {
+    if(!dirty) return;
+    if(isEmpty()) {
+      file.delete();
+      dirty = false;
+    } else {
+      try(DataOutput out = new DataOutput(file)) {
+        write(out);
+      }
+    }
+  }
+
+  /**
+   * Returns the serialized pending entries and resets the dirty flag.
+   * @return contents, or {@code null} if the entries have not been changed
+   * @throws IOException I/O exception
+   */
+  byte[] contents() throws IOException {
+    if(!dirty) return null;
+    final ArrayOutput ao = new ArrayOutput();
+    write(new DataOutput(ao));
+    return ao.finish();
+  }
+
+  /**
+   * Writes the pending entries to the specified output.
+   * @param out output
+   * @throws IOException I/O exception
+   */
+  private void write(final DataOutput out) throws IOException {
+    final TokenList list = keys();
+    out.writeNum(list.size());
+    for(final byte[] key : list) {
+      out.writeToken(key);
+      out.writeNums(entries.get(key).toArray());
+    }
+    dirty = false;
+  }
+}
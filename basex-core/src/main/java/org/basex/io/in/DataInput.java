@@ -119,6 +119,15 @@ public final class DataInput extends BufferInput {
     }
   }
 
+  /**
+   * Reads a 5-byte value.
+   * @return read value
+   * @throws IOException I/O Exception
+   */
+  public long read5() throws IOException {
+    return ((long) read() << 32) + ((long) read() << 24) + (read() << 16) + (read() << 8) + read();
+  }
+
   /**
    * Reads an array of long values.
    * @param s array size
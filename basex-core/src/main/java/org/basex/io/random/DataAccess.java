@@ -1,6 +1,9 @@
 package org.basex.io.random;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
 
 import org.basex.io.*;
 import org.basex.util.*;
@@ -8,12 +11,22 @@ import org.basex.util.*;
 /**
  * This class allows positional read and write access to a database file.
  *
+ * Most read and write operations are performed on a shared cursor and need to be synchronized.
+ * Methods with the {@code At} suffix are cursor-free if the file is memory-mapped or if positional
+ * reads have been enabled: as long as no changes are pending, they read values directly from the
+ * mapped file or from disk, and can be called concurrently without blocking each other.
+ * Otherwise, they use the buffered path, which is faster for single readers.
+ *
  * @author BaseX Team 2005-19, BSD License
  * @author Christian Gruen
  */
 public final class DataAccess implements Closeable {
   /** Buffer manager. */
   private final Buffers bm = new Buffers();
+  /** Page cache. */
+  private final PageCache cache = PageCache.get();
+  /** File id in the page cache. */
+  private final long id = PageCache.id();
   /** Reference to the data input stream. */
   private final RandomAccessFile raf;
   /** File length. */
@@ -22,6 +35,20 @@ public final class DataAccess implements Closeable {
   private boolean changed;
   /** Offset. */
   private int off;
+  /** Memory-mapped file ({@code null} if file is not mapped). */
+  private final MappedFile mapped;
+  /** Flag for reading bytes with positional reads. */
+  private final boolean pread;
+  /** Indicates if changes are pending that have not been written to disk yet. */
+  private boolean buffered;
+  /** Name of the file. */
+  private final String name;
+  /** Write-ahead log ({@code null} if no log is used). */
+  private final WriteAheadLog wal;
+  /** Offsets of evicted pages in the current batch of the log ({@code null} if no log is used). */
+  private final HashMap<Long, Long> pending;
+  /** Free space of the file ({@code null} if it is not tracked, see {@link #track(int)}). */
+  private FreeSpace space;
 
   /**
    * Constructor, initializing the file reader.
@@ -29,11 +56,53 @@ public final class DataAccess implements Closeable {
    * @throws IOException I/O Exception
    */
   public DataAccess(final IOFile file) throws IOException {
+    this(file, false);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * @param file the file to be read
+   * @param mmap map file into memory for cursor-free read operations
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile file, final boolean mmap) throws IOException {
+    this(file, mmap, false, null);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * @param file the file to be read
+   * @param mmap map file into memory for cursor-free read operations
+   * @param wal write-ahead log (can be {@code null}). If a log is specified, changed pages will
+   * be added to the log before they are written to disk (see {@link #log(WriteAheadLog)})
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile file, final boolean mmap, final WriteAheadLog wal)
+      throws IOException {
+    this(file, mmap, false, wal);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * @param file the file to be read
+   * @param mmap map file into memory for cursor-free read operations
+   * @param pread use positional reads for cursor-free read operations
+   * @param wal write-ahead log (can be {@code null}). If a log is specified, changed pages will
+   * be added to the log before they are written to disk (see {@link #log(WriteAheadLog)})
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile file, final boolean mmap, final boolean pread,
+      final WriteAheadLog wal) throws IOException {
+    name = file.name();
+    this.pread = pread;
+    this.wal = wal;
+    pending = wal != null ? new HashMap<>() : null;
     RandomAccessFile f = null;
     try {
       f = new RandomAccessFile(file.file(), "rw");
       length = f.length();
       raf = f;
+      mapped = mmap ? new MappedFile(f.getChannel()) : null;
       cursor(0);
     } catch(final IOException ex) {
       if(f != null) f.close();
@@ -46,6 +115,20 @@ public final class DataAccess implements Closeable {
    */
   public synchronized void flush() {
     try {
+      if(pending != null) {
+        final byte[] data = new byte[IO.BLOCKSIZE];
+        for(final Map.Entry<Long, Long> entry : pending.entrySet()) {
+          final long pos = entry.getKey();
+          final int len = (int) Math.min(IO.BLOCKSIZE, length - pos);
+          if(len <= 0) continue;
+          wal.read(entry.getValue(), data, len);
+          raf.seek(pos);
+          raf.write(data, 0, len);
+          if(len == IO.BLOCKSIZE) cache.write(id, pos / IO.BLOCKSIZE, data);
+          else cache.remove(id, pos / IO.BLOCKSIZE);
+        }
+        pending.clear();
+      }
       for(final Buffer b : bm.all()) {
         if(b.dirty) writeBlock(b);
       }
@@ -53,11 +136,31 @@ public final class DataAccess implements Closeable {
         raf.setLength(length);
         changed = false;
       }
+      if(buffered) {
+        if(mapped != null) mapped.map();
+        buffered = false;
+      }
     } catch(final IOException ex) {
       Util.stack(ex);
     }
   }
 
+  /**
+   * Adds the remaining changed pages and the file length to the specified log.
+   * Evicted pages have already been added to the log.
+   * The changes must be written to disk by calling {@link #flush()} after the log has been
+   * committed.
+   * @param wal write-ahead log
+   * @throws IOException I/O exception
+   */
+  public synchronized void log(final WriteAheadLog wal) throws IOException {
+    for(final Buffer b : bm.all()) {
+      if(b.dirty) wal.page(name, b.pos, b.data, (int) Math.min(IO.BLOCKSIZE, length - b.pos));
+    }
+    // evicted pages are logged completely: restore the file length when the log is replayed
+    if(changed || !pending.isEmpty()) wal.length(name, length);
+  }
+
   @Override
   public synchronized void close() {
     flush();
@@ -66,6 +169,7 @@ public final class DataAccess implements Closeable {
     } catch(final IOException ex) {
       Util.stack(ex);
     }
+    cache.remove(id);
   }
 
   /**
@@ -175,6 +279,36 @@ public final class DataAccess implements Closeable {
     return readBytes(l);
   }
 
+  /**
+   * Reads a {@link Num} value from the specified position.
+   * If the file is memory-mapped or if positional reads are enabled, and if no changes are
+   * pending, the cursor will not be changed and the method will not be synchronized.
+   * @param pos position
+   * @return read num
+   */
+  public int readNumAt(final long pos) {
+    if(!direct()) return readNum(pos);
+    return Num.get(readAt(pos, 5), 0);
+  }
+
+  /**
+   * Reads a token from the specified position.
+   * If the file is memory-mapped or if positional reads are enabled, and if no changes are
+   * pending, the cursor will not be changed and the method will not be synchronized.
+   * @param pos position
+   * @return text as byte array
+   */
+  public byte[] readTokenAt(final long pos) {
+    if(!direct()) return readToken(pos);
+    // read length and first bytes of the token in a single step
+    final byte[] start = readAt(pos, 64);
+    final int nl = Num.length(start, 0), len = Num.get(start, 0), first = start.length - nl;
+    final byte[] token = new byte[len];
+    Array.copyToStart(start, nl, Math.min(len, first), token);
+    if(len > first) readAt(pos + start.length, token, first, len - first);
+    return token;
+  }
+
   /**
    * Reads a number of bytes from the specified offset.
    * @param pos position
@@ -219,11 +353,26 @@ public final class DataAccess implements Closeable {
 
     final Buffer bf = bm.current();
     try {
-      if(bf.dirty) writeBlock(bf);
+      if(bf.dirty) {
+        if(pending != null) {
+          // add changed page to the log; it will be written to disk after the log is committed
+          pending.put(bf.pos, wal.page(name, bf.pos, bf.data, IO.BLOCKSIZE));
+          bf.dirty = false;
+        } else {
+          writeBlock(bf);
+        }
+      }
       bf.pos = b;
-      raf.seek(bf.pos);
-      if(bf.pos < raf.length())
-        raf.readFully(bf.data, 0, (int) Math.min(length - bf.pos, IO.BLOCKSIZE));
+      final Long off = pending != null ? pending.get(b) : null;
+      if(off != null) {
+        wal.read(off, bf.data, IO.BLOCKSIZE);
+      } else if(!cache.read(id, b / IO.BLOCKSIZE, bf.data) && b < raf.length()) {
+        final int len = (int) Math.min(length - b, IO.BLOCKSIZE);
+        raf.seek(b);
+        raf.readFully(bf.data, 0, len);
+        // only complete pages will be cached
+        if(len == IO.BLOCKSIZE) cache.write(id, b / IO.BLOCKSIZE, bf.data);
+      }
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -314,6 +463,7 @@ public final class DataAccess implements Closeable {
       final int l = Math.min(last - o, IO.BLOCKSIZE - off);
       Array.copy(buffer, o, l, bf.data, off);
       bf.dirty = true;
+      buffered = true;
       off += l;
       o += l;
       // adjust file size
@@ -339,18 +489,32 @@ public final class DataAccess implements Closeable {
    * @param size size of new text entry
    * @return new offset to store text
    */
-  public long free(final long pos, final int size) {
+  public synchronized long free(final long pos, final int size) {
     // old text size (available space)
-    int os = readNum(pos) + (int) (cursor() - pos);
+    final int ts = readNum(pos) + (int) (cursor() - pos);
+    int os = ts;
 
     // extend available space by subsequent zero-bytes
     cursor(pos + os);
     for(; pos + os < length && os < size && read() == 0xFF; os++);
 
+    // update free space if it is tracked for the affected area
+    FreeSpace fs = space;
+    if(fs != null && pos + os > fs.scanned) {
+      // area has not been parsed yet, or it has been extended beyond the parsed area
+      if(pos < fs.scanned) {
+        fs.cut(pos);
+        fs.scanned = pos;
+      }
+      fs = null;
+    }
+    if(fs != null && os > ts) fs.consume(pos + ts, os - ts);
+
     long o = pos;
     if(pos + os == length) {
       // entry is placed last: reset file length (discard last entry)
       length(pos);
+      if(fs != null) o = trim();
     } else {
       int t = size;
       if(os < size) {
@@ -360,9 +524,11 @@ public final class DataAccess implements Closeable {
         t = 0;
         // place new entry after last entry
         o = length;
+        if(fs != null) fs.add(pos, os);
       } else {
         // gap is large enough: set cursor to overwrite remaining bytes
         cursor(pos + size);
+        if(fs != null) fs.add(pos + size, os - size);
       }
       // fill gap with 0xFF for future updates
       while(t++ < os) write(0xFF);
@@ -370,6 +536,66 @@ public final class DataAccess implements Closeable {
     return o;
   }
 
+  /**
+   * Tracks the free space of the file, which consists of areas filled with 0xFF bytes.
+   * The file is parsed in several steps. The method must be called until it returns
+   * {@code true}; afterwards, entries can be moved to free areas (see {@link #relocate(long)}).
+   * @param n maximum number of entries and free areas to be parsed
+   * @return {@code true} if the free space of the whole file is known
+   */
+  public synchronized boolean track(final int n) {
+    if(space == null) space = new FreeSpace();
+    long pos = space.scanned;
+    for(int c = 0; c < n && pos < length; c++) {
+      cursor(pos);
+      final long start = pos;
+      if(read() == 0xFF) {
+        // entries never start with 0xFF (see {@link #writeNum(int)})
+        while(++pos < length && read() == 0xFF);
+        space.add(start, pos - start);
+      } else {
+        cursor(pos);
+        final int l = readNum();
+        pos = cursor() + l;
+      }
+    }
+    if(pos < length) {
+      space.scanned = pos;
+      return false;
+    }
+    space.scanned = Long.MAX_VALUE;
+    trim();
+    return true;
+  }
+
+  /**
+   * Moves an entry to a free area located before its current offset.
+   * The space of the original entry will be freed.
+   * @param pos offset of the entry
+   * @return new offset, or {@code -1} if the entry was not moved
+   */
+  public synchronized long relocate(final long pos) {
+    if(space == null || space.scanned != Long.MAX_VALUE) return -1;
+    final int size = readNum(pos) + (int) (cursor() - pos);
+    final long target = space.find(size, pos);
+    if(target == -1) return -1;
+
+    final byte[] entry = readBytes(pos, size);
+    space.consume(target, size);
+    cursor(target);
+    writeBytes(entry, 0, size);
+    free(pos, 0);
+    return target;
+  }
+
+  /**
+   * Returns the total size of the free areas, or {@code 0} if the free space is not tracked.
+   * @return number of bytes
+   */
+  public synchronized long unused() {
+    return space != null ? space.total : 0;
+  }
+
   /**
    * Sets the file length.
    * @param len file length
@@ -377,12 +603,25 @@ public final class DataAccess implements Closeable {
   private synchronized void length(final long len) {
     if(len != length) {
       changed = true;
+      buffered = true;
       length = len;
     }
   }
 
   // PRIVATE METHODS ==============================================================================
 
+  /**
+   * Removes free areas at the end of the file and shortens the file.
+   * @return new file length
+   */
+  private long trim() {
+    for(long off; (off = space.before(length)) != -1;) {
+      space.remove(off);
+      length(off);
+    }
+    return length;
+  }
+
   /**
    * Reads the next byte.
    * @return next byte
@@ -399,11 +638,85 @@ public final class DataAccess implements Closeable {
   private void write(final int value) {
     final Buffer bf = buffer();
     bf.dirty = true;
+    buffered = true;
     bf.data[off++] = (byte) value;
     final long nl = bf.pos + off;
     if(nl > length) length(nl);
   }
 
+  /**
+   * Checks if bytes can be read without changing the cursor. This is the case if the file is
+   * memory-mapped or if positional reads are enabled, and if no changes are pending.
+   * @return result of check
+   */
+  private boolean direct() {
+    return !buffered && (mapped != null || pread && raf.getChannel().isOpen());
+  }
+
+  /**
+   * Reads bytes from the specified position without changing the cursor.
+   * Assumes that no changes are pending.
+   * @param pos position
+   * @param len maximum number of bytes to be read (will be limited by the file length)
+   * @return bytes
+   */
+  private byte[] readAt(final long pos, final int len) {
+    final byte[] b = new byte[(int) Math.max(0, Math.min(len, length - pos))];
+    readAt(pos, b, 0, b.length);
+    return b;
+  }
+
+  /**
+   * Reads bytes from the specified position into an array without changing the cursor.
+   * Assumes that no changes are pending.
+   * @param pos position
+   * @param b target array
+   * @param o array offset
+   * @param len number of bytes to be read
+   */
+  private void readAt(final long pos, final byte[] b, final int o, final int len) {
+    if(mapped != null) {
+      mapped.read(pos, b, o, len);
+    } else if(cache.enabled()) {
+      // read bytes page-wise via the page cache
+      final byte[] page = new byte[IO.BLOCKSIZE];
+      long p = pos;
+      int bo = o, l = len;
+      while(l > 0) {
+        final long pg = p / IO.BLOCKSIZE, start = pg * IO.BLOCKSIZE;
+        if(!cache.read(id, pg, page)) {
+          final int pl = (int) Math.min(length - start, IO.BLOCKSIZE);
+          readAt(start, ByteBuffer.wrap(page, 0, pl));
+          if(pl == IO.BLOCKSIZE) cache.write(id, pg, page);
+        }
+        final int po = (int) (p - start), n = Math.min(l, IO.BLOCKSIZE - po);
+        Array.copy(page, po, n, b, bo);
+        p += n;
+        bo += n;
+        l -= n;
+      }
+    } else {
+      readAt(pos, ByteBuffer.wrap(b, o, len));
+    }
+  }
+
+  /**
+   * Reads bytes from the specified position into a buffer, using positional reads.
+   * @param pos position
+   * @param bb target buffer
+   */
+  private void readAt(final long pos, final ByteBuffer bb) {
+    final int start = bb.position();
+    try {
+      final FileChannel fc = raf.getChannel();
+      while(bb.hasRemaining()) {
+        if(fc.read(bb, pos + bb.position() - start) == -1) throw new EOFException();
+      }
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
   /**
    * Write a token to the file.
    * @param buffer buffer containing the token
@@ -422,8 +735,13 @@ public final class DataAccess implements Closeable {
    */
   private void writeBlock(final Buffer buffer) throws IOException {
     final long pos = buffer.pos, len = Math.min(IO.BLOCKSIZE, length - pos);
-    raf.seek(pos);
-    raf.write(buffer.data, 0, (int) len);
+    // skip blocks that have been discarded by shortening the file
+    if(len > 0) {
+      raf.seek(pos);
+      raf.write(buffer.data, 0, (int) len);
+    }
+    if(len == IO.BLOCKSIZE) cache.write(id, pos / IO.BLOCKSIZE, buffer.data);
+    else cache.remove(id, pos / IO.BLOCKSIZE);
     buffer.dirty = false;
   }
 
@@ -0,0 +1,105 @@
+package org.basex.io.random;
+
+import java.util.*;
+
+/**
+ * This class organizes the free space of a heap file (see {@link DataAccess#free}).
+ * Adjacent free areas are merged.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+final class FreeSpace {
+  /** Maximum number of area sizes that will be checked when looking for a free area. */
+  private static final int CHECKS = 16;
+
+  /** Free areas, sorted by their offsets. */
+  private final TreeMap<Long, Long> offsets = new TreeMap<>();
+  /** Offsets of free areas, sorted by their sizes. */
+  private final TreeMap<Long, TreeSet<Long>> sizes = new TreeMap<>();
+  /** File position up to which the free space is known ({@link Long#MAX_VALUE}: all). */
+  long scanned;
+  /** Total size of all free areas. */
+  long total;
+
+  /**
+   * Adds a free area and merges it with adjacent areas.
+   * @param off offset
+   * @param size size
+   */
+  void add(final long off, final long size) {
+    if(size <= 0) return;
+    long o = off, s = size;
+    final Map.Entry<Long, Long> prev = offsets.lowerEntry(off);
+    if(prev != null && prev.getKey() + prev.getValue() == off) {
+      o = prev.getKey();
+      s += remove(o);
+    }
+    final Long next = offsets.get(off + size);
+    if(next != null) s += remove(off + size);
+
+    offsets.put(o, s);
+    sizes.computeIfAbsent(s, k -> new TreeSet<>()).add(o);
+    total += s;
+  }
+
+  /**
+   * Removes the specified number of bytes from the start of a free area.
+   * @param off offset of the free area
+   * @param size number of bytes to remove
+   */
+  void consume(final long off, final long size) {
+    final long s = remove(off);
+    if(s > size) add(off + size, s - size);
+  }
+
+  /**
+   * Removes a free area.
+   * @param off offset of the free area
+   * @return size of the removed area, or {@code 0} if no area exists at the specified offset
+   */
+  long remove(final long off) {
+    final Long size = offsets.remove(off);
+    if(size == null) return 0;
+    final TreeSet<Long> offs = sizes.get(size);
+    offs.remove(off);
+    if(offs.isEmpty()) sizes.remove(size);
+    total -= size;
+    return size;
+  }
+
+  /**
+   * Removes all free areas starting at or after the specified offset.
+   * @param off offset
+   */
+  void cut(final long off) {
+    for(Long o; (o = offsets.ceilingKey(off)) != null;) remove(o);
+  }
+
+  /**
+   * Returns the offset of a free area that ends at the specified position.
+   * @param end end position
+   * @return offset, or {@code -1} if no area ends at this position
+   */
+  long before(final long end) {
+    final Map.Entry<Long, Long> entry = offsets.lowerEntry(end);
+    return entry != null && entry.getKey() + entry.getValue() == end ? entry.getKey() : -1;
+  }
+
+  /**
+   * Returns the offset of a free area that is large enough for the specified number of bytes
+   * and that is located before the specified position.
+   * @param size required size
+   * @param before position
+   * @return offset, or {@code -1} if no suitable area was found
+   */
+  long find(final long size, final long before) {
+    int c = 0;
+    for(final TreeSet<Long> offs : sizes.tailMap(size).values()) {
+      final long off = offs.first();
+      if(off + size <= before) return off;
+      if(++c == CHECKS) break;
+    }
+    return -1;
+  }
+}
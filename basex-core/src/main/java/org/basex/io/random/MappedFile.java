@@ -0,0 +1,150 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.*;
+import java.util.*;
+
+/**
+ * This class provides read access to a file that is mapped into memory.
+ * The file is mapped in segments; if the file grows, the new segments will be mapped as well.
+ * Values are read via absolute positions, so no cursor needs to be maintained.
+ *
+ * Mapped segments are released by the garbage collector. As long as they are referenced,
+ * the file may not be deletable on some operating systems (e.g., Windows).
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+final class MappedFile {
+  /** Power of segment size (segments must be a multiple of the block size). */
+  private static final int POWER = 30;
+  /** Segment size. */
+  private static final long SIZE = 1L << POWER;
+
+  /** File channel. */
+  private final FileChannel channel;
+  /** Mapped segments. */
+  private volatile MappedByteBuffer[] segments = {};
+  /** Mapped file length. */
+  private long length;
+
+  /**
+   * Constructor, mapping the file.
+   * @param channel file channel
+   * @throws IOException I/O exception
+   */
+  MappedFile(final FileChannel channel) throws IOException {
+    this.channel = channel;
+    map();
+  }
+
+  /**
+   * Maps the current contents of the file. Only those segments will be (re)mapped that have been
+   * changed in size.
+   * @throws IOException I/O exception
+   */
+  synchronized void map() throws IOException {
+    final long len = channel.size();
+    if(len == length) return;
+
+    final int ns = (int) (len + SIZE - 1 >>> POWER);
+    final MappedByteBuffer[] segs = Arrays.copyOf(segments, ns);
+    for(int s = len < length ? 0 : (int) (length >>> POWER); s < ns; s++) {
+      final long pos = (long) s << POWER;
+      segs[s] = channel.map(MapMode.READ_ONLY, pos, Math.min(SIZE, len - pos));
+    }
+    segments = segs;
+    length = len;
+  }
+
+  /**
+   * Returns the mapped file length.
+   * @return length
+   */
+  long length() {
+    return length;
+  }
+
+  /**
+   * Reads a byte value from the specified position.
+   * @param pos position
+   * @return integer value
+   */
+  int read1(final long pos) {
+    return segment(pos).get(offset(pos)) & 0xFF;
+  }
+
+  /**
+   * Reads a short value from the specified position.
+   * The value must not span two segments.
+   * @param pos position
+   * @return integer value
+   */
+  int read2(final long pos) {
+    return segment(pos).getShort(offset(pos)) & 0xFFFF;
+  }
+
+  /**
+   * Reads an integer value from the specified position.
+   * The value must not span two segments.
+   * @param pos position
+   * @return integer value
+   */
+  int read4(final long pos) {
+    return segment(pos).getInt(offset(pos));
+  }
+
+  /**
+   * Reads a 5-byte value from the specified position.
+   * The value must not span two segments.
+   * @param pos position
+   * @return long value
+   */
+  long read5(final long pos) {
+    final ByteBuffer bb = segment(pos);
+    final int o = offset(pos);
+    return (long) (bb.get(o) & 0xFF) << 32 | bb.getInt(o + 1) & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Reads bytes from the specified position into an array.
+   * @param pos position
+   * @param b target array
+   * @param o array offset
+   * @param len number of bytes to be read
+   */
+  void read(final long pos, final byte[] b, final int o, final int len) {
+    long p = pos;
+    int bo = o, l = len;
+    while(l > 0) {
+      // duplicate segment to read bytes without changing the position of the shared buffer
+      final ByteBuffer bb = segment(p).duplicate();
+      final int so = offset(p), n = Math.min(l, bb.capacity() - so);
+      bb.position(so);
+      bb.get(b, bo, n);
+      p += n;
+      bo += n;
+      l -= n;
+    }
+  }
+
+  /**
+   * Returns the segment for the specified position.
+   * @param pos position
+   * @return segment
+   */
+  private ByteBuffer segment(final long pos) {
+    return segments[(int) (pos >>> POWER)];
+  }
+
+  /**
+   * Returns the offset of the specified position in its segment.
+   * @param pos position
+   * @return offset
+   */
+  private static int offset(final long pos) {
+    return (int) (pos & SIZE - 1);
+  }
+}
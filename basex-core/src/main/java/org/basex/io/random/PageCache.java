@@ -0,0 +1,343 @@
+package org.basex.io.random;
+
+import java.util.*;
+import java.util.Map.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.basex.util.*;
+
+/**
+ * This class provides a process-wide cache for the pages of database files.
+ * It is shared by all instances of {@link TableDiskAccess} and {@link DataAccess}, and it is
+ * consulted whenever a page is missing in the buffers of a file.
+ *
+ * Pages are managed by a segmented LRU strategy: pages that are requested for the first time
+ * are added to a probationary segment, and they are promoted to a protected segment if they are
+ * requested again. As a result, pages that are only visited once (e.g. by sequential scans) will
+ * not displace frequently used pages.
+ *
+ * The cache is split into partitions, which are locked independently. Pages are assigned to
+ * partitions by their file id and page number, so concurrent readers rarely block each other.
+ *
+ * If compression is enabled, pages are stored in a compact format and decoded when they are
+ * requested (see {@link PageCodec}). The size of the cache is measured in bytes, so more pages
+ * will fit into the cache.
+ *
+ * The cache is disabled by default; its size can be assigned via
+ * {@link org.basex.core.StaticOptions#PAGECACHE}, and compression can be enabled via
+ * {@link org.basex.core.StaticOptions#PAGECOMPRESS}.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class PageCache {
+  /** Singleton instance. */
+  private static final PageCache INSTANCE = new PageCache();
+  /** Percentage of bytes that may be stored in the protected segment. */
+  private static final int PROTECTED = 80;
+  /** Number of partitions (must be a power of two). */
+  private static final int PARTITIONS = 16;
+  /** Counter for file ids. */
+  private static final AtomicLong IDS = new AtomicLong();
+
+  /** Partitions. */
+  private final Partition[] partitions = new Partition[PARTITIONS];
+  /** Numbers of the cached pages of each file. */
+  private final Map<Long, Set<Long>> files = new ConcurrentHashMap<>();
+  /** Maximum number of cached bytes. */
+  private volatile long capacity;
+  /** Compression flag. */
+  private volatile boolean compress;
+
+  /** Private constructor. */
+  private PageCache() {
+    for(int p = 0; p < PARTITIONS; p++) partitions[p] = new Partition();
+  }
+
+  /**
+   * Returns the page cache.
+   * @return cache
+   */
+  public static PageCache get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Assigns a new cache size. Evicts pages if the cache gets smaller.
+   * @param megabytes size in megabytes ({@code 0}: disable cache)
+   */
+  public void size(final int megabytes) {
+    capacity = (long) Math.max(0, megabytes) << 20;
+    for(final Partition partition : partitions) partition.capacity(capacity / PARTITIONS);
+  }
+
+  /**
+   * Enables or disables the compression of pages that will be added to the cache.
+   * @param enable compression flag
+   */
+  public void compress(final boolean enable) {
+    compress = enable;
+  }
+
+  /**
+   * Indicates if the cache is enabled.
+   * @return result of check
+   */
+  public boolean enabled() {
+    return capacity > 0;
+  }
+
+  /**
+   * Returns a new id for a file whose pages are to be cached.
+   * Ids are never reused while the process is running.
+   * @return file id
+   */
+  static long id() {
+    return IDS.incrementAndGet();
+  }
+
+  /**
+   * Copies a cached page to the specified array.
+   * @param id file id
+   * @param page page number
+   * @param data target array
+   * @return {@code true} if the page was found
+   */
+  boolean read(final long id, final long page, final byte[] data) {
+    if(capacity == 0) return false;
+
+    // cached arrays are never modified, so they can be decoded without lock
+    final byte[] cached = partition(id, page).get(new PageKey(id, page));
+    if(cached == null) return false;
+    PageCodec.decode(cached, data);
+    return true;
+  }
+
+  /**
+   * Caches a copy of a page. If the page already exists, its contents will be replaced.
+   * @param id file id
+   * @param page page number
+   * @param data page contents
+   */
+  void write(final long id, final long page, final byte[] data) {
+    if(capacity == 0) return;
+
+    byte[] value = compress ? PageCodec.encode(data) : data;
+    if(value == data) value = data.clone();
+    files.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(page);
+    partition(id, page).put(new PageKey(id, page), value);
+  }
+
+  /**
+   * Removes a page from the cache.
+   * @param id file id
+   * @param page page number
+   */
+  void remove(final long id, final long page) {
+    if(capacity == 0) return;
+
+    final Set<Long> pages = files.get(id);
+    if(pages != null && pages.remove(page)) partition(id, page).remove(new PageKey(id, page));
+  }
+
+  /**
+   * Removes all pages of a file.
+   * @param id file id
+   */
+  void remove(final long id) {
+    final Set<Long> pages = files.remove(id);
+    if(pages == null) return;
+    for(final long page : pages) partition(id, page).remove(new PageKey(id, page));
+  }
+
+  /**
+   * Returns information on the cache.
+   * @return table with names and values
+   */
+  public String[][] info() {
+    final long[] stats = new long[5];
+    for(final Partition partition : partitions) partition.stats(stats);
+    return new String[][] {
+      { "Size", Performance.format(capacity) },
+      { "Used", Performance.format(stats[0]) },
+      { "Pages", Long.toString(stats[1]) },
+      { "Compression", Boolean.toString(compress) },
+      { "Hits", Long.toString(stats[2]) },
+      { "Misses", Long.toString(stats[3]) },
+      { "Evictions", Long.toString(stats[4]) }
+    };
+  }
+
+  /**
+   * Returns the partition of a page.
+   * @param id file id
+   * @param page page number
+   * @return partition
+   */
+  private Partition partition(final long id, final long page) {
+    final long h = id * 0x9E3779B97F4A7C15L + page;
+    return partitions[(int) (h ^ h >>> 32) & PARTITIONS - 1];
+  }
+
+  /**
+   * Removes an evicted page from the index of its file.
+   * @param key key of the page
+   */
+  private void evicted(final PageKey key) {
+    final Set<Long> pages = files.get(key.id);
+    if(pages != null) pages.remove(key.page);
+  }
+
+  /** Key of a cached page. */
+  private static final class PageKey {
+    /** File id. */
+    private final long id;
+    /** Page number. */
+    private final long page;
+
+    /**
+     * Constructor.
+     * @param id file id
+     * @param page page number
+     */
+    private PageKey(final long id, final long page) {
+      this.id = id;
+      this.page = page;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if(!(obj instanceof PageKey)) return false;
+      final PageKey key = (PageKey) obj;
+      return id == key.id && page == key.page;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(id * 31 + page);
+    }
+  }
+
+  /** Partition of the cache, consisting of a probationary and a protected segment. */
+  private final class Partition {
+    /** Probationary segment (pages in insertion order). */
+    private final LinkedHashMap<PageKey, byte[]> probation = new LinkedHashMap<>();
+    /** Protected segment (pages in access order). */
+    private final LinkedHashMap<PageKey, byte[]> protect =
+        new LinkedHashMap<>(16, 0.75f, true);
+    /** Maximum number of cached bytes. */
+    private long max;
+    /** Number of bytes in the probationary segment. */
+    private long probationSize;
+    /** Number of bytes in the protected segment. */
+    private long protectSize;
+    /** Number of cache hits. */
+    private long hits;
+    /** Number of cache misses. */
+    private long misses;
+    /** Number of evicted pages. */
+    private long evictions;
+
+    /**
+     * Assigns a new capacity. Evicts pages if the partition gets smaller.
+     * @param bytes maximum number of bytes
+     */
+    synchronized void capacity(final long bytes) {
+      max = bytes;
+      evict();
+    }
+
+    /**
+     * Returns a cached page.
+     * @param key key
+     * @return page or {@code null}
+     */
+    synchronized byte[] get(final PageKey key) {
+      byte[] cached = protect.get(key);
+      if(cached == null) {
+        // promote page from probationary to protected segment
+        cached = probation.remove(key);
+        if(cached == null) {
+          misses++;
+          return null;
+        }
+        probationSize -= cached.length;
+        protect.put(key, cached);
+        protectSize += cached.length;
+        final long pmax = max * PROTECTED / 100;
+        final Iterator<Entry<PageKey, byte[]>> iter = protect.entrySet().iterator();
+        while(protectSize > pmax && iter.hasNext()) {
+          final Entry<PageKey, byte[]> entry = iter.next();
+          final byte[] value = entry.getValue();
+          iter.remove();
+          protectSize -= value.length;
+          probation.put(entry.getKey(), value);
+          probationSize += value.length;
+        }
+      }
+      hits++;
+      return cached;
+    }
+
+    /**
+     * Caches a page.
+     * @param key key
+     * @param value page contents
+     */
+    synchronized void put(final PageKey key, final byte[] value) {
+      if(protect.containsKey(key)) {
+        protectSize += value.length - protect.put(key, value).length;
+      } else {
+        final byte[] old = probation.put(key, value);
+        probationSize += value.length - (old != null ? old.length : 0);
+      }
+      evict();
+    }
+
+    /**
+     * Removes a page.
+     * @param key key
+     */
+    synchronized void remove(final PageKey key) {
+      byte[] value = protect.remove(key);
+      if(value != null) {
+        protectSize -= value.length;
+      } else {
+        value = probation.remove(key);
+        if(value != null) probationSize -= value.length;
+      }
+    }
+
+    /**
+     * Adds statistics to the specified array.
+     * @param stats used bytes, pages, hits, misses and evictions
+     */
+    synchronized void stats(final long[] stats) {
+      stats[0] += probationSize + protectSize;
+      stats[1] += probation.size() + protect.size();
+      stats[2] += hits;
+      stats[3] += misses;
+      stats[4] += evictions;
+    }
+
+    /**
+     * Evicts pages until the capacity is not exceeded anymore.
+     * Pages are first evicted from the probationary segment.
+     */
+    private void evict() {
+      for(final LinkedHashMap<PageKey, byte[]> segment : Arrays.asList(probation, protect)) {
+        final Iterator<Entry<PageKey, byte[]>> iter = segment.entrySet().iterator();
+        while(probationSize + protectSize > max && iter.hasNext()) {
+          final Entry<PageKey, byte[]> entry = iter.next();
+          final int length = entry.getValue().length;
+          iter.remove();
+          if(segment == probation) probationSize -= length;
+          else protectSize -= length;
+          evictions++;
+          evicted(entry.getKey());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package org.basex.io.random;
+
+import java.util.*;
+
+import org.basex.io.*;
+
+/**
+ * This class compresses pages of database files.
+ *
+ * The first byte of each table entry is replaced by its difference to the first byte of the
+ * preceding entry. All other bytes are replaced by their difference to the bytes of the last
+ * preceding entry with the same node kind. As these entries often share their name, namespace,
+ * distance and size, and as their ids and text references are close, many of the resulting
+ * bytes are zero. Each entry is stored as a 16-bit mask, which indicates the non-zero
+ * differences, followed by these differences.
+ *
+ * Pages that cannot be compressed are returned unchanged; they can be recognized by their length.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+final class PageCodec {
+  /** Size of the bit mask of an entry. */
+  private static final int MASK = 2;
+  /** Number of node kinds (see {@link org.basex.data.Data}). */
+  private static final int KINDS = 8;
+
+  /** Private constructor. */
+  private PageCodec() { }
+
+  /**
+   * Compresses a page.
+   * @param page page contents
+   * @return compressed page, or the original page if it cannot be compressed
+   */
+  static byte[] encode(final byte[] page) {
+    final int size = IO.BLOCKSIZE;
+    final byte[] delta = new byte[size];
+    final int[] last = new int[KINDS];
+    Arrays.fill(last, -1);
+    for(int e = 0; e < size; e += IO.NODESIZE) {
+      delta[e] = (byte) (e == 0 ? page[e] : page[e] - page[e - IO.NODESIZE]);
+      final int k = page[e] & KINDS - 1, r = last[k];
+      for(int b = e + 1, l = e + IO.NODESIZE; b < l; b++) {
+        delta[b] = (byte) (r == -1 ? page[b] : page[b] - page[r + b - e]);
+      }
+      last[k] = e;
+    }
+
+    // store a bit mask for each entry, followed by the non-zero differences
+    final byte[] packed = new byte[size];
+    int p = 0;
+    for(int e = 0; e < size; e += IO.NODESIZE) {
+      if(p + MASK + IO.NODESIZE >= size) return page;
+      final int m = p;
+      p += MASK;
+      int mask = 0;
+      for(int b = 0; b < IO.NODESIZE; b++) {
+        final byte d = delta[e + b];
+        if(d != 0) {
+          mask |= 1 << b;
+          packed[p++] = d;
+        }
+      }
+      packed[m] = (byte) (mask >>> 8);
+      packed[m + 1] = (byte) mask;
+    }
+    return p < size ? Arrays.copyOf(packed, p) : page;
+  }
+
+  /**
+   * Decompresses a page.
+   * @param packed compressed page (or original page)
+   * @param page target array
+   */
+  static void decode(final byte[] packed, final byte[] page) {
+    final int size = IO.BLOCKSIZE, pl = packed.length;
+    if(pl == size) {
+      System.arraycopy(packed, 0, page, 0, size);
+      return;
+    }
+
+    // restore differences
+    for(int e = 0, p = 0; e < size; e += IO.NODESIZE) {
+      final int mask = (packed[p] & 0xFF) << 8 | packed[p + 1] & 0xFF;
+      p += MASK;
+      for(int b = 0; b < IO.NODESIZE; b++) {
+        page[e + b] = (mask & 1 << b) != 0 ? packed[p++] : 0;
+      }
+    }
+    // restore entries
+    final int[] last = new int[KINDS];
+    Arrays.fill(last, -1);
+    for(int e = 0; e < size; e += IO.NODESIZE) {
+      if(e != 0) page[e] += page[e - IO.NODESIZE];
+      final int k = page[e] & KINDS - 1, r = last[k];
+      if(r != -1) {
+        for(int b = e + 1, l = e + IO.NODESIZE; b < l; b++) page[b] += page[r + b - e];
+      }
+      last[k] = e;
+    }
+  }
+}
@@ -11,6 +11,7 @@ import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
+import org.basex.io.out.*;
 import org.basex.util.*;
 
 /**
@@ -23,12 +24,24 @@ import org.basex.util.*;
 public final class TableDiskAccess extends TableAccess {
   /** Buffer manager. */
   private final Buffers bm = new Buffers();
+  /** Page cache. */
+  private final PageCache cache = PageCache.get();
+  /** File id in the page cache. */
+  private final long id = PageCache.id();
   /** File storing all pages. */
   private final RandomAccessFile file;
   /** Bitmap storing free (=0) and used (=1) pages. */
   private BitArray usedPages;
   /** File lock. */
   private FileLock fl;
+  /** Memory-mapped file ({@code null} if table is not mapped). */
+  private final MappedFile mapped;
+  /** Indicates if updates are pending that have not been flushed to the mapped file yet. */
+  private boolean buffered;
+  /** Write-ahead log ({@code null} if no log is used). */
+  private final WriteAheadLog wal;
+  /** Offsets of evicted pages in the current batch of the log ({@code null} if no log is used). */
+  private final HashMap<Integer, Long> pending;
 
   /** First pre values (ascending order); will be initialized with the first update. */
   private int[] fPreIndex;
@@ -53,7 +66,22 @@ public final class TableDiskAccess extends TableAccess {
    * @throws IOException I/O exception
    */
   public TableDiskAccess(final MetaData md, final boolean write) throws IOException {
+    this(md, write, null);
+  }
+
+  /**
+   * Constructor.
+   * @param md meta data
+   * @param write write lock
+   * @param wal write-ahead log (can be {@code null}). If a log is specified, changed pages will
+   * be added to the log before they are written to disk (see {@link #log(WriteAheadLog)})
+   * @throws IOException I/O exception
+   */
+  public TableDiskAccess(final MetaData md, final boolean write, final WriteAheadLog wal)
+      throws IOException {
     super(md);
+    this.wal = wal;
+    pending = wal != null ? new HashMap<>() : null;
 
     // read meta and index data
     try(DataInput in = new DataInput(meta.dbfile(DATATBL + 'i'))) {
@@ -77,6 +105,7 @@ public final class TableDiskAccess extends TableAccess {
     // initialize data file
     file = new RandomAccessFile(meta.dbfile(DATATBL).file(), "rw");
     if(!lock(write)) throw new BaseXException(Text.DB_PINNED_X, md.name);
+    mapped = md.mmap ? new MappedFile(file.getChannel()) : null;
   }
 
   /**
@@ -99,35 +128,51 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public synchronized void flush(final boolean all) throws IOException {
+    if(pending != null) {
+      // changes must only be written if they have been logged
+      if(!all) return;
+      final byte[] data = new byte[IO.BLOCKSIZE];
+      for(final Map.Entry<Integer, Long> entry : pending.entrySet()) {
+        final int p = entry.getKey();
+        wal.read(entry.getValue(), data, IO.BLOCKSIZE);
+        file.seek((long) p * IO.BLOCKSIZE);
+        file.write(data);
+        cache.write(id, p, data);
+      }
+      pending.clear();
+    }
     for(final Buffer b : bm.all()) write(b);
+    if(mapped != null && buffered) {
+      // all pages have been written: map new pages and switch back to mapped access
+      mapped.map();
+      buffered = false;
+    }
     if(!dirty || !all) return;
 
     try(DataOutput out = new DataOutput(meta.dbfile(DATATBL + 'i'))) {
-      final int p = pages;
-      boolean regular = true;
-
-      // check if page mapping is regular (are all pages used and in ascending order?)
-      if(fPreIndex != null) {
-        regular = p == used;
-        for(int i = 0; i < p; i++) regular &= fPreIndex[i] == i * IO.ENTRIES;
-        for(int i = 0; i < p; i++) regular &= pageIndex[i] == i;
-        if(regular) removeMapping();
-      }
+      writeIndex(out);
+    }
+    dirty = false;
+  }
 
-      if(regular) {
-        // no mapping available or required (see TableOutput#close)
-        out.writeNum(p);
-        out.writeNum(used == 0 ? 0 : Integer.MAX_VALUE);
-      } else {
-        out.writeNum(p);
-        out.writeNum(used);
-        out.writeNum(p);
-        for(int s = 0; s < p; s++) out.writeNum(fPreIndex[s]);
-        out.writeNum(p);
-        for(int s = 0; s < p; s++) out.writeNum(pageIndex[s]);
-        out.writeLongs(usedPages.toArray());
-      }
+  /**
+   * Adds the remaining changed pages and the page index to the specified log.
+   * Evicted pages have already been added to the log.
+   * The changes must be written to disk by calling {@link #flush(boolean)} after the log has been
+   * committed.
+   * @param wal write-ahead log
+   * @throws IOException I/O exception
+   */
+  public synchronized void log(final WriteAheadLog wal) throws IOException {
+    final String name = meta.dbfile(DATATBL).name();
+    for(final Buffer b : bm.all()) {
+      if(b.dirty) wal.page(name, b.pos * IO.BLOCKSIZE, b.data, IO.BLOCKSIZE);
     }
+    if(!dirty) return;
+
+    final ArrayOutput ao = new ArrayOutput();
+    writeIndex(new DataOutput(ao));
+    wal.file(meta.dbfile(DATATBL + 'i').name(), ao.finish());
     dirty = false;
   }
 
@@ -135,6 +180,7 @@ public final class TableDiskAccess extends TableAccess {
   public synchronized void close() throws IOException {
     flush(true);
     file.close();
+    cache.remove(id);
   }
 
   @Override
@@ -152,37 +198,50 @@ public final class TableDiskAccess extends TableAccess {
   }
 
   @Override
-  public synchronized int read1(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
-    return b[o] & 0xFF;
+  public int read1(final int pre, final int off) {
+    if(mapped()) return mapped.read1(position(pre) + off);
+    synchronized(this) {
+      final int o = off + cursor(pre);
+      final byte[] b = bm.current().data;
+      return b[o] & 0xFF;
+    }
   }
 
   @Override
-  public synchronized int read2(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
-    return ((b[o] & 0xFF) << 8) + (b[o + 1] & 0xFF);
+  public int read2(final int pre, final int off) {
+    if(mapped()) return mapped.read2(position(pre) + off);
+    synchronized(this) {
+      final int o = off + cursor(pre);
+      final byte[] b = bm.current().data;
+      return ((b[o] & 0xFF) << 8) + (b[o + 1] & 0xFF);
+    }
   }
 
   @Override
-  public synchronized int read4(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
-    return ((b[o] & 0xFF) << 24) + ((b[o + 1] & 0xFF) << 16) +
-      ((b[o + 2] & 0xFF) << 8) + (b[o + 3] & 0xFF);
+  public int read4(final int pre, final int off) {
+    if(mapped()) return mapped.read4(position(pre) + off);
+    synchronized(this) {
+      final int o = off + cursor(pre);
+      final byte[] b = bm.current().data;
+      return ((b[o] & 0xFF) << 24) + ((b[o + 1] & 0xFF) << 16) +
+        ((b[o + 2] & 0xFF) << 8) + (b[o + 3] & 0xFF);
+    }
   }
 
   @Override
-  public synchronized long read5(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
-    return ((long) (b[o] & 0xFF) << 32) + ((long) (b[o + 1] & 0xFF) << 24) +
-      ((b[o + 2] & 0xFF) << 16) + ((b[o + 3] & 0xFF) << 8) + (b[o + 4] & 0xFF);
+  public long read5(final int pre, final int off) {
+    if(mapped()) return mapped.read5(position(pre) + off);
+    synchronized(this) {
+      final int o = off + cursor(pre);
+      final byte[] b = bm.current().data;
+      return ((long) (b[o] & 0xFF) << 32) + ((long) (b[o + 1] & 0xFF) << 24) +
+        ((b[o + 2] & 0xFF) << 16) + ((b[o + 3] & 0xFF) << 8) + (b[o + 4] & 0xFF);
+    }
   }
 
   @Override
   public void write1(final int pre, final int off, final int v) {
+    buffered = true;
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -192,6 +251,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write2(final int pre, final int off, final int v) {
+    buffered = true;
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -202,6 +262,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write4(final int pre, final int off, final int v) {
+    buffered = true;
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -214,6 +275,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write5(final int pre, final int off, final long v) {
+    buffered = true;
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -434,6 +496,7 @@ public final class TableDiskAccess extends TableAccess {
       usedPages = new BitArray(used, true);
     }
     dirty = true;
+    buffered = true;
   }
 
   @Override
@@ -448,6 +511,36 @@ public final class TableDiskAccess extends TableAccess {
 
   // PRIVATE METHODS ==============================================================================
 
+  /**
+   * Checks if entries can be read from the memory-mapped file.
+   * @return result of check
+   */
+  private boolean mapped() {
+    return mapped != null && !buffered;
+  }
+
+  /**
+   * Returns the file position of the entry for the specified pre value.
+   * In contrast to {@link #cursor(int)}, no page is fetched, and no pointers are changed.
+   * @param pre pre value
+   * @return file position
+   */
+  private long position(final int pre) {
+    if(pre < 0 || pre >= meta.size) throw Util.notExpected(
+        "Data Access out of bounds:\n- pre value: " + pre + "\n- table size: " + meta.size);
+    // no page mapping: entries are stored in ascending order
+    if(fPreIndex == null) return (long) pre << IO.NODEPOWER;
+
+    // find last page with a first pre value that is smaller than or equal to the pre value
+    int l = 0, h = used - 1;
+    while(l < h) {
+      final int m = l + h + 1 >>> 1;
+      if(fPreIndex[m] <= pre) l = m;
+      else h = m - 1;
+    }
+    return (long) pageIndex[l] * IO.BLOCKSIZE + (pre - fPreIndex[l] << IO.NODEPOWER);
+  }
+
   /**
    * Searches for the page containing the entry for the specified pre value.
    * Reads the page and returns its offset inside the page.
@@ -516,13 +609,26 @@ public final class TableDiskAccess extends TableAccess {
 
     final Buffer bf = bm.current();
     try {
-      write(bf);
+      if(pending != null) {
+        // add changed page to the log; it will be written to disk after the log is committed
+        if(bf.dirty) {
+          final String name = meta.dbfile(DATATBL).name();
+          pending.put((int) bf.pos, wal.page(name, bf.pos * IO.BLOCKSIZE, bf.data, IO.BLOCKSIZE));
+        }
+        bf.dirty = false;
+      } else {
+        write(bf);
+      }
       bf.pos = p;
-      if(p >= pages) {
+      final Long off = pending != null ? pending.get(p) : null;
+      if(off != null) {
+        wal.read(off, bf.data, IO.BLOCKSIZE);
+      } else if(p >= pages) {
         pages = p + 1;
-      } else {
+      } else if(!cache.read(id, p, bf.data)) {
         file.seek(bf.pos * IO.BLOCKSIZE);
         file.readFully(bf.data);
+        cache.write(id, p, bf.data);
       }
     } catch(final IOException ex) {
       Util.stack(ex);
@@ -539,9 +645,42 @@ public final class TableDiskAccess extends TableAccess {
 
     file.seek(bf.pos * IO.BLOCKSIZE);
     file.write(bf.data);
+    cache.write(id, bf.pos, bf.data);
     bf.dirty = false;
   }
 
+  /**
+   * Writes the page index.
+   * @param out output stream
+   * @throws IOException I/O exception
+   */
+  private void writeIndex(final DataOutput out) throws IOException {
+    final int p = pages;
+    boolean regular = true;
+
+    // check if page mapping is regular (are all pages used and in ascending order?)
+    if(fPreIndex != null) {
+      regular = p == used;
+      for(int i = 0; i < p; i++) regular &= fPreIndex[i] == i * IO.ENTRIES;
+      for(int i = 0; i < p; i++) regular &= pageIndex[i] == i;
+      if(regular) removeMapping();
+    }
+
+    if(regular) {
+      // no mapping available or required (see TableOutput#close)
+      out.writeNum(p);
+      out.writeNum(used == 0 ? 0 : Integer.MAX_VALUE);
+    } else {
+      out.writeNum(p);
+      out.writeNum(used);
+      out.writeNum(p);
+      for(int s = 0; s < p; s++) out.writeNum(fPreIndex[s]);
+      out.writeNum(p);
+      for(int s = 0; s < p; s++) out.writeNum(pageIndex[s]);
+      out.writeLongs(usedPages.toArray());
+    }
+  }
+
   /**
    * Deletes pages in the page mapping.
    * @param nr number of pages to delete
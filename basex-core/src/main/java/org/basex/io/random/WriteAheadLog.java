@@ -0,0 +1,301 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.io.out.*;
+import org.basex.util.*;
+
+/**
+ * This class provides a write-ahead log for the files of a database.
+ *
+ * While the log is active, modified pages are not written to the database files. Pages that are
+ * evicted from the buffers of a file are appended to the current batch of the log, and they are
+ * read back from the log if they are requested again. When updates are committed, the remaining
+ * changes are appended to the batch, and the log is forced to disk before the database files are
+ * changed. If the process is interrupted, committed batches will be replayed when the database
+ * is opened again, and uncommitted changes will be discarded.
+ *
+ * The log is truncated when it exceeds a maximum size, and it is deleted when the database is
+ * closed. Before that, all database files that have been changed are forced to disk. If this
+ * fails, the log is kept and will be replayed when the database is opened again.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class WriteAheadLog implements Closeable {
+  /** Record type: page of a file. */
+  private static final int PAGE = 0;
+  /** Record type: length of a file. */
+  private static final int LENGTH = 1;
+  /** Record type: complete file. */
+  private static final int FILE = 2;
+  /** Maximum size of the log before a checkpoint is performed. */
+  private static final long MAX = 1 << 26;
+
+  /** Log file. */
+  private final IOFile file;
+  /** Log file access. */
+  private final RandomAccessFile raf;
+  /** Checksum of the current batch. */
+  private final CRC32 crc = new CRC32();
+  /** Output stream for the current batch (writes to the current position of the log file). */
+  private final DataOutput out;
+  /** Complete files of the current batch. */
+  private final HashMap<String, byte[]> files = new HashMap<>();
+  /** Names of the database files that have been changed since the log was truncated. */
+  private final HashSet<String> changed = new HashSet<>();
+  /** Offset of the current batch in the log file ({@code -1}: no batch has been started). */
+  private long start = -1;
+  /** Number of bytes written to the output stream before the current batch was started. */
+  private long base;
+
+  /**
+   * Constructor. Creates a new log file.
+   * @param file log file
+   * @throws IOException I/O exception
+   */
+  public WriteAheadLog(final IOFile file) throws IOException {
+    this.file = file;
+    raf = new RandomAccessFile(file.file(), "rw");
+    raf.setLength(0);
+    out = new DataOutput(new BufferOutput(
+        new CheckedOutputStream(new FileOutputStream(raf.getFD()), crc)));
+  }
+
+  /**
+   * Adds a page of a database file to the current batch.
+   * @param name name of database file
+   * @param pos file position
+   * @param data page data
+   * @param len number of bytes to write
+   * @return offset of the page data in the log (see {@link #read(long, byte[], int)}),
+   *   or {@code -1} if no data was written
+   * @throws IOException I/O exception
+   */
+  public synchronized long page(final String name, final long pos, final byte[] data,
+      final int len) throws IOException {
+    if(len <= 0) return -1;
+    begin(name);
+    out.write(PAGE);
+    out.writeToken(Token.token(name));
+    out.write5(pos);
+    out.writeNum(len);
+    final long off = start + 4 + out.size() - base;
+    out.write(data, 0, len);
+    return off;
+  }
+
+  /**
+   * Reads page data that has been added to the current batch.
+   * @param off offset of the page data in the log
+   * @param data target array
+   * @param len number of bytes to read
+   * @throws IOException I/O exception
+   */
+  public synchronized void read(final long off, final byte[] data, final int len)
+      throws IOException {
+    out.flush();
+    // positional reads: the file pointer of the log will not be changed
+    final FileChannel fc = raf.getChannel();
+    final ByteBuffer bb = ByteBuffer.wrap(data, 0, len);
+    for(long o = off; bb.hasRemaining();) {
+      final int r = fc.read(bb, o);
+      if(r == -1) throw new EOFException();
+      o += r;
+    }
+  }
+
+  /**
+   * Adds the length of a database file to the current batch.
+   * @param name name of database file
+   * @param length file length
+   * @throws IOException I/O exception
+   */
+  public synchronized void length(final String name, final long length) throws IOException {
+    begin(name);
+    out.write(LENGTH);
+    out.writeToken(Token.token(name));
+    out.write5(length);
+  }
+
+  /**
+   * Adds the contents of a database file to the current batch.
+   * The file will be written by {@link #commit()}.
+   * @param name name of database file
+   * @param contents file contents
+   * @throws IOException I/O exception
+   */
+  public synchronized void file(final String name, final byte[] contents) throws IOException {
+    begin(name);
+    out.write(FILE);
+    out.writeToken(Token.token(name));
+    out.writeNum(contents.length);
+    out.writeBytes(contents);
+    files.put(name, contents);
+  }
+
+  /**
+   * Appends the current batch to the log and forces it to disk. Afterwards, complete files of
+   * the batch are written to the database directory. Pages and file lengths must be written by
+   * the caller.
+   * @throws IOException I/O exception
+   */
+  public synchronized void commit() throws IOException {
+    if(start == -1) return;
+
+    // finalize the batch: append checksum, replace placeholder with batch length
+    out.flush();
+    final long end = raf.getFilePointer();
+    raf.writeLong(crc.getValue());
+    raf.seek(start);
+    raf.writeInt((int) (end - start - 4));
+    raf.getChannel().force(false);
+    raf.seek(raf.length());
+    start = -1;
+
+    for(final Map.Entry<String, byte[]> entry : files.entrySet()) {
+      new IOFile(file.dir(), entry.getKey()).write(entry.getValue());
+    }
+    files.clear();
+  }
+
+  /**
+   * Performs a checkpoint if the log exceeds its maximum size.
+   * Must be called after the committed changes have been written to the database files.
+   * @throws IOException I/O exception
+   */
+  public synchronized void checkpoint() throws IOException {
+    if(raf.length() > MAX) truncate();
+  }
+
+  /**
+   * Forces the changed database files to disk and truncates the log.
+   * Must be called after the committed changes have been written to the database files.
+   * @throws IOException I/O exception
+   */
+  public synchronized void truncate() throws IOException {
+    if(raf.length() == 0) return;
+    sync(file, changed);
+    changed.clear();
+    raf.setLength(0);
+    raf.getChannel().force(false);
+  }
+
+  /**
+   * Forces the changed database files to disk and deletes the log.
+   * Must be called after all changes have been written to the database files.
+   * If the files cannot be forced to disk, the log will be kept.
+   */
+  @Override
+  public synchronized void close() {
+    boolean synced = false;
+    try {
+      sync(file, changed);
+      synced = true;
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+    try {
+      raf.close();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+    if(synced) file.delete();
+  }
+
+  /**
+   * Replays all committed batches of a log file and deletes the file.
+   * An incomplete batch at the end of the log will be ignored.
+   * @param file log file
+   * @return {@code true} if a log file was found
+   * @throws IOException I/O exception
+   */
+  public static boolean replay(final IOFile file) throws IOException {
+    if(!file.exists()) return false;
+
+    final HashMap<String, RandomAccessFile> targets = new HashMap<>();
+    final HashSet<String> names = new HashSet<>();
+    try(RandomAccessFile log = new RandomAccessFile(file.file(), "r")) {
+      final long length = log.length();
+      while(log.getFilePointer() + 12 <= length) {
+        final int bl = log.readInt();
+        if(bl < 0 || log.getFilePointer() + bl + 8 > length) break;
+        final byte[] batch = new byte[bl];
+        log.readFully(batch);
+        final CRC32 crc = new CRC32();
+        crc.update(batch);
+        if(crc.getValue() != log.readLong()) break;
+
+        final DataInput in = new DataInput(new IOContent(batch));
+        for(int type; (type = in.read()) != -1;) {
+          final String name = Token.string(in.readToken());
+          names.add(name);
+          if(type == FILE) {
+            final byte[] contents = new byte[in.readNum()];
+            for(int c = 0; c < contents.length; c++) contents[c] = (byte) in.read();
+            new IOFile(file.dir(), name).write(contents);
+            continue;
+          }
+          RandomAccessFile target = targets.get(name);
+          if(target == null) {
+            target = new RandomAccessFile(new IOFile(file.dir(), name).file(), "rw");
+            targets.put(name, target);
+          }
+          final long pos = in.read5();
+          if(type == LENGTH) {
+            target.setLength(pos);
+          } else {
+            final byte[] data = new byte[in.readNum()];
+            for(int d = 0; d < data.length; d++) data[d] = (byte) in.read();
+            target.seek(pos);
+            target.write(data);
+          }
+        }
+      }
+    } finally {
+      for(final RandomAccessFile target : targets.values()) target.close();
+    }
+    sync(file, names);
+    file.delete();
+    return true;
+  }
+
+  /**
+   * Starts a new batch if no batch is active. A placeholder is written for the batch length:
+   * if the batch is not committed, it will be ignored when the log is replayed.
+   * @param name name of the database file that will be changed
+   * @throws IOException I/O exception
+   */
+  private void begin(final String name) throws IOException {
+    changed.add(name);
+    if(start != -1) return;
+    start = raf.length();
+    raf.seek(start);
+    raf.writeInt(-1);
+    base = out.size();
+    crc.reset();
+  }
+
+  /**
+   * Forces the specified files in the directory of the log to disk.
+   * @param file log file
+   * @param names names of the files
+   * @throws IOException I/O exception
+   */
+  private static void sync(final IOFile file, final Set<String> names) throws IOException {
+    for(final String name : names) {
+      final IOFile child = new IOFile(file.dir(), name);
+      if(!child.exists()) continue;
+      try(RandomAccessFile raf = new RandomAccessFile(child.file(), "rw")) {
+        raf.getChannel().force(true);
+      }
+    }
+  }
+}
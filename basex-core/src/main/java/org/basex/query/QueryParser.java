@@ -55,6 +55,10 @@ public class QueryParser extends InputParser {
   private static final byte[] URICHECK = {};
   /** QName check: skip namespace check. */
   private static final byte[] SKIPCHECK = {};
+  /** Initial characters of comparison operators. */
+  private static final String CMPCHARS = "=!<>eilgn";
+  /** Initial characters of initial FLWOR clauses. */
+  private static final String CLAUSECHARS = "fl";
   /** Reserved function names. */
   private static final TokenSet KEYWORDS = new TokenSet();
   /** Decimal declarations. */
@@ -955,6 +959,10 @@ public class QueryParser extends InputParser {
    */
   private Expr single() throws QueryException {
     alter = null;
+    // skip expressions that start with a keyword
+    skipWs();
+    if(!XMLToken.isNCStartChar(curr())) return ternaryIf();
+
     Expr ex = flwor();
     if(ex == null) ex = quantified();
     if(ex == null) ex = switchh();
@@ -1075,6 +1083,8 @@ public class QueryParser extends InputParser {
    */
   private LinkedList<Clause> initialClause(final LinkedList<Clause> clauses) throws QueryException {
     LinkedList<Clause> cls = clauses;
+    if(!wsCurr(CLAUSECHARS)) return cls;
+
     // WindowClause
     final boolean slide = wsConsumeWs(FOR, SLIDING, NOWINDOW);
     if(slide || wsConsumeWs(FOR, TUMBLING, NOWINDOW)) {
@@ -1459,7 +1469,7 @@ public class QueryParser extends InputParser {
    */
   private Expr comparison() throws QueryException {
     final Expr ex = ftContains();
-    if(ex != null) {
+    if(ex != null && wsCurr(CMPCHARS)) {
       for(final OpV c : OpV.VALUES) {
         if(wsConsumeWs(c.name))
           return new CmpV(ex, check(ftContains(), CMPEXPR), c, sc.collation, sc, info());
@@ -4042,6 +4052,18 @@ public class QueryParser extends InputParser {
     return consume(string);
   }
 
+  /**
+   * Skips whitespaces and checks if the current character is one of the specified characters.
+   * @param chars characters
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  private boolean wsCurr(final String chars) throws QueryException {
+    skipWs();
+    final char ch = curr();
+    return ch != 0 && chars.indexOf(ch) != -1;
+  }
+
   /**
    * Consumes all whitespace characters from the remaining query.
    * @return true if whitespaces were found
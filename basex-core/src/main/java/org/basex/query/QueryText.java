@@ -199,6 +199,7 @@ public interface QueryText {
   /** Parser token. */ String READ_LOCK = "read-lock";
   /** Parser token. */ String WRITE_LOCK = "write-lock";
   /** Parser token. */ String NON_DETERMNISTIC = "non-deterministic";
+  /** Parser token. */ String PARALLEL = "parallel";
 
   // PARSER KEYWORDS (IGNORED BY THE SYNTAX HIGHLIGHTER) ==========================================
 
@@ -16,6 +16,8 @@ import org.basex.util.*;
 public final class BaseXPragma extends Pragma {
   /** Non-deterministic flag. */
   private final boolean ndt;
+  /** Number of threads for parallel evaluation. */
+  private final int threads;
 
   /**
    * Constructor.
@@ -25,6 +27,13 @@ public final class BaseXPragma extends Pragma {
   public BaseXPragma(final QNm name, final byte[] value) {
     super(name, value);
     ndt = Token.eq(name.local(), Token.token(QueryText.NON_DETERMNISTIC));
+    if(Token.eq(name.local(), Token.token(QueryText.PARALLEL))) {
+      // use all available processors if no valid number is specified
+      final int t = Token.toInt(value);
+      threads = t > 0 ? t : Runtime.getRuntime().availableProcessors();
+    } else {
+      threads = 1;
+    }
   }
 
   @Override
@@ -36,6 +45,11 @@ public final class BaseXPragma extends Pragma {
   void finish(final QueryContext qc, final Object state) {
   }
 
+  @Override
+  int threads() {
+    return threads;
+  }
+
   @Override
   public boolean has(final Flag... flags) {
     return Flag.NDT.in(flags) && ndt;
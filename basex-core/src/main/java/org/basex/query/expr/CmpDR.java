@@ -0,0 +1,251 @@
+package org.basex.query.expr;
+
+import static org.basex.query.QueryError.*;
+import static org.basex.query.QueryText.*;
+
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.query.*;
+import org.basex.query.expr.index.*;
+import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+
+/**
+ * Date range expression.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class CmpDR extends Single {
+  /** Minimum (can be {@code null} if {@link #max} is assigned). */
+  private final ADate min;
+  /** Include minimum value. */
+  private final boolean mni;
+  /** Maximum (can be {@code null} if {@link #min} is assigned). */
+  private final ADate max;
+  /** Include maximum value. */
+  private final boolean mxi;
+  /** Type of the dates. */
+  private final Type type;
+
+  /** Flag for atomic evaluation. */
+  private boolean single;
+
+  /**
+   * Constructor.
+   * @param expr (compiled) expression
+   * @param min minimum value (can be {@code null} if {@code max} is assigned)
+   * @param mni include minimum value
+   * @param max maximum value (can be {@code null} if {@code min} is assigned)
+   * @param mxi include maximum value
+   * @param info input info
+   */
+  private CmpDR(final Expr expr, final ADate min, final boolean mni, final ADate max,
+      final boolean mxi, final InputInfo info) {
+
+    super(info, expr, SeqType.BLN_O);
+    this.min = min;
+    this.mni = mni;
+    this.max = max;
+    this.mxi = mxi;
+    type = (min != null ? min : max).type;
+  }
+
+  @Override
+  public Expr compile(final CompileContext cc) throws QueryException {
+    return super.compile(cc).optimize(cc);
+  }
+
+  @Override
+  public Expr optimize(final CompileContext cc) throws QueryException {
+    final SeqType st = expr.seqType();
+    single = st.zeroOrOne() && !st.mayBeArray();
+
+    return expr instanceof Value ? cc.preEval(this) : this;
+  }
+
+  /**
+   * Tries to convert the specified expression into a range expression.
+   * @param cmp expression to be converted
+   * @param cc compilation context
+   * @return new or original expression
+   * @throws QueryException query exception
+   */
+  static Expr get(final CmpG cmp, final CompileContext cc) throws QueryException {
+    // only rewrite comparisons of untyped input with dates or dates with times
+    final Expr cmp1 = cmp.exprs[0], cmp2 = cmp.exprs[1];
+    if(cmp1.has(Flag.NDT) || !cmp1.seqType().type.isUntyped() || !(cmp2 instanceof ADate))
+      return cmp;
+    final ADate d = (ADate) cmp2;
+    if(d.type != AtomType.DAT && d.type != AtomType.DTM) return cmp;
+
+    ParseExpr expr = null;
+    switch(cmp.op.opV) {
+      case GE: expr = new CmpDR(cmp1, d,    true,  null, true,  cmp.info); break;
+      case GT: expr = new CmpDR(cmp1, d,    false, null, true,  cmp.info); break;
+      case LE: expr = new CmpDR(cmp1, null, true,  d,    true,  cmp.info); break;
+      case LT: expr = new CmpDR(cmp1, null, true,  d,    false, cmp.info); break;
+      default:
+    }
+    return expr != null ? expr.optimize(cc) : cmp;
+  }
+
+  @Override
+  public Bln item(final QueryContext qc, final InputInfo ii) throws QueryException {
+    // atomic evaluation of arguments (faster)
+    if(single) {
+      final Item item = expr.item(qc, info);
+      return Bln.get(item != Empty.VALUE && eval(item));
+    }
+
+    // iterative evaluation
+    final Iter iter = expr.atomIter(qc, info);
+    for(Item item; (item = qc.next(iter)) != null;) {
+      if(eval(item)) return Bln.TRUE;
+    }
+    return Bln.FALSE;
+  }
+
+  /**
+   * Evaluates the range for the specified item.
+   * @param item item to be evaluated
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  private boolean eval(final Item item) throws QueryException {
+    final Item it = item.type.isUntyped() ? (Item) type.cast(item, null, null, info) : item;
+    if(it.type != type) throw diffError(item, min != null ? min : max, info);
+    final int mn = min == null ?  1 : it.diff(min, null, info);
+    final int mx = max == null ? -1 : it.diff(max, null, info);
+    return (mni ? mn >= 0 : mn > 0) && (mxi ? mx <= 0 : mx < 0);
+  }
+
+  @Override
+  public Expr merge(final Expr ex, final boolean union, final CompileContext cc)
+      throws QueryException {
+    if(union || !(ex instanceof CmpDR)) return null;
+
+    // skip intersection if expressions to be compared or types of the dates are different
+    final CmpDR cmp = (CmpDR) ex;
+    if(!expr.equals(cmp.expr) || type != cmp.type || hasTz() != cmp.hasTz()) return null;
+
+    // find common minimum and maximum value
+    final ADate mn;
+    final boolean mnin;
+    if(min == null || cmp.min == null) {
+      mn = min == null ? cmp.min : min;
+      mnin = min == null ? cmp.mni : mni;
+    } else {
+      final int d = min.diff(cmp.min, null, info);
+      mn = d < 0 ? cmp.min : min;
+      mnin = d < 0 ? cmp.mni : d > 0 ? mni : mni && cmp.mni;
+    }
+    final ADate mx;
+    final boolean mxin;
+    if(max == null || cmp.max == null) {
+      mx = max == null ? cmp.max : max;
+      mxin = max == null ? cmp.mxi : mxi;
+    } else {
+      final int d = max.diff(cmp.max, null, info);
+      mx = d > 0 ? cmp.max : max;
+      mxin = d > 0 ? cmp.mxi : d < 0 ? mxi : mxi && cmp.mxi;
+    }
+
+    if(mn != null && mx != null) {
+      final int d = mn.diff(mx, null, info);
+      // remove comparisons that will never yield results
+      if(d > 0 || d == 0 && !(mnin && mxin)) return Bln.FALSE;
+    }
+    return new CmpDR(expr, mn, mnin, mx, mxin, info).optimize(cc);
+  }
+
+  /**
+   * Indicates if the dates of the range have a time zone.
+   * @return result of check
+   */
+  private boolean hasTz() {
+    return (min != null ? min : max).hasTz();
+  }
+
+  @Override
+  public boolean indexAccessible(final IndexInfo ii) {
+    // accept only location path, string and equality expressions
+    final Data data = ii.db.data();
+    // sequential main memory scan is usually faster than range index access
+    if(data == null ? !ii.enforce() : data.inMemory()) return false;
+
+    // skip dates that are too long to be indexed
+    if(data != null && (length(min) > data.meta.maxlen || length(max) > data.meta.maxlen))
+      return false;
+
+    final IndexType it = ii.type(expr, null);
+    if(it == null) return false;
+
+    // create range access; no costs will be returned if the order of the keys is ambiguous, or
+    // if values of the compared nodes cannot be converted (sequential evaluation raises errors)
+    final DateRange dr = new DateRange(it, min, mni, max, mxi, CmpR.name(ii, it, expr));
+    ii.costs = ii.costs(data, dr);
+    if(ii.costs == null) return false;
+
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add(mni ? '[' : '(').add(min == null ? "" : min.toString()).add(',');
+    tb.add(max == null ? "" : max.toString()).add(mxi ? ']' : ')');
+    ii.create(new DateRangeAccess(info, dr, ii.db), true,
+        Util.info(OPTINDEX_X_X, it + " date range", tb), info);
+    return true;
+  }
+
+  /**
+   * Returns the string length of a date.
+   * @param date date (can be {@code null})
+   * @return length
+   */
+  private static int length(final ADate date) {
+    return date == null ? 0 : date.string(null).length;
+  }
+
+  @Override
+  public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
+    final CmpDR cmp = new CmpDR(expr.copy(cc, vm), min, mni, max, mxi, info);
+    cmp.single = single;
+    return cmp;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if(this == obj) return true;
+    if(!(obj instanceof CmpDR)) return false;
+    final CmpDR c = (CmpDR) obj;
+    return Objects.equals(min, c.min) && mni == c.mni && Objects.equals(max, c.max) &&
+        mxi == c.mxi && super.equals(obj);
+  }
+
+  @Override
+  public String description() {
+    return "date range comparison";
+  }
+
+  @Override
+  public void plan(final QueryPlan plan) {
+    plan.add(plan.create(this, MIN, min, MAX, max, SINGLE, single), expr);
+  }
+
+  @Override
+  public String toString() {
+    final TokenBuilder tb = new TokenBuilder().add(PAREN1);
+    if(min != null) tb.add(expr).add(mni ? " >= " : " > ").add(min);
+    if(min != null && max != null) tb.add(' ').add(AND).add(' ');
+    if(max != null) tb.add(expr).add(mxi ? " <= " : " < ").add(max);
+    return tb.add(PAREN2).toString();
+  }
+}
@@ -166,6 +166,7 @@ public class CmpG extends Cmp {
       if(expr == this) expr = CmpIR.get(this, cc);
       if(expr == this) expr = CmpR.get(this, cc);
       if(expr == this) expr = CmpSR.get(this, cc);
+      if(expr == this) expr = CmpDR.get(this, cc);
 
       if(expr == this) {
         final Expr expr1 = exprs[0], expr2 = exprs[1];
@@ -2,7 +2,6 @@ package org.basex.query.expr;
 
 import static java.lang.Double.*;
 import static org.basex.query.QueryText.*;
-import static org.basex.util.Token.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
@@ -200,15 +199,6 @@ public final class CmpR extends Single {
     ii.costs = ii.costs(data, nr);
     if(ii.costs == null) return false;
 
-    // skip if numbers are negative, doubles, or of different string length
-    final int mnl = min >= 0 && (long) min == min ? token(min).length : -1;
-    final int mxl = max >= 0 && (long) max == max ? token(max).length : -1;
-    if(mnl != mxl || mnl == -1) return false;
-
-    // don't use index if min/max values are infinite
-    if(min == NEGATIVE_INFINITY && max == POSITIVE_INFINITY ||
-        token((int) nr.min).length != token((int) nr.max).length) return false;
-
     final TokenBuilder tb = new TokenBuilder();
     tb.add('[').add(min).add(',').add(max).add(']');
     ii.create(new RangeAccess(info, nr, ii.db), true, Util.info(OPTINDEX_X_X, "range", tb), info);
@@ -224,8 +214,25 @@ public final class CmpR extends Single {
   private Stats key(final IndexInfo ii, final IndexType type) {
     // statistics are not up-to-date
     final Data data = ii.db.data();
-    if(data == null || !data.meta.uptodate || !data.nspaces.isEmpty() ||
-        !(expr instanceof AxisPath)) return null;
+    if(data == null || !data.meta.uptodate) return null;
+    final int name = name(ii, type, expr);
+    if(name == 0) return null;
+
+    final Names names = type == IndexType.TEXT ? data.elemNames : data.attrNames;
+    final Stats stats = names.stats(name);
+    return stats == null || StatsType.isNumeric(stats.type) ? stats : null;
+  }
+
+  /**
+   * Returns the id of the element or attribute name whose values are compared.
+   * @param ii index info
+   * @param type index type
+   * @param expr expression to be compared
+   * @return name id, or {@code 0} if the name is unknown
+   */
+  static int name(final IndexInfo ii, final IndexType type, final Expr expr) {
+    final Data data = ii.db.data();
+    if(data == null || !data.nspaces.isEmpty() || !(expr instanceof AxisPath)) return 0;
 
     NameTest test = ii.test;
     if(test == null) {
@@ -234,17 +241,16 @@ public final class CmpR extends Single {
       final int st = path.steps.length - 1;
       if(type == IndexType.TEXT) {
         step = st == 0 ? ii.step : path.step(st - 1);
-        if(step.test.kind != Kind.NAME) return null;
+        if(step.test.kind != Kind.NAME) return 0;
       } else {
         step = path.step(st);
-        if(!step.simple(Axis.ATTRIBUTE, true)) return null;
+        if(!step.simple(Axis.ATTRIBUTE, true)) return 0;
       }
       test = (NameTest) step.test;
     }
 
     final Names names = type == IndexType.TEXT ? data.elemNames : data.attrNames;
-    final Stats stats = names.stats(names.id(test.name.local()));
-    return stats == null || StatsType.isNumeric(stats.type) ? stats : null;
+    return names.id(test.name.local());
   }
 
   @Override
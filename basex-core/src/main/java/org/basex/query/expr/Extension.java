@@ -3,6 +3,7 @@ package org.basex.query.expr;
 import static org.basex.query.QueryText.*;
 
 import org.basex.query.*;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.type.*;
@@ -38,6 +39,7 @@ public final class Extension extends Single {
 
   @Override
   public Expr compile(final CompileContext cc) throws QueryException {
+    if(pragma.threads() > 1 && expr instanceof GFLWOR) ((GFLWOR) expr).parallel();
     final Object state = pragma.init(cc.qc, info);
     try {
       expr = expr.compile(cc);
@@ -56,7 +58,9 @@ public final class Extension extends Single {
   public Value value(final QueryContext qc) throws QueryException {
     final Object state = pragma.init(qc, info);
     try {
-      return expr.value(qc);
+      final int threads = pragma.threads();
+      return threads > 1 && expr instanceof GFLWOR ? ((GFLWOR) expr).value(qc, threads) :
+        expr.value(qc);
     } finally {
       pragma.finish(qc, state);
     }
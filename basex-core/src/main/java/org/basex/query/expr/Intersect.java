@@ -68,9 +68,9 @@ public final class Intersect extends Set {
         for(int i = 1; i < il;) {
           final int d = nodes[0].diff(nodes[i]);
           if(d > 0) {
-            if(!next(i)) return null;
+            if(!skip(i, nodes[0])) return null;
           } else if(d < 0) {
-            if(!next(0)) return null;
+            if(!skip(0, nodes[i])) return null;
             i = 1;
           } else {
             ++i;
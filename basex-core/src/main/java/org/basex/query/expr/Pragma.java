@@ -52,6 +52,14 @@ public abstract class Pragma extends ExprInfo {
    */
   abstract void accept(ASTVisitor visitor);
 
+  /**
+   * Returns the number of threads that may be used for evaluating the enclosed expression.
+   * @return number of threads
+   */
+  int threads() {
+    return 1;
+  }
+
   /**
    * Indicates if an expression has one of the specified compiler properties.
    * @param flags flag to be checked
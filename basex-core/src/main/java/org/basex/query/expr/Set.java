@@ -136,5 +136,24 @@ abstract class Set extends Arr {
       nodes[i] = toNode(item);
       return true;
     }
+
+    /**
+     * Sets the next iterator item that is identical to or follows the specified node.
+     * @param i index
+     * @param node node
+     * @return true if another item was found
+     * @throws QueryException query exception
+     */
+    final boolean skip(final int i, final ANode node) throws QueryException {
+      if(!(iter[i] instanceof NodeIter)) {
+        while(next(i)) {
+          if(nodes[i].diff(node) >= 0) return true;
+        }
+        return false;
+      }
+      qc.checkStop();
+      nodes[i] = ((NodeIter) iter[i]).skip(node);
+      return nodes[i] != null;
+    }
   }
 }
@@ -71,10 +71,11 @@ public final class FTAnd extends FTExpr {
         for(int i = 0; i < il; ++i) {
           if(nodes[i] == null) return null;
 
-          final int d = nodes[0].pre() - nodes[i].pre();
-          if(d != 0) {
-            if(d < 0) i = 0;
-            nodes[i] = iters[i].next();
+          final int pre0 = nodes[0].pre(), pre = nodes[i].pre();
+          if(pre0 != pre) {
+            // skip the results of the iterator with the smaller pre value
+            if(pre0 < pre) nodes[0] = iters[0].skip(pre);
+            else nodes[i] = iters[i].skip(pre0);
             i = -1;
           }
         }
@@ -51,13 +51,27 @@ public abstract class FTFilter extends FTExpr {
     return new FTIter() {
       @Override
       public FTNode next() throws QueryException {
-        FTNode it;
-        while((it = iter.next()) != null) {
+        return filtered(iter.next());
+      }
+
+      @Override
+      public FTNode skip(final int pre) throws QueryException {
+        return filtered(iter.skip(pre));
+      }
+
+      /**
+       * Returns the specified node or the next node that passes the filters.
+       * @param node node (can be {@code null})
+       * @return node or {@code null}
+       * @throws QueryException query exception
+       */
+      private FTNode filtered(final FTNode node) throws QueryException {
+        for(FTNode it = node; it != null; it = iter.next()) {
           qc.checkStop();
           // only create lexer if content needs to be parsed
-          if(filter(qc, it, content() ? new FTLexer().init(it.string(info)) : null)) break;
+          if(filter(qc, it, content() ? new FTLexer().init(it.string(info)) : null)) return it;
         }
-        return it;
+        return null;
       }
     };
   }
@@ -136,6 +136,28 @@ public final class FTWords extends FTExpr {
 
       @Override
       public FTNode next() throws QueryException {
+        return prepare() && ftiter.more() ? node() : null;
+      }
+
+      @Override
+      public FTNode skip(final int pre) throws QueryException {
+        return prepare() && ftiter.skip(pre) ? node() : null;
+      }
+
+      /**
+       * Returns a node for the current index result.
+       * @return node
+       */
+      private FTNode node() {
+        return new FTNode(ftiter.matches(), data, ftiter.pre(), length, ftiter.size());
+      }
+
+      /**
+       * Initializes the index iterator.
+       * @return {@code true} if the index iterator may return results
+       * @throws QueryException query exception
+       */
+      private boolean prepare() throws QueryException {
         if(ftiter == null) {
           final FTTokenizer ftt = FTWords.this.get(qc);
           final FTLexer lexer = new FTLexer(ftOpt).
@@ -146,7 +168,7 @@ public final class FTWords extends FTExpr {
           // loop through unique tokens
           for(final byte[] txt : unique(tokens != null ? tokens : tokens(qc))) {
             lexer.init(txt);
-            if(!lexer.hasNext()) return null;
+            if(!lexer.hasNext()) return false;
 
             int d = 0;
             FTIndexIterator ii = null;
@@ -175,7 +197,7 @@ public final class FTWords extends FTExpr {
                 length = len;
                 ftiter = ii;
               } else if(mode == FTMode.ALL || mode == FTMode.ALL_WORDS) {
-                if(ii.size() == 0) return null;
+                if(ii.size() == 0) return false;
                 length += len;
                 ftiter = FTIndexIterator.intersect(ftiter, ii, 0);
               } else {
@@ -186,8 +208,7 @@ public final class FTWords extends FTExpr {
             }
           }
         }
-        return ftiter == null || !ftiter.more() ? null :
-          new FTNode(ftiter.matches(), data, ftiter.pre(), length, ftiter.size());
+        return ftiter != null;
       }
     };
   }
@@ -1,6 +1,7 @@
 package org.basex.query.expr.gflwor;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.*;
 
 import org.basex.query.*;
@@ -29,6 +30,8 @@ public final class GFLWOR extends ParseExpr {
   public final LinkedList<Clause> clauses;
   /** Return expression. */
   public Expr rtrn;
+  /** Indicates if the expression will be evaluated in parallel. */
+  private boolean parallel;
 
   /**
    * Constructor.
@@ -81,6 +84,114 @@ public final class GFLWOR extends ParseExpr {
     return vb.value(this);
   }
 
+  /**
+   * Marks the expression for parallel evaluation. 'where' clauses will not be rewritten to
+   * predicates, as the predicates of the initial 'for' clause would be evaluated sequentially.
+   */
+  public void parallel() {
+    parallel = true;
+  }
+
+  /**
+   * Evaluates the expression in parallel. The items of the initial 'for' clause are partitioned,
+   * and the remaining clauses and the return expression are evaluated for each partition in a
+   * separate query context. The results are returned in their original order.
+   * The expression is evaluated sequentially if it does not start with a 'for' clause, if it
+   * contains other clauses than 'for', 'let' and 'where', or if it is updating.
+   * @param qc query context
+   * @param threads maximum number of threads
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  public Value value(final QueryContext qc, final int threads) throws QueryException {
+    final Clause first = clauses.getFirst();
+    if(!(first instanceof For) || !isFLW() || has(Flag.UPD)) return value(qc);
+    final For fr = (For) first;
+    if(fr.score != null || fr.empty) return value(qc);
+
+    final Value value = fr.expr.value(qc);
+    final long size = value.size();
+    final int parts = (int) Math.min(threads, size);
+    if(parts < 2) return value(qc, fr, value, 0, size);
+
+    // create query contexts in the calling thread, as they will be registered as child jobs
+    final QueryContext[] qcs = new QueryContext[parts];
+    for(int p = 0; p < parts; p++) {
+      final QueryContext pqc = new QueryContext(qc);
+      pqc.stack.enterFrame(qc.stack);
+      pqc.focus = qc.focus.copy();
+      pqc.dateTime = qc.dateTime();
+      qcs[p] = pqc;
+    }
+
+    // evaluate partitions in the shared worker pool
+    final ForkJoinPool pool = qc.context.jobs.workers();
+    final ArrayList<ForkJoinTask<Value>> tasks = new ArrayList<>(parts);
+    try {
+      for(int p = 0; p < parts; p++) {
+        final QueryContext pqc = qcs[p];
+        final long start = size * p / parts, end = size * (p + 1) / parts;
+        tasks.add(pool.submit(() -> value(pqc, fr, value, start, end)));
+      }
+      final ValueBuilder vb = new ValueBuilder(qc);
+      for(final ForkJoinTask<Value> task : tasks) {
+        try {
+          vb.add(task.get());
+        } catch(final ExecutionException ex) {
+          // pass on query exceptions and errors in the order of the partitions
+          final Throwable th = Util.rootException(ex);
+          if(th instanceof QueryException) throw (QueryException) th;
+          if(th instanceof RuntimeException) throw (RuntimeException) th;
+          if(th instanceof Error) throw (Error) th;
+          throw Util.notExpected(th);
+        } catch(final InterruptedException ex) {
+          throw Util.notExpected(ex);
+        }
+      }
+      return vb.value(this);
+    } finally {
+      // stop remaining evaluations (relevant if an error was raised) and wait for termination
+      for(final QueryContext pqc : qcs) pqc.stop();
+      for(final ForkJoinTask<Value> task : tasks) task.quietlyJoin();
+      for(int p = parts - 1; p >= 0; p--) qcs[p].close();
+    }
+  }
+
+  /**
+   * Evaluates the expression for a range of the items of the initial 'for' clause.
+   * @param qc query context
+   * @param fr initial 'for' clause
+   * @param value items of the 'for' clause
+   * @param start index of the first item
+   * @param end index after the last item
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  private Value value(final QueryContext qc, final For fr, final Value value, final long start,
+      final long end) throws QueryException {
+
+    Eval eval = new Eval() {
+      /** Current index. */
+      private long i = start;
+
+      @Override
+      boolean next(final QueryContext q) throws QueryException {
+        if(i == end) return false;
+        q.checkStop();
+        q.set(fr.var, value.itemAt(i));
+        if(fr.pos != null) q.set(fr.pos, Int.get(i + 1));
+        i++;
+        return true;
+      }
+    };
+    final Iterator<Clause> iter = clauses.iterator();
+    for(iter.next(); iter.hasNext();) eval = iter.next().eval(eval);
+
+    final ValueBuilder vb = new ValueBuilder(qc);
+    while(eval.next(qc)) vb.add(rtrn.value(qc));
+    return vb.value();
+  }
+
   @Override
   public Expr compile(final CompileContext cc) throws QueryException {
     final ListIterator<Clause> iter = clauses.listIterator();
@@ -512,7 +623,7 @@ public final class GFLWOR extends ParseExpr {
 
         // try to rewrite where clause to predicate
         final int newPos = insert < 0 ? i : insert;
-        for(int b4 = newPos; --b4 >= 0;) {
+        for(int b4 = parallel ? -1 : newPos; --b4 >= 0;) {
           final Clause before = clauses.get(b4);
           if(before instanceof For) {
             final For fr = (For) before;
@@ -858,7 +969,9 @@ public final class GFLWOR extends ParseExpr {
   public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
     final LinkedList<Clause> cls = new LinkedList<>();
     for(final Clause clause : clauses) cls.add(clause.copy(cc, vm));
-    return copyType(new GFLWOR(info, cls, rtrn.copy(cc, vm)));
+    final GFLWOR gflwor = new GFLWOR(info, cls, rtrn.copy(cc, vm));
+    gflwor.parallel = parallel;
+    return copyType(gflwor);
   }
 
   /**
@@ -4,11 +4,15 @@ import static org.basex.query.QueryError.*;
 import static org.basex.query.QueryText.*;
 
 import java.util.*;
-import java.util.List;
+import java.util.function.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.util.*;
+import org.basex.query.util.list.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
@@ -44,84 +48,255 @@ public final class OrderBy extends Clause {
   @Override
   Eval eval(final Eval sub) {
     return new Eval() {
-      private Value[][] tpls;
-      private Integer[] perm;
-      int pos;
+      /** Values of the cached tuples (one array per variable). */
+      private Value[][] values;
+      /** Keys of the cached tuples (one array per key, only assigned if runs exist). */
+      private Item[][] items;
+      /** Order of the cached tuples. */
+      private int[] order;
+      /** Current position. */
+      private int pos;
+      /** Sorted runs that have been written to temporary files ({@code null} if none exist). */
+      private ArrayList<SortRun> runs;
+      /** Databases referenced by the runs. */
+      private ArrayList<Data> datas;
 
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
-        if(tpls == null) sort(qc);
-        if(pos == tpls.length) return false;
-        final int p = perm[pos++];
-        final Value[] tuple = tpls[p];
-        // free the space occupied by the tuple
-        tpls[p] = null;
+        if(order == null) sort(qc);
+        if(runs != null) return merge(qc);
+        if(pos == order.length) return false;
+        final int p = order[pos++];
         final int rl = refs.length;
-        for(int r = 0; r < rl; r++) qc.set(refs[r].var, tuple[r]);
+        for(int r = 0; r < rl; r++) {
+          qc.set(refs[r].var, values[r][p]);
+          // free the space occupied by the tuple
+          values[r][p] = null;
+        }
         return true;
       }
 
       /**
        * Caches and sorts all incoming tuples.
+       * If a limit is specified, sorted runs are written to temporary files.
        * @param qc query context
        * @throws QueryException evaluation exception
        */
       private void sort(final QueryContext qc) throws QueryException {
-        // keys are stored at odd positions, values at even ones
-        List<Value[]> tuples = new ArrayList<>();
+        // keys and values are cached column-wise (no arrays are created per tuple)
+        final int kl = keys.length, rl = refs.length;
+        final ItemList[] ks = new ItemList[kl];
+        for(int k = 0; k < kl; k++) ks[k] = new ItemList();
+        final ValueList[] vs = new ValueList[rl];
+        for(int r = 0; r < rl; r++) vs[r] = new ValueList();
+        final long limit = qc.context.options.get(MainOptions.SORTLIMIT);
+        // tuples with fragments or function items are kept in main memory
+        boolean spill = limit > 0;
+        int size = 0;
         while(sub.next(qc)) {
-          final int kl = keys.length;
-          final Item[] key = new Item[kl];
-          for(int k = 0; k < kl; k++) key[k] = keys[k].expr.atomItem(qc, keys[k].info);
-          tuples.add(key);
-
-          final int rl = refs.length;
-          final Value[] vals = new Value[rl];
-          for(int r = 0; r < rl; r++) vals[r] = refs[r].value(qc);
-          tuples.add(vals);
+          for(int k = 0; k < kl; k++) {
+            final Item item = keys[k].expr.atomItem(qc, keys[k].info);
+            if(spill) spill = SortRun.spillable(item);
+            ks[k].add(item);
+          }
+          for(int r = 0; r < rl; r++) {
+            final Value value = refs[r].value(qc);
+            if(spill) spill = SortRun.spillable(value);
+            vs[r].add(value);
+          }
+          if(++size == limit && spill) {
+            write(ks, vs, size, qc);
+            size = 0;
+          }
         }
 
-        final int len = tuples.size() >>> 1;
-        final Item[][] ks = new Item[len][];
-        perm = new Integer[len];
-        tpls = new Value[len][];
-        for(int i = 0; i < len; i++) {
-          perm[i] = i;
-          tpls[i] = tuples.get(i << 1 | 1);
-          ks[i] = (Item[]) tuples.get(i << 1);
+        values = new Value[rl][];
+        for(int r = 0; r < rl; r++) values[r] = vs[r].finish();
+        final Item[][] its = new Item[kl][];
+        for(int k = 0; k < kl; k++) its[k] = ks[k].finish();
+        order = order(its, size);
+        if(runs != null) items = its;
+      }
+
+      /**
+       * Sorts the cached tuples and writes them to a temporary file.
+       * @param ks key lists (will be reset)
+       * @param vs value lists (will be reset)
+       * @param size number of tuples
+       * @param qc query context
+       * @throws QueryException evaluation exception
+       */
+      private void write(final ItemList[] ks, final ValueList[] vs, final int size,
+          final QueryContext qc) throws QueryException {
+
+        final int kl = ks.length, rl = vs.length;
+        final Item[][] its = new Item[kl][];
+        for(int k = 0; k < kl; k++) its[k] = ks[k].next();
+        final Value[][] vals = new Value[rl][];
+        for(int r = 0; r < rl; r++) vals[r] = vs[r].next();
+
+        if(runs == null) {
+          runs = new ArrayList<>();
+          datas = new ArrayList<>();
         }
-        // be nice to the garbage collector
-        tuples = null;
-        try {
-          Arrays.sort(perm, (x, y) -> {
-            try {
-              final Item[] a = ks[x], b = ks[y];
-              final int kl = keys.length;
-              for(int k = 0; k < kl; k++) {
-                final OrderKey key = keys[k];
-                Item m = a[k], n = b[k];
-                if(m == Dbl.NAN || m == Flt.NAN) m = Empty.VALUE;
-                if(n == Dbl.NAN || n == Flt.NAN) n = Empty.VALUE;
-                if(m != Empty.VALUE && n != Empty.VALUE && !m.comparable(n))
-                  throw typeError(n, m.type, key.info);
-
-                final int c = m == Empty.VALUE
-                    ? n == Empty.VALUE ? 0                 : key.least ? -1 : 1
-                    : n == Empty.VALUE ? key.least ? 1 : -1 : m.diff(n, key.coll, key.info);
-                if(c != 0) return key.desc ? -c : c;
-              }
-              return 0;
-            } catch(final QueryException ex) {
-              throw new QueryRTException(ex);
+        final SortRun run = SortRun.write(its, vals, order(its, size), datas, info);
+        qc.resources.index(SortRuns.class).add(run);
+        runs.add(run);
+        next(run, qc);
+      }
+
+      /**
+       * Returns the next tuple from the sorted runs and the cached tuples.
+       * If keys are equal, tuples of earlier runs are preferred (the sort is stable).
+       * @param qc query context
+       * @return {@code true} if a tuple was found
+       * @throws QueryException evaluation exception
+       */
+      private boolean merge(final QueryContext qc) throws QueryException {
+        SortRun min = null;
+        for(final SortRun run : runs) {
+          if(min == null || compare(run.keys, min.keys) < 0) min = run;
+        }
+        final int kl = keys.length, rl = refs.length;
+        if(pos < order.length) {
+          final int p = order[pos];
+          final Item[] its = new Item[kl];
+          for(int k = 0; k < kl; k++) its[k] = items[k][p];
+          if(min == null || compare(its, min.keys) < 0) {
+            pos++;
+            for(int r = 0; r < rl; r++) {
+              qc.set(refs[r].var, values[r][p]);
+              values[r][p] = null;
             }
-          });
-        } catch(final QueryRTException ex) {
-          throw ex.getCause();
+            return true;
+          }
+        }
+        if(min == null) return false;
+
+        for(int r = 0; r < rl; r++) qc.set(refs[r].var, min.values[r]);
+        next(min, qc);
+        return true;
+      }
+
+      /**
+       * Reads the next tuple of a run. The run is removed if it is exhausted.
+       * @param run run
+       * @param qc query context
+       * @throws QueryException evaluation exception
+       */
+      private void next(final SortRun run, final QueryContext qc) throws QueryException {
+        if(!run.next(keys.length, refs.length, qc, info)) {
+          qc.resources.index(SortRuns.class).remove(run);
+          runs.remove(run);
         }
       }
+
+      /**
+       * Compares the keys of two tuples.
+       * @param its1 first keys
+       * @param its2 second keys
+       * @return result of comparison
+       * @throws QueryException evaluation exception
+       */
+      private int compare(final Item[] its1, final Item[] its2) throws QueryException {
+        final int kl = keys.length;
+        for(int k = 0; k < kl; k++) {
+          final int c = OrderBy.compare(keys[k], its1[k], its2[k]);
+          if(c != 0) return c;
+        }
+        return 0;
+      }
+    };
+  }
+
+  /**
+   * Returns the order of the cached tuples.
+   * @param items key values (one array per sort key)
+   * @param size number of tuples
+   * @return order
+   * @throws QueryException query exception
+   */
+  private int[] order(final Item[][] items, final int size) throws QueryException {
+    final int kl = keys.length;
+    final IntBinaryOperator[] comps = new IntBinaryOperator[kl];
+    for(int k = 0; k < kl; k++) comps[k] = comparator(keys[k], items[k], size);
+    try {
+      return Array.number(size).sort((x, y) -> {
+        for(final IntBinaryOperator comp : comps) {
+          final int c = comp.applyAsInt(x, y);
+          if(c != 0) return c;
+        }
+        return 0;
+      }).finish();
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  /**
+   * Returns a comparator for the positions of two key values.
+   * Integers and doubles will be compared as primitive values.
+   * @param key sort key
+   * @param items key values
+   * @param size number of key values
+   * @return comparator
+   */
+  private static IntBinaryOperator comparator(final OrderKey key, final Item[] items,
+      final int size) {
+
+    final int d = key.desc ? -1 : 1;
+    boolean itr = true, dbl = true;
+    for(int i = 0; i < size && (itr || dbl); i++) {
+      final Item item = items[i];
+      itr &= item instanceof Int;
+      dbl &= item instanceof Dbl && !Double.isNaN(((Dbl) item).dbl());
+    }
+    if(itr) {
+      final long[] vals = new long[size];
+      for(int i = 0; i < size; i++) vals[i] = ((Int) items[i]).itr();
+      return (x, y) -> d * Long.compare(vals[x], vals[y]);
+    }
+    if(dbl) {
+      final double[] vals = new double[size];
+      for(int i = 0; i < size; i++) vals[i] = ((Dbl) items[i]).dbl();
+      return (x, y) -> {
+        final double a = vals[x], b = vals[y];
+        return a < b ? -d : a > b ? d : 0;
+      };
+    }
+
+    return (x, y) -> {
+      try {
+        return compare(key, items[x], items[y]);
+      } catch(final QueryException ex) {
+        throw new QueryRTException(ex);
+      }
     };
   }
 
+  /**
+   * Compares two key values.
+   * @param key sort key
+   * @param item1 first key value
+   * @param item2 second key value
+   * @return result of comparison
+   * @throws QueryException query exception
+   */
+  private static int compare(final OrderKey key, final Item item1, final Item item2)
+      throws QueryException {
+
+    Item m = item1, n = item2;
+    if(m == Dbl.NAN || m == Flt.NAN) m = Empty.VALUE;
+    if(n == Dbl.NAN || n == Flt.NAN) n = Empty.VALUE;
+    if(m != Empty.VALUE && n != Empty.VALUE && !m.comparable(n))
+      throw typeError(n, m.type, key.info);
+
+    final int c = m == Empty.VALUE
+        ? n == Empty.VALUE ? 0                 : key.least ? -1 : 1
+        : n == Empty.VALUE ? key.least ? 1 : -1 : m.diff(n, key.coll, key.info);
+    return key.desc ? -c : c;
+  }
+
   @Override
   public boolean has(final Flag... flags) {
     for(final OrderKey key : keys) {
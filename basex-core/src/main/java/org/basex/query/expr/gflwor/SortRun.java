@@ -0,0 +1,239 @@
+package org.basex.query.expr.gflwor;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Sorted run of tuples of an order by clause, which has been written to a temporary file.
+ * Strings, untyped atomic items, integers, doubles, booleans and database nodes can be
+ * written. Database nodes are stored as references to their database and pre values.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+final class SortRun {
+  /** Item kinds. */
+  private static final int EMPTY = 0, STR = 1, ATM = 2, ITR = 3, DBL = 4, BLN = 5, NODE = 6;
+
+  /** Database references. */
+  private final ArrayList<Data> datas;
+  /** Temporary file. */
+  private final IOFile file;
+  /** Number of remaining tuples. */
+  private int remaining;
+  /** Input stream (opened when the first tuple is read). */
+  private DataInput in;
+
+  /** Keys of the current tuple ({@code null} if all tuples have been read). */
+  Item[] keys;
+  /** Values of the current tuple. */
+  Value[] values;
+
+  /**
+   * Constructor.
+   * @param file temporary file
+   * @param size number of tuples
+   * @param datas database references
+   */
+  private SortRun(final IOFile file, final int size, final ArrayList<Data> datas) {
+    this.file = file;
+    this.datas = datas;
+    remaining = size;
+  }
+
+  /**
+   * Checks if the specified value can be written to a run.
+   * @param value value
+   * @return result of check
+   */
+  static boolean spillable(final Value value) {
+    for(final Item item : value) {
+      if(kind(item) == -1) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Writes sorted tuples to a temporary file.
+   * @param keys keys (one array per sort key)
+   * @param values values (one array per variable)
+   * @param order order of the tuples
+   * @param datas database references
+   * @param info input info
+   * @return run
+   * @throws QueryException query exception
+   */
+  static SortRun write(final Item[][] keys, final Value[][] values, final int[] order,
+      final ArrayList<Data> datas, final InputInfo info) throws QueryException {
+
+    IOFile file = null;
+    try {
+      file = new IOFile(File.createTempFile(Prop.NAME + '-', IO.TMPSUFFIX));
+      try(DataOutput out = new DataOutput(file)) {
+        for(final int p : order) {
+          for(final Item[] key : keys) write(key[p], out, datas, info);
+          for(final Value[] value : values) {
+            out.writeNum((int) value[p].size());
+            for(final Item item : value[p]) write(item, out, datas, info);
+          }
+        }
+      }
+      return new SortRun(file, order.length, datas);
+    } catch(final IOException ex) {
+      if(file != null) file.delete();
+      throw QueryError.IOERR_X.get(info, ex);
+    }
+  }
+
+  /**
+   * Reads the next tuple.
+   * @param kl number of keys
+   * @param vl number of values
+   * @param qc query context
+   * @param info input info
+   * @return {@code true} if a tuple was read
+   * @throws QueryException query exception
+   */
+  boolean next(final int kl, final int vl, final QueryContext qc, final InputInfo info)
+      throws QueryException {
+    if(remaining == 0) {
+      close();
+      return false;
+    }
+    try {
+      if(in == null) {
+        in = new DataInput(file);
+        keys = new Item[kl];
+        values = new Value[vl];
+      }
+      for(int k = 0; k < kl; k++) keys[k] = read();
+      for(int v = 0; v < vl; v++) {
+        final int size = in.readNum();
+        final ValueBuilder vb = new ValueBuilder(qc);
+        for(int s = 0; s < size; s++) vb.add(read());
+        values[v] = vb.value();
+      }
+      remaining--;
+      return true;
+    } catch(final IOException ex) {
+      close();
+      throw QueryError.IOERR_X.get(info, ex);
+    }
+  }
+
+  /**
+   * Closes the input stream and deletes the temporary file.
+   */
+  void close() {
+    keys = null;
+    values = null;
+    remaining = 0;
+    if(in != null) {
+      try {
+        in.close();
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+      in = null;
+    }
+    file.delete();
+  }
+
+  /**
+   * Returns the kind of an item.
+   * @param item item
+   * @return kind, or {@code -1} if the item cannot be written
+   */
+  private static int kind(final Item item) {
+    if(item == Empty.VALUE) return EMPTY;
+    if(item.getClass() == DBNode.class) return NODE;
+    final Type type = item.type;
+    return type == AtomType.STR && item instanceof Str ? STR :
+           type == AtomType.ATM ? ATM :
+           type == AtomType.ITR && item instanceof Int ? ITR :
+           type == AtomType.DBL ? DBL :
+           type == AtomType.BLN ? BLN : -1;
+  }
+
+  /**
+   * Writes an item.
+   * @param item item
+   * @param out output stream
+   * @param datas database references
+   * @param info input info
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  private static void write(final Item item, final DataOutput out, final ArrayList<Data> datas,
+      final InputInfo info) throws IOException, QueryException {
+
+    final int kind = kind(item);
+    out.write1(kind);
+    switch(kind) {
+      case NODE:
+        final DBNode node = (DBNode) item;
+        int d = datas.indexOf(node.data());
+        if(d == -1) {
+          d = datas.size();
+          datas.add(node.data());
+        }
+        out.writeNum(d);
+        out.writeNum(node.pre());
+        break;
+      case STR:
+      case ATM:
+        out.writeToken(item.string(info));
+        break;
+      case ITR:
+        out.writeToken(Token.token(item.itr(info)));
+        break;
+      case DBL:
+        out.writeToken(Token.token(Double.doubleToRawLongBits(item.dbl(info))));
+        break;
+      case BLN:
+        out.writeBool(item.bool(info));
+        break;
+      case EMPTY:
+        break;
+      default:
+        throw Util.notExpected(item);
+    }
+  }
+
+  /**
+   * Reads an item.
+   * @return item
+   * @throws IOException I/O exception
+   */
+  private Item read() throws IOException {
+    switch(in.read()) {
+      case NODE:
+        final Data data = datas.get(in.readNum());
+        return new DBNode(data, in.readNum());
+      case STR:
+        return Str.get(in.readToken());
+      case ATM:
+        return new Atm(in.readToken());
+      case ITR:
+        return Int.get(Token.toLong(in.readToken()));
+      case DBL:
+        return Dbl.get(Double.longBitsToDouble(Token.toLong(in.readToken())));
+      case BLN:
+        return Bln.get(in.readBool());
+      default:
+        return Empty.VALUE;
+    }
+  }
+}
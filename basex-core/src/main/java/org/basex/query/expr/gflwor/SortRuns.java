@@ -0,0 +1,40 @@
+package org.basex.query.expr.gflwor;
+
+import java.util.*;
+
+import org.basex.query.*;
+
+/**
+ * Sorted runs that have been written to temporary files during query evaluation.
+ * Remaining files are deleted when the query is closed.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class SortRuns implements QueryResource {
+  /** Runs. */
+  private final ArrayList<SortRun> runs = new ArrayList<>();
+
+  /**
+   * Adds a run.
+   * @param run run
+   */
+  synchronized void add(final SortRun run) {
+    runs.add(run);
+  }
+
+  /**
+   * Closes and removes a run.
+   * @param run run
+   */
+  synchronized void remove(final SortRun run) {
+    run.close();
+    runs.remove(run);
+  }
+
+  @Override
+  public synchronized void close() {
+    for(final SortRun run : runs) run.close();
+    runs.clear();
+  }
+}
@@ -0,0 +1,110 @@
+package org.basex.query.expr.index;
+
+import static org.basex.query.QueryText.*;
+
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.index.path.*;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.func.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This index class retrieves the nodes of a location path from the path index.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class PathAccess extends Simple {
+  /** Data reference. */
+  private final Data data;
+  /** Path nodes. */
+  private final ArrayList<PathNode> nodes;
+
+  /**
+   * Constructor.
+   * @param info input info
+   * @param data data reference
+   * @param nodes path nodes
+   * @param type node type
+   */
+  public PathAccess(final InputInfo info, final Data data, final ArrayList<PathNode> nodes,
+      final Type type) {
+    super(info, SeqType.NOD_ZM);
+    this.data = data;
+    this.nodes = nodes;
+    long size = 0;
+    for(final PathNode node : nodes) size += node.stats.count;
+    exprType.assign(type, Occ.ZERO_MORE, size);
+  }
+
+  @Override
+  public Iter iter(final QueryContext qc) {
+    return value(qc).iter();
+  }
+
+  @Override
+  public Value value(final QueryContext qc) {
+    return DBNodeSeq.get(data.paths.pres(nodes), data, seqType().type, false);
+  }
+
+  @Override
+  public Data data() {
+    return data;
+  }
+
+  @Override
+  public boolean iterable() {
+    return true;
+  }
+
+  @Override
+  public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
+    return new PathAccess(info, data, nodes, seqType().type);
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if(this == obj) return true;
+    if(!(obj instanceof PathAccess)) return false;
+    final PathAccess pa = (PathAccess) obj;
+    return data == pa.data && nodes.equals(pa.nodes);
+  }
+
+  @Override
+  public void plan(final QueryPlan plan) {
+    plan.add(plan.create(this, NAME, data.meta.name, SIZE, size()));
+  }
+
+  @Override
+  public String toString() {
+    final StringList paths = new StringList();
+    for(final PathNode node : nodes) {
+      final StringList steps = new StringList();
+      for(PathNode pn = node; pn.parent != null; pn = pn.parent) {
+        final String step;
+        switch(pn.kind) {
+          case Data.ELEM: step = "*:" + Token.string(data.elemNames.key(pn.name)); break;
+          case Data.ATTR: step = "@*:" + Token.string(data.attrNames.key(pn.name)); break;
+          case Data.TEXT: step = "text()"; break;
+          case Data.COMM: step = "comment()"; break;
+          default:        step = "processing-instruction()"; break;
+        }
+        steps.insert(0, step);
+      }
+      paths.add(String.join("/", steps.finish()));
+    }
+    final String path = String.join(" | ", paths.finish());
+    return Function._DB_OPEN.args(data.meta.name).substring(1) + '/' +
+        (nodes.size() == 1 ? path : "(" + path + ')');
+  }
+}
@@ -53,6 +53,11 @@ public final class StringRangeAccess extends IndexAccess {
       public DBNode next() {
         return ii.more() ? new DBNode(data, ii.pre(), kind) : null;
       }
+      @Override
+      public ANode skip(final ANode node) throws QueryException {
+        if(node.data() != data) return super.skip(node);
+        return ii.skip(((DBNode) node).pre()) ? new DBNode(data, ii.pre(), kind) : null;
+      }
     };
   }
 
@@ -148,17 +148,31 @@ public final class ValueAccess extends IndexAccess {
       @Override
       public DBNode next() {
         while(ii.more()) {
-          if(test == null) {
-            tmp.pre(ii.pre());
-          } else {
-            tmp.pre(data.parent(ii.pre(), kind));
-            if(!test.eq(tmp)) continue;
-          }
-          return tmp.finish();
+          if(node()) return tmp.finish();
         }
         return null;
       }
       @Override
+      public ANode skip(final ANode node) throws QueryException {
+        if(!index || node.data() != data) return super.skip(node);
+        // the parents of skipped results precede the specified node
+        final int pre = ((DBNode) node).pre();
+        if(!ii.skip(pre)) return null;
+        return node() && tmp.pre() >= pre ? tmp.finish() : super.skip(node);
+      }
+      /**
+       * Assigns the current index result.
+       * @return {@code true} if the node matches the name test
+       */
+      private boolean node() {
+        if(test == null) {
+          tmp.pre(ii.pre());
+          return true;
+        }
+        tmp.pre(data.parent(ii.pre(), kind));
+        return test.eq(tmp);
+      }
+      @Override
       public long size() {
         // index access: number of results is known in advance
         return index ? ii.size() : -1;
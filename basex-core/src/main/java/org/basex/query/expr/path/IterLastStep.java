@@ -38,7 +38,7 @@ final class IterLastStep extends Step {
 
         // return last item
         ANode last = null;
-        for(final ANode node : axis.iter(checkNode(qc))) {
+        for(final ANode node : axisIter(checkNode(qc))) {
           qc.checkStop();
           if(test.eq(node)) last = node.finish();
         }
@@ -38,7 +38,7 @@ public final class IterPath extends AxisPath {
       Iter[] iter;
       ANode last;
       int pos, sz;
-      boolean rt;
+      boolean rt, rev;
 
       @Override
       public ANode next() throws QueryException {
@@ -71,8 +71,45 @@ public final class IterPath extends AxisPath {
         }
       }
 
+      @Override
+      public ANode skip(final ANode node) throws QueryException {
+        final QueryFocus qf = qc.focus;
+        if(iter == null) init(qf);
+        if(!(rev && iter[0] instanceof NodeIter)) return super.skip(node);
+
+        // skip root nodes: the results of skipped root nodes precede the specified node
+        final ANode item = ((NodeIter) iter[0]).skip(node);
+        if(item == null) {
+          pos = -1;
+          return null;
+        }
+        qc.focus = focus;
+        try {
+          focus.value = item;
+          pos = 1;
+          iter[1] = exprs[1].iter(qc);
+        } finally {
+          qc.focus = qf;
+        }
+        return super.skip(node);
+      }
+
+      /**
+       * Checks if all steps return the input node or nodes that precede it.
+       * @return result of check
+       */
+      private boolean reverse() {
+        for(final Expr step : steps) {
+          if(!(step instanceof Step)) return false;
+          final Axis axis = ((Step) step).axis;
+          if(axis != Axis.SELF && axis != Axis.PARENT) return false;
+        }
+        return true;
+      }
+
       private void init(final QueryFocus qf) throws QueryException {
         rt = root != null;
+        rev = rt && reverse();
         sz = steps.length + (rt ? 1 : 0);
         exprs = rt ? new ExprList(sz).add(root).add(steps).finish() : steps;
         iter = new Iter[sz];
@@ -42,7 +42,7 @@ final class IterPosStep extends Step {
       public ANode next() throws QueryException {
         if(skip) return null;
         if(iter == null) {
-          iter = axis.iter(checkNode(qc));
+          iter = axisIter(checkNode(qc));
           final int el = exprs.length;
           for(int e = 0; e < el; e++) {
             final Expr expr = exprs[e];
@@ -34,7 +34,7 @@ public final class IterStep extends Step {
 
       @Override
       public ANode next() throws QueryException {
-        if(iter == null) iter = axis.iter(checkNode(qc));
+        if(iter == null) iter = axisIter(checkNode(qc));
         for(ANode node; (node = iter.next()) != null;) {
           qc.checkStop();
           if(test.eq(node) && preds(node, qc)) return node.finish();
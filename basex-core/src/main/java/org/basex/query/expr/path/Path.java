@@ -5,6 +5,7 @@ import static org.basex.query.expr.path.Axis.*;
 import java.util.*;
 import java.util.function.*;
 
+import org.basex.core.*;
 import org.basex.core.locks.*;
 import org.basex.data.*;
 import org.basex.index.path.*;
@@ -184,6 +185,8 @@ public abstract class Path extends ParseExpr {
     Expr expr = mergeSteps(cc);
     // check index access
     if(expr == this) expr = index(cc, rootValue);
+    // retrieve nodes from the path index
+    if(expr == this) expr = pathIndex(cc, rootValue);
     /* rewrite descendant to child steps. this optimization is called after the index rewritings,
      * as it is cheaper to invert a descendant step. examples:
      * - //B [. = '...'] -> IA('...', B)
@@ -337,9 +340,13 @@ public abstract class Path extends ParseExpr {
     final SeqType st = root.seqType();
     boolean atMostOne = size == 0 || size == 1 || st.zeroOrOne();
     boolean sameDepth = atMostOne || st.type == NodeType.DOC || st.type == NodeType.DEL;
+    // attributes in document order; parent nodes that may be returned more than once
+    boolean attributes = st.type == NodeType.ATT, duplicates = false;
 
     for(final Expr expr : steps) {
       final Step step = (Step) expr;
+      // duplicates are only skipped if they are returned by the last step
+      if(duplicates && step.axis != Axis.SELF) return false;
       switch(step.axis) {
         case ANCESTOR:
         case ANCESTOR_OR_SELF:
@@ -375,8 +382,12 @@ public abstract class Path extends ParseExpr {
           sameDepth = false;
           break;
         case PARENT:
-          // overlaps
-          if(!atMostOne) return false;
+          // overlaps, unless the parents of ordered attributes are requested
+          if(!atMostOne) {
+            if(!attributes) return false;
+            sameDepth = false;
+            duplicates = true;
+          }
           break;
         case SELF:
           // nothing changes
@@ -384,6 +395,7 @@ public abstract class Path extends ParseExpr {
         default:
           throw Util.notExpected();
       }
+      attributes = step.axis == Axis.ATTRIBUTE || step.axis == Axis.SELF && attributes;
     }
     return true;
   }
@@ -599,6 +611,9 @@ public abstract class Path extends ParseExpr {
       // ignore axes other than descendant, or numeric predicates
       final Step curr = axisStep(s);
       if(curr == null || curr.axis != DESCENDANT || curr.positional()) continue;
+      // skip steps with selective names, which will be retrieved from the name index
+      if(curr.test instanceof NameTest && curr.test.kind == Kind.NAME &&
+          data.nameNodes.selective(((NameTest) curr.test).local)) continue;
 
       // check if child steps can be retrieved for current step
       ArrayList<PathNode> nodes = pathNodes(data, s);
@@ -643,6 +658,49 @@ public abstract class Path extends ParseExpr {
     return path;
   }
 
+  /**
+   * Rewrites the path to an access of the path index.
+   * The path must start from all documents of a database and consist of axis steps that can be
+   * resolved via the path summary. Only the last step may have predicates, which must not be
+   * positional. Example: {@code //A/B[C = '...']} -> {@code PA(B)[C = '...']}
+   * @param cc compilation context
+   * @param rt root value (can be {@code null})
+   * @return original or new expression
+   * @throws QueryException query exception
+   */
+  private Expr pathIndex(final CompileContext cc, final Value rt) throws QueryException {
+    if(!cc.qc.context.options.get(MainOptions.PATHINDEX)) return this;
+
+    // skip computation if path does not start with all documents of a database
+    if(rt == null || rt.type != NodeType.DOC ||
+        (root == null ? cc.nestedFocus() : !(root instanceof Value))) return this;
+    final Data data = rt.data();
+    if(data == null || !data.meta.uptodate || data.meta.ndocs != rt.size()) return this;
+
+    // skip single child steps, which can be evaluated without traversing the database, and
+    // attribute steps, which are cheap to evaluate and may have names with prefixes
+    final int sl = steps.length;
+    final Step last = axisStep(sl - 1);
+    if(last == null || sl == 1 && last.axis != DESCENDANT && last.axis != DESCENDANT_OR_SELF ||
+        last.axis == ATTRIBUTE || last.positional()) return this;
+
+    ArrayList<PathNode> nodes = data.paths.root();
+    for(int s = 0; s < sl; s++) {
+      Step step = axisStep(s);
+      if(step == null) return this;
+      if(s == sl - 1) step = Step.get(info, step.axis, step.test);
+      nodes = step.nodes(nodes, data);
+      if(nodes == null) return this;
+    }
+    for(final PathNode node : nodes) {
+      if(node.kind == Data.DOC) return this;
+    }
+
+    cc.info(QueryText.OPTINDEX_X_X, "path", this);
+    final Expr pa = new PathAccess(info, data, nodes, seqType().type);
+    return last.exprs.length == 0 ? pa : Filter.get(info, pa, last.exprs);
+  }
+
   /**
    * Returns an equivalent expression which accesses an index.
    * If the expression cannot be rewritten, the original expression is returned.
@@ -682,6 +740,8 @@ public abstract class Path extends ParseExpr {
     // check if path can be converted to an index access
     final Data data = rt != null ? rt.data() : null;
     final int sl = steps.length;
+    // index accesses of the predicates of all steps
+    final IndexInfo[][] infos = new IndexInfo[sl][];
     for(int s = 0; s < sl; s++) {
       // only accept descendant steps without positional predicates
       // Example for position predicate: child:x[1] != parent::x[1]
@@ -689,6 +749,7 @@ public abstract class Path extends ParseExpr {
       if(step == null || !step.axis.down || step.positional()) break;
 
       final int el = step.exprs.length;
+      infos[s] = new IndexInfo[el];
       if(el > 0) {
         // check if path is iterable (i.e., will be duplicate-free)
         final IndexDb db = data != null ?
@@ -706,6 +767,7 @@ public abstract class Path extends ParseExpr {
             return Empty.VALUE;
           }
 
+          infos[s][e] = ii;
           if(index == null || index.costs.compareTo(ii.costs) > 0) {
             index = ii;
             indexPred = e;
@@ -720,8 +782,27 @@ public abstract class Path extends ParseExpr {
     // skip optimization if it is not enforced
     if(rt instanceof Dummy && !index.enforce()) return this;
 
+    /* intersect the results of further predicates of the index step if this is cheaper than
+     * evaluating them as filters. example:
+     * - //A[@a = '...'][contains-token(@b, '...')] ->
+     *   (IA('...', @a)/parent::A intersect IA('...', @b)/parent::A) */
+    final IndexInfo[] stepInfos = infos[indexStep];
+    final int el = stepInfos.length;
+    final boolean[] indexed = new boolean[el];
+    indexed[indexPred] = true;
+    final ExprList indexExprs = new ExprList(el).add(index.expr);
     // rewrite for index access
     cc.info(index.optInfo);
+    for(int e = 0; e < el; e++) {
+      final IndexInfo ii = stepInfos[e];
+      if(!indexed[e] && ii != null && ii.intersect(index.costs)) {
+        cc.info(ii.optInfo);
+        indexExprs.add(ii.expr);
+        indexed[e] = true;
+      }
+    }
+    final Expr indexExpr = indexExprs.size() == 1 ? index.expr :
+      new Intersect(info, indexExprs.finish());
 
     // invert steps that occur before index step and add them as predicate
     final ExprList newPreds = new ExprList();
@@ -748,18 +829,18 @@ public abstract class Path extends ParseExpr {
     final Expr[] preds = index.step.exprs;
     final int pl = preds.length;
     for(int p = 0; p < pl; p++) {
-      if(p != indexPred) newPreds.add(preds[p]);
+      if(!indexed[p]) newPreds.add(preds[p]);
     }
 
     // create resulting expression
     final ExprList resultSteps = new ExprList();
     final Expr resultRoot;
-    if(index.expr instanceof Path) {
-      final Path path = (Path) index.expr;
+    if(indexExpr instanceof Path) {
+      final Path path = (Path) indexExpr;
       resultRoot = path.root;
       resultSteps.add(path.steps);
     } else {
-      resultRoot = index.expr;
+      resultRoot = indexExpr;
     }
 
     // only one hit: update sequence type
@@ -12,6 +12,7 @@ import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.path.Test.*;
 import org.basex.query.func.*;
+import org.basex.query.iter.*;
 import org.basex.query.util.*;
 import org.basex.query.util.list.*;
 import org.basex.query.value.*;
@@ -140,6 +141,34 @@ public abstract class Step extends Preds {
   @Override
   public abstract Step copy(CompileContext cc, IntObjMap<Var> vm);
 
+  /**
+   * Returns an iterator for the nodes of the axis. If the nodes of a database are traversed,
+   * descendant elements with selective names are retrieved from the name index.
+   * @param node context node
+   * @return node iterator
+   */
+  final BasicNodeIter axisIter(final ANode node) {
+    if(node instanceof DBNode && test instanceof NameTest && test.type == NodeType.ELM &&
+        (test.kind == Kind.NAME || test.kind == Kind.URI_NAME) &&
+        (axis == Axis.DESCENDANT || axis == Axis.DESCENDANT_OR_SELF)) {
+      final Data data = node.data();
+      final int pre = ((DBNode) node).pre(), end = pre + data.size(pre, data.kind(pre));
+      final int[] pres = data.nameNodes.pres(((NameTest) test).local,
+          axis == Axis.DESCENDANT ? pre + 1 : pre, end);
+      if(pres != null) {
+        return new DBNodeIter(data) {
+          int p;
+
+          @Override
+          public DBNode next() {
+            return p < pres.length ? new DBNode(data, pres[p++], Data.ELEM) : null;
+          }
+        };
+      }
+    }
+    return axis.iter(node);
+  }
+
   /**
    * Checks if this step uses the specified axis test and has no predicates.
    * @param ax axis to be checked
@@ -2,8 +2,6 @@ package org.basex.query.func.fn;
 
 import static org.basex.query.QueryError.*;
 
-import java.util.*;
-
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.func.*;
@@ -14,6 +12,7 @@ import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
+import org.basex.util.*;
 
 /**
  * Function implementation.
@@ -56,7 +55,7 @@ public final class FnSort extends StandardFunc {
       values.add((key == null ? item : key.invokeValue(qc, info, item)).atomValue(qc, info));
     }
 
-    final Integer[] order = sort(values, this, coll, qc);
+    final int[] order = sort(values, this, coll, qc);
     return new BasicIter<Item>(size) {
       @Override
       public Item get(final long i) {
@@ -74,14 +73,11 @@ public final class FnSort extends StandardFunc {
    * @return item order
    * @throws QueryException query exception
    */
-  public static Integer[] sort(final ValueList values, final StandardFunc sf, final Collation coll,
+  public static int[] sort(final ValueList values, final StandardFunc sf, final Collation coll,
       final QueryContext qc) throws QueryException {
 
-    final int al = values.size();
-    final Integer[] order = new Integer[al];
-    for(int o = 0; o < al; o++) order[o] = o;
     try {
-      Arrays.sort(order, (i1, i2) -> {
+      return Array.number(values.size()).sort((i1, i2) -> {
         qc.checkStop();
         try {
           final Value value1 = values.get(i1), value2 = values.get(i2);
@@ -101,11 +97,10 @@ public final class FnSort extends StandardFunc {
         } catch(final QueryException ex) {
           throw new QueryRTException(ex);
         }
-      });
+      }).finish();
     } catch(final QueryRTException ex) {
       throw ex.getCause();
     }
-    return order;
   }
 
   @Override
@@ -11,6 +11,7 @@ import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
 import org.basex.util.*;
+import org.basex.util.options.*;
 
 /**
  * Function implementation.
@@ -19,6 +20,12 @@ import org.basex.util.*;
  * @author James Wright
  */
 public final class XQueryForkJoin extends StandardFunc {
+  /** Fork-join options. */
+  public static final class ForkJoinOptions extends Options {
+    /** Maximum number of functions that will be evaluated in parallel (0: size of worker pool). */
+    public static final NumberOption PARALLEL = new NumberOption("parallel", 0);
+  }
+
   @Override
   public Value value(final QueryContext qc) throws QueryException {
     final Value funcs = exprs[0].value(qc);
@@ -32,19 +39,21 @@ public final class XQueryForkJoin extends StandardFunc {
     // single function: invoke directly
     if(size == 1) return ((FItem) funcs).invokeValue(qc, info);
 
-    final ForkJoinPool pool = new ForkJoinPool();
-    final XQueryTask task = new XQueryTask(funcs, qc, info);
+    // evaluate functions in the shared worker pool
+    final ForkJoinPool pool = qc.context.jobs.workers();
+    final Options opts = toOptions(1, new ForkJoinOptions(), qc);
+    final int parallel = opts.get(ForkJoinOptions.PARALLEL);
+    final int parts = (int) Math.min(size, parallel > 0 ? parallel : pool.getParallelism());
+    final XQueryTask task = new XQueryTask(funcs, qc, info, parts);
     try {
-      return pool.invoke(task);
+      // nested calls: evaluate task in the current worker thread
+      return ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task);
     } catch(final Exception ex) {
       // pass on query and job exceptions
       final Throwable e = Util.rootException(ex);
       if(e instanceof QueryException) throw (QueryException) e;
       if(e instanceof JobException) throw (JobException) e;
       throw XQUERY_UNEXPECTED_X.get(info, e);
-    } finally {
-      // required?
-      pool.shutdown();
     }
   }
 }
@@ -23,15 +23,18 @@ final class XQueryTask extends RecursiveTask<Value> {
   private final int start;
   /** Last function to evaluate. */
   private final int end;
+  /** Number of parts into which the functions will be split. */
+  private final int parts;
 
   /**
    * Constructor.
    * @param funcs functions to evaluate
    * @param qc query context
    * @param ii input info
+   * @param parts maximum number of functions to be evaluated in parallel
    */
-  XQueryTask(final Value funcs, final QueryContext qc, final InputInfo ii) {
-    this(funcs, qc, ii, 0, (int) funcs.size());
+  XQueryTask(final Value funcs, final QueryContext qc, final InputInfo ii, final int parts) {
+    this(funcs, qc, ii, 0, (int) funcs.size(), parts);
   }
 
   /**
@@ -41,37 +44,43 @@ final class XQueryTask extends RecursiveTask<Value> {
    * @param ii input info
    * @param start first function to evaluate
    * @param end last function to evaluate
+   * @param parts number of parts
    */
   private XQueryTask(final Value funcs, final QueryContext qc, final InputInfo ii,
-      final int start, final int end) {
+      final int start, final int end, final int parts) {
     this.funcs = funcs;
-    this.qc = new QueryContext(qc);
+    this.qc = qc;
     this.ii = ii;
     this.start = start;
     this.end = end;
+    this.parts = parts;
   }
 
   @Override
   protected Value compute() {
-    final ValueBuilder vb = new ValueBuilder(qc);
-    final int s = start, e = end, l = e - s;
-    if(l == 1) {
-      // perform the work
-      try {
-        vb.add(((FItem) funcs.itemAt(s)).invokeValue(qc, ii));
-      } catch(final QueryException ex) {
-        completeExceptionally(ex);
-        cancel(true);
-      } finally {
-        qc.close();
-      }
-    } else if(l > 1) {
+    final int s = start, e = end, p = parts;
+    if(p > 1) {
       // split the work and join the results in the correct order
-      final int m = s + l / 2;
-      final XQueryTask task2 = new XQueryTask(funcs, qc, ii, m, e);
+      final int p1 = p / 2, m = s + (int) ((long) (e - s) * p1 / p);
+      final XQueryTask task2 = new XQueryTask(funcs, qc, ii, m, e, p - p1);
       task2.fork();
-      final XQueryTask task1  = new XQueryTask(funcs, qc, ii, s, m);
-      vb.add(task1.invoke()).add(task2.join());
+      final XQueryTask task1 = new XQueryTask(funcs, qc, ii, s, m, p1);
+      return new ValueBuilder(qc).add(task1.invoke()).add(task2.join()).value();
+    }
+
+    // perform the work; the job will be stopped if the parent job is stopped
+    final QueryContext tqc = new QueryContext(qc);
+    final ValueBuilder vb = new ValueBuilder(tqc);
+    try {
+      qc.checkStop();
+      for(int f = s; f < e; f++) {
+        tqc.checkStop();
+        vb.add(((FItem) funcs.itemAt(f)).invokeValue(tqc, ii));
+      }
+    } catch(final QueryException ex) {
+      completeExceptionally(ex);
+    } finally {
+      tqc.close();
     }
     return vb.value();
   }
@@ -12,4 +12,18 @@ import org.basex.query.value.node.*;
 public abstract class FTIter extends Iter {
   @Override
   public abstract FTNode next() throws QueryException;
+
+  /**
+   * Returns the next node with a pre value that is equal to or larger than the specified value.
+   * Can be overwritten by iterators that can skip results more efficiently.
+   * @param pre minimum pre value
+   * @return node or {@code null}
+   * @throws QueryException query exception
+   */
+  public FTNode skip(final int pre) throws QueryException {
+    for(FTNode node; (node = next()) != null;) {
+      if(node.pre() >= pre) return node;
+    }
+    return null;
+  }
 }
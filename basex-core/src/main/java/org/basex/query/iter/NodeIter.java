@@ -13,6 +13,20 @@ public abstract class NodeIter extends Iter {
   @Override
   public abstract ANode next() throws QueryException;
 
+  /**
+   * Returns the next node that is identical to or follows the specified node in document order.
+   * Can be overwritten by iterators that can skip results more efficiently.
+   * @param node node to skip to
+   * @return node or {@code null}
+   * @throws QueryException query exception
+   */
+  public ANode skip(final ANode node) throws QueryException {
+    for(ANode n; (n = next()) != null;) {
+      if(n.diff(node) >= 0) return n;
+    }
+    return null;
+  }
+
   @Override
   public ANode get(final long i) {
     return null;
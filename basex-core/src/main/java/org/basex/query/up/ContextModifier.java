@@ -124,7 +124,7 @@ abstract class ContextModifier {
     } finally {
       // remove locks: in case of a crash, remove only already acquired write locks
       for(final Data data : datas) {
-        data.finishUpdate(ctx.options);
+        data.finishUpdate(ctx);
       }
     }
 
@@ -83,9 +83,13 @@ public final class DBOptimize extends DBUpdate {
     meta.createtoken = opts.get(MainOptions.TOKENINDEX);
     meta.createft = opts.get(MainOptions.FTINDEX);
 
-    meta.updindex = opts.get(MainOptions.UPDINDEX);
+    // full-text index references ids if index is updatable
+    final boolean updindex = opts.get(MainOptions.UPDINDEX), rebuildIds = updindex != meta.updindex;
+    meta.updindex = updindex;
     meta.autooptimize = opts.get(MainOptions.AUTOOPTIMIZE);
     meta.splitsize = opts.get(MainOptions.SPLITSIZE);
+    meta.indexthreads = opts.get(MainOptions.INDEXTHREADS);
+    meta.bloomfilter = opts.get(MainOptions.BLOOMFILTER);
 
     // check if other indexing options have changed
     final int maxcats = opts.get(MainOptions.MAXCATS);
@@ -112,7 +116,7 @@ public final class DBOptimize extends DBUpdate {
     final String stopwords = opts.get(MainOptions.STOPWORDS);
     final boolean rebuildFt = !meta.ftinclude.equals(ftinclude) || rebuild ||
         stemming != meta.stemming || casesens != meta.casesens || diacritics != meta.diacritics ||
-        !language.equals(meta.language) || !stopwords.equals(meta.stopwords);
+        !language.equals(meta.language) || !stopwords.equals(meta.stopwords) || rebuildIds;
     meta.ftinclude = ftinclude;
     meta.stemming   = stemming;
     meta.casesens   = casesens;
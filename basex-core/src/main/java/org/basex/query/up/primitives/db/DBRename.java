@@ -45,6 +45,7 @@ public final class DBRename extends DBUpdate {
 
   @Override
   public void apply() {
+    data.unlogged();
     map.forEach((source, target) -> {
       final IOFile src = new IOFile(source), trg = new IOFile(target);
       if(src.exists()) {
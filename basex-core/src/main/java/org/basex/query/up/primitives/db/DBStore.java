@@ -44,6 +44,7 @@ public final class DBStore extends DBUpdate {
 
   @Override
   public void apply() throws QueryException {
+    data.unlogged();
     for(final byte[] path : map) {
       try {
         final IOFile file = data.meta.binary(string(path));
@@ -16,6 +16,8 @@ public final class IndexCosts implements Comparable<IndexCosts> {
   public static final IndexCosts ENFORCE_DYNAMIC = new IndexCosts(-1);
   /** No results. */
   public static final IndexCosts ZERO = new IndexCosts(0);
+  /** Maximum ratio between the results of intersected and filtered index requests. */
+  private static final int INTERSECT = 4;
 
   /**
    * Number of expected results.
@@ -73,6 +75,17 @@ public final class IndexCosts implements Comparable<IndexCosts> {
     return results > data.meta.size;
   }
 
+  /**
+   * Checks if the results of another index request should be intersected with the results of
+   * this request. This is the case if the costs are known, and if the other request is not
+   * considerably more expensive than filtering the results of this request.
+   * @param ic costs of the other request
+   * @return result of check
+   */
+  public boolean intersect(final IndexCosts ic) {
+    return results > 1 && ic.results > 0 && ic.results / INTERSECT <= results;
+  }
+
   @Override
   public int compareTo(final IndexCosts ic) {
     return results - ic.results;
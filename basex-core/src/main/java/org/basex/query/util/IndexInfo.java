@@ -194,6 +194,16 @@ public final class IndexInfo {
     return enforce() ? IndexCosts.ENFORCE_STATIC : data.costs(token);
   }
 
+  /**
+   * Checks if the results of this index access should be intersected with the results of a
+   * cheaper access. This is the case if the number of results is comparable.
+   * @param ic costs of the cheaper index access
+   * @return result of check
+   */
+  public boolean intersect(final IndexCosts ic) {
+    return ic.intersect(costs);
+  }
+
   /**
    * Indicates if the index rewriting should be enforced.
    * @return result of check
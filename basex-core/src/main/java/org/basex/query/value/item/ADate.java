@@ -26,6 +26,8 @@ public abstract class ADate extends ADateDur {
   static final long MIN_YEAR = -MAX_YEAR;
   /** Constant for counting negative years (divisible by 400). */
   private static final long ADD_NEG = (MAX_YEAR / 400 + 1) * 400;
+  /** Day count of 1970-01-01. */
+  private static final BigDecimal EPOCH = days(ADD_NEG + 1970, 0, 0);
 
   /** Pattern for two digits. */
   static final String DD = "(\\d{2})";
@@ -420,10 +422,29 @@ public abstract class ADate extends ADateDur {
       final long n = System.currentTimeMillis();
       z = Calendar.getInstance().getTimeZone().getOffset(n) / 60000;
     }
+    return seconds(z);
+  }
+
+  /**
+   * Returns the date in seconds.
+   * @param z time zone offset in minutes
+   * @return seconds
+   */
+  private BigDecimal seconds(final int z) {
     return (sec == null ? BigDecimal.ZERO : sec).add(
         BigDecimal.valueOf(Math.max(0, hou) * 3600L + Math.max(0, min) * 60L - z * 60L));
   }
 
+  /**
+   * Returns the number of seconds since 1970-01-01. If no time zone is assigned, UTC is
+   * assumed. The result can be used to sort dates that either all have or have no time zone.
+   * @return seconds
+   */
+  public final BigDecimal utcSeconds() {
+    return seconds(tz == Short.MAX_VALUE ? 0 : tz).add(
+        days().subtract(EPOCH).multiply(DAYSECONDS));
+  }
+
   /**
    * Returns a day count.
    * @return days
@@ -36,6 +36,18 @@ public final class QueryStack {
     return s;
   }
 
+  /**
+   * Enters a new stack frame and assigns the bindings of the current frame of another stack.
+   * Required if expressions of the current scope are evaluated by another query context.
+   * @param qs query stack
+   */
+  public void enterFrame(final QueryStack qs) {
+    final int s = qs.start, size = qs.end - s;
+    enterFrame(size);
+    Array.copy(qs.stack, s, size, stack, start);
+    Array.copy(qs.vars, s, size, vars, start);
+  }
+
   /**
    * Prepares the current stack frame to be reused.
    * @param size new frame size
@@ -5,6 +5,7 @@ import static org.basex.core.Text.*;
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.io.*;
 import org.basex.query.*;
@@ -125,6 +126,28 @@ public final class Util {
     System.out.print(info(string, ext));
   }
 
+  /**
+   * Waits until a task that is run by another thread has finished, and returns its result.
+   * Exceptions raised by the task are rethrown.
+   * @param <T> result type
+   * @param future future of the task
+   * @return result
+   * @throws IOException I/O exception
+   */
+  public static <T> T get(final Future<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch(final InterruptedException ex) {
+      throw new IOException(ex);
+    } catch(final ExecutionException ex) {
+      final Throwable cause = ex.getCause();
+      if(cause instanceof IOException) throw (IOException) cause;
+      if(cause instanceof RuntimeException) throw (RuntimeException) cause;
+      if(cause instanceof Error) throw (Error) cause;
+      throw new IOException(cause);
+    }
+  }
+
   /**
    * Returns the root query exception.
    * @param throwable throwable
@@ -1,6 +1,7 @@
 package org.basex.util.list;
 
 import java.util.*;
+import java.util.function.*;
 
 import org.basex.util.*;
 
@@ -254,6 +255,18 @@ public class IntList extends ElementList {
     return this;
   }
 
+  /**
+   * Sorts the data with the specified comparator. Equal values keep their original order.
+   * The algorithm is derived from the merge sort of {@link Arrays#sort(Object[])}.
+   * @param comp comparator
+   * @return self reference
+   */
+  public final IntList sort(final IntBinaryOperator comp) {
+    final int s = size;
+    if(s > 1) sort(Arrays.copyOf(list, s), list, 0, s, comp);
+    return this;
+  }
+
   /**
    * Sorts the data in the order of the specified token array.
    * Note that the input array will be resorted as well.
@@ -544,6 +557,44 @@ public class IntList extends ElementList {
     if((k = d - c) > 1) sort(n - k, k, f, t);
   }
 
+  /**
+   * Stable merge sort.
+   * @param src source array
+   * @param dest destination array
+   * @param s start offset
+   * @param e end offset
+   * @param comp comparator
+   */
+  private static void sort(final int[] src, final int[] dest, final int s, final int e,
+      final IntBinaryOperator comp) {
+    final int l = e - s;
+    if(l < 7) {
+      for(int i = s; i < e; i++) {
+        for(int j = i; j > s && comp.applyAsInt(dest[j - 1], dest[j]) > 0; j--) {
+          final int t = dest[j];
+          dest[j] = dest[j - 1];
+          dest[j - 1] = t;
+        }
+      }
+      return;
+    }
+
+    // sort halves, using the destination as source
+    final int m = s + e >>> 1;
+    sort(dest, src, s, m, comp);
+    sort(dest, src, m, e, comp);
+
+    // halves are already ordered: copy source to destination
+    if(comp.applyAsInt(src[m - 1], src[m]) <= 0) {
+      System.arraycopy(src, s, dest, s, l);
+      return;
+    }
+    // merge sorted halves
+    for(int i = s, p = s, q = m; i < e; i++) {
+      dest[i] = q >= e || p < m && comp.applyAsInt(src[p], src[q]) <= 0 ? src[p++] : src[q++];
+    }
+  }
+
   /**
    * Compares two numeric tokens and returns an integer.
    * @param a first token
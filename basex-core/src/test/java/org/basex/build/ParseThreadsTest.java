@@ -0,0 +1,75 @@
+package org.basex.build;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the {@link MainOptions#PARSETHREADS} option.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class ParseThreadsTest extends SandboxTest {
+  /** Test folder. */
+  private static final String FLDR = "src/test/resources/dir";
+  /** Query for serializing all documents. */
+  private static final String QUERY = "string-join(" + _DB_LIST.args(NAME) + " ! (. || ':' || "
+      + "serialize(" + _DB_OPEN.args(NAME, " .") + ")), '\n')";
+
+  /**
+   * Resets the options.
+   */
+  @After public void reset() {
+    set(MainOptions.PARSETHREADS, 0);
+    set(MainOptions.SKIPCORRUPT, false);
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Creates a database in parallel and compares it with a sequentially created database.
+   */
+  @Test public void create() {
+    execute(new CreateDB(NAME, FLDR));
+    final String expected = query(QUERY);
+
+    set(MainOptions.PARSETHREADS, 4);
+    execute(new CreateDB(NAME, FLDR));
+    assertEquals(expected, query(QUERY));
+    execute(new Check(NAME));
+  }
+
+  /**
+   * Parses many files and skips corrupt files.
+   */
+  @Test public void skipCorrupt() {
+    final IOFile dir = new IOFile(sandbox(), "input");
+    for(int d = 0; d < 3; d++) new IOFile(dir, Integer.toString(d)).md();
+    for(int i = 0; i < 200; i++) {
+      write(new IOFile(dir, (i % 3) + "/" + i + IO.XMLSUFFIX), "<x xmlns='x'><a>" + i + "</a></x>");
+    }
+    write(new IOFile(dir, "corrupt.xml"), "<x");
+    set(MainOptions.SKIPCORRUPT, true);
+    execute(new CreateDB(NAME, dir.path()));
+    final String expected = query(QUERY);
+
+    set(MainOptions.PARSETHREADS, 8);
+    final CreateDB cmd = new CreateDB(NAME, dir.path());
+    execute(cmd);
+    assertEquals(expected, query(QUERY));
+    assertTrue(cmd.info().contains("corrupt.xml"));
+    query("count(" + _DB_LIST.args(NAME) + ')', 200);
+
+    set(MainOptions.SKIPCORRUPT, false);
+    try {
+      new CreateDB(NAME, dir.path()).execute(context);
+      fail("Corrupt file was added to the database.");
+    } catch(final BaseXException ignored) { }
+  }
+}
@@ -0,0 +1,72 @@
+package org.basex.data;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the {@link MainOptions#COMPACT} option.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class CompactTest extends SandboxTest {
+  /** Query for serializing the database. */
+  private static final String QUERY = "string-join(/x/a ! (string() || @b), ',')";
+
+  /**
+   * Resets the option.
+   */
+  @After public void reset() {
+    set(MainOptions.COMPACT, 0);
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Compacts the heap files in several steps.
+   */
+  @Test public void compact() {
+    execute(new CreateDB(NAME, "<x/>"));
+    query("insert node (1 to 5000) ! <a b='attribute { . }'>text { . }</a> into /x");
+    final long txt = size(DataText.DATATXT), atv = size(DataText.DATAATV);
+
+    // values of deleted descendants are only freed if compaction is enabled
+    set(MainOptions.COMPACT, 1000);
+    query("delete node /x/a[position() mod 10 != 0]");
+    query("insert node (1 to 100) ! <a b='new attribute { . }'>new text { . }</a> into /x");
+    final String expected = query(QUERY);
+    for(int i = 0; i < 20; i++) query("insert node <c/> into /x");
+    assertEquals(expected, query(QUERY));
+
+    execute(new Close());
+    execute(new Open(NAME));
+    assertEquals(expected, query(QUERY));
+    execute(new Check(NAME));
+    assertTrue(size(DataText.DATATXT) < txt / 2);
+    assertTrue(size(DataText.DATAATV) < atv / 2);
+
+    // further updates
+    query("replace value of node /x/a[1] with 'updated text'");
+    query("insert node <a b='x'>y</a> into /x");
+    final String updated = query(QUERY);
+    execute(new Close());
+    execute(new Open(NAME));
+    assertEquals(updated, query(QUERY));
+  }
+
+  /**
+   * Returns the size of a database file.
+   * @param name name of the file
+   * @return size
+   */
+  private static long size(final String name) {
+    execute(new Flush());
+    final IOFile file = context.data().meta.dbfile(name);
+    return file.length();
+  }
+}
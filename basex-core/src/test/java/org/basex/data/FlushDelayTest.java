@@ -0,0 +1,106 @@
+package org.basex.data;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the {@link MainOptions#FLUSHDELAY} option.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class FlushDelayTest extends SandboxTest {
+  /** Flush delay. */
+  private static final int DELAY = 200;
+
+  /**
+   * Resets the option.
+   */
+  @After public void reset() {
+    set(MainOptions.FLUSHDELAY, 0);
+    set(MainOptions.UPDINDEX, false);
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Coalesces several updates and flushes them in the background.
+   */
+  @Test public void delayed() {
+    execute(new CreateDB(NAME, "<x/>"));
+    set(MainOptions.FLUSHDELAY, DELAY);
+    for(int i = 0; i < 10; i++) query("insert node <a>" + i + "</a> into /x");
+
+    final Data data = context.data();
+    assertTrue(data.meta.updateFile().exists());
+    Performance.sleep(DELAY * 3);
+    assertFalse(data.meta.updateFile().exists());
+
+    execute(new Close());
+    execute(new Open(NAME));
+    query("count(/x/a), sum(/x/a)", "10\n45");
+  }
+
+  /**
+   * Flushes pending updates explicitly and when closing the database.
+   */
+  @Test public void flush() {
+    execute(new CreateDB(NAME, "<x/>"));
+    set(MainOptions.FLUSHDELAY, 60000);
+    query("insert node <a/> into /x");
+
+    final Data data = context.data();
+    assertTrue(data.meta.updateFile().exists());
+    execute(new Flush());
+    assertFalse(data.meta.updateFile().exists());
+
+    query("insert node <a/> into /x");
+    assertTrue(data.meta.updateFile().exists());
+    execute(new Close());
+    assertFalse(data.meta.updateFile().exists());
+
+    execute(new Open(NAME));
+    query("count(/x/a)", 2);
+  }
+
+  /**
+   * Runs queries while a flush is pending. Changes are written after the queries are finished.
+   * @throws InterruptedException interrupted exception
+   */
+  @Test public void reads() throws InterruptedException {
+    set(MainOptions.UPDINDEX, true);
+    execute(new CreateDB(NAME, "<x/>"));
+    set(MainOptions.FLUSHDELAY, DELAY);
+    query("insert node <a>0</a> into /x");
+    final Data data = context.data();
+
+    // access the index structures concurrently until the delay has been exceeded
+    final String query = "(1 to 5) ! (" + _PROF_SLEEP.args(DELAY / 2) + ", count(" +
+        _INDEX_TEXTS.args(NAME) + "), count(" + _DB_OPEN.args(NAME) + "//a[text() = '0']))";
+    final Thread[] threads = new Thread[4];
+    final String[] results = new String[threads.length];
+    for(int t = 0; t < threads.length; t++) {
+      final int n = t;
+      threads[t] = new Thread(() -> results[n] = query(query));
+      threads[t].start();
+    }
+
+    // the flush waits for the readers
+    Performance.sleep(DELAY * 2);
+    assertTrue(data.meta.updateFile().exists());
+    for(final Thread thread : threads) thread.join();
+    for(final String result : results) assertEquals("1\n1\n1\n1\n1\n1\n1\n1\n1\n1", result);
+
+    Performance.sleep(DELAY * 2);
+    assertFalse(data.meta.updateFile().exists());
+    execute(new Close());
+    execute(new Open(NAME));
+    query("count(/x/a)", 1);
+  }
+}
@@ -0,0 +1,68 @@
+package org.basex.data;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the {@link MainOptions#MMAP} option.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class MappedTableTest extends SandboxTest {
+  /** Test file. */
+  private static final String FILE = "src/test/resources/xmark.xml";
+  /** Query for traversing the whole table. */
+  private static final String QUERY =
+      "string-join(//node() ! (name() || count(ancestor::node()) || string-length()))";
+
+  /**
+   * Resets the option.
+   */
+  @After public void reset() {
+    set(MainOptions.MMAP, false);
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Compares the results of mapped and buffered table access.
+   */
+  @Test public void read() {
+    execute(new CreateDB(NAME, FILE));
+    final String expected = query(QUERY);
+    execute(new Close());
+
+    set(MainOptions.MMAP, true);
+    execute(new Open(NAME));
+    assertEquals(expected, query(QUERY));
+  }
+
+  /**
+   * Reads the table after updates have been performed.
+   */
+  @Test public void update() {
+    set(MainOptions.MMAP, true);
+    execute(new CreateDB(NAME, FILE));
+    final int size = context.data().meta.size;
+    final String nodes = query("count(//node())");
+
+    // enforce creation of new pages
+    query("insert node (1 to 1000) ! <a>{ . }</a> into /*");
+    query("count(//a)", 1000);
+    query("delete node //a[. mod 2 = 0]");
+    query("count(//a)", 500);
+    query("sum(//a)", 250000);
+    query("delete node //a");
+    assertEquals(size, context.data().meta.size);
+
+    execute(new Close());
+    execute(new Open(NAME));
+    query("count(//a)", 0);
+    query("count(//node())", nodes);
+  }
+}
@@ -0,0 +1,96 @@
+package org.basex.data;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the incremental update of the statistics and the path index.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class OptimizeTest extends SandboxTest {
+  /** Query for serializing the path index and its statistics. */
+  private static final String FACETS = "string-join(sort("
+      + "for $n in " + _INDEX_FACETS.args(NAME) + "//*[@name] "
+      + "return string-join($n/ancestor-or-self::*/(name() || @name), '/') || ' ' || "
+      + "string-join($n/@* ! (name() || '=' || .), ' ')), '\n')";
+  /** Query for serializing the element and attribute names. */
+  private static final String NAMES = "string-join(sort("
+      + "for $n in (" + _INDEX_ELEMENT_NAMES.args(NAME) + ", " + _INDEX_ATTRIBUTE_NAMES.args(NAME)
+      + ") return $n || '=' || $n/@count), ' ')";
+
+  /**
+   * Resets the options.
+   */
+  @After public void reset() {
+    set(MainOptions.UPDINDEX, false);
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Inserts nodes and adds them to the existing structures.
+   */
+  @Test public void insert() {
+    insert(false);
+  }
+
+  /**
+   * Inserts nodes and adds them to the existing structures (updatable indexes).
+   */
+  @Test public void insertUpdindex() {
+    insert(true);
+  }
+
+  /**
+   * Rebuilds the structures if nodes have been deleted.
+   */
+  @Test public void delete() {
+    execute(new CreateDB(NAME, "<x><a b='1'>1</a><a>2</a></x>"));
+    query("insert node <c/> into /x");
+    query("delete node /x/a[1]");
+    assertEquals(-1, context.data().meta.statsid);
+    execute(new Optimize());
+    assertTrue(context.data().meta.uptodate);
+    query(_INDEX_ELEMENT_NAMES.args(NAME) + "[. = 'a']/@count/string()", 1);
+  }
+
+  /**
+   * Inserts values into existing categories.
+   */
+  @Test public void categories() {
+    execute(new CreateDB(NAME, "<x><a>1</a><a>2</a></x>"));
+    query("insert node (1 to 1000) ! <a>{ . }</a> into /x");
+    query("insert node <a>x</a> into /x");
+    execute(new Optimize());
+    final String facets = query(FACETS);
+    execute(new OptimizeAll());
+    assertEquals(facets, query(FACETS));
+  }
+
+  /**
+   * Inserts nodes and compares the incrementally updated structures with rebuilt structures.
+   * @param updindex updatable index flag
+   */
+  private static void insert(final boolean updindex) {
+    set(MainOptions.UPDINDEX, updindex);
+    execute(new CreateDB(NAME, "<x><a b='1'>1</a><a>2</a></x>"));
+    query("insert node (1 to 100) ! <c d='{ . }'>{ . }<e>x{ . }</e></c> into /x");
+    query("insert node <f>text<!--comment--></f> as first into /x/a[1]");
+    query("insert node attribute g { 'v' } into /x/a[2]");
+    query(_DB_ADD.args(NAME, " <y><a b='x'>1.5</a></y>", "y.xml"));
+    assertTrue(context.data().meta.statsid >= 0);
+
+    execute(new Optimize());
+    final String facets = query(FACETS), names = query(NAMES);
+    execute(new OptimizeAll());
+    assertEquals(facets, query(FACETS));
+    assertEquals(names, query(NAMES));
+  }
+}
@@ -0,0 +1,195 @@
+package org.basex.data;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.*;
+import org.basex.io.*;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the {@link MainOptions#WAL} option.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class WriteAheadLogTest extends SandboxTest {
+  /** Name of the copied database. */
+  private static final String COPY = NAME + "copy";
+  /** Query for serializing the database. */
+  private static final String QUERY = "string-join(/x/* ! (name() || string()), ',')";
+
+  /**
+   * Initializes the test.
+   */
+  @Before public void init() {
+    set(MainOptions.WAL, true);
+  }
+
+  /**
+   * Resets the option.
+   */
+  @After public void reset() {
+    set(MainOptions.WAL, false);
+    execute(new DropDB(NAME));
+    execute(new DropDB(COPY));
+  }
+
+  /**
+   * Performs updates and checks that the log is deleted when the database is closed.
+   */
+  @Test public void update() {
+    execute(new CreateDB(NAME, "<x/>"));
+    query("insert node (1 to 20000) ! <a>{ . }</a> into /x");
+    query("delete node /x/a[. mod 3 = 0]");
+    query("for $a in /x/a[. mod 3 = 1] return replace value of node $a with 'x'");
+    final IOFile wal = context.data().meta.dbfile(DataText.DATAWAL);
+    assertTrue(wal.exists());
+    final String expected = query(QUERY);
+
+    execute(new Close());
+    assertFalse(wal.exists());
+    execute(new Open(NAME));
+    assertEquals(expected, query(QUERY));
+    execute(new Check(NAME));
+  }
+
+  /**
+   * Replays committed changes on a copy of the original database files.
+   * @throws IOException I/O exception
+   */
+  @Test public void replay() throws IOException {
+    execute(new CreateDB(NAME, "<x/>"));
+    query("insert node (1 to 20000) ! <a>{ . }</a> into /x");
+    execute(new Close());
+    final IOFile source = context.soptions.dbPath(NAME), target = context.soptions.dbPath(COPY);
+    target.md();
+    for(final IOFile file : source.children()) new IOFile(target, file.name()).write(file.read());
+
+    execute(new Open(NAME));
+    query("delete node /x/a[. mod 3 = 0], insert node <b/> into /x, " +
+        "for $a in /x/a[. mod 3 = 1] return replace value of node $a with 'x'");
+    final String expected = query(QUERY);
+
+    // simulate an interrupted session: log exists, but changes have not been applied
+    final IOFile wal = context.data().meta.dbfile(DataText.DATAWAL);
+    new IOFile(target, wal.name()).write(wal.read());
+    execute(new Open(COPY));
+    assertEquals(expected, query(QUERY));
+    execute(new Check(COPY));
+  }
+
+  /**
+   * Opens databases after interrupted updates. The database is consistent after replaying the
+   * log if all changes have been logged.
+   * @throws IOException I/O exception
+   */
+  @Test public void interrupted() throws IOException {
+    set(MainOptions.FLUSHDELAY, 60000);
+    try {
+      execute(new CreateDB(NAME, "<x/>"));
+      execute(new Close());
+      final IOFile source = context.soptions.dbPath(NAME), target = context.soptions.dbPath(COPY);
+      target.md();
+      for(final IOFile file : source.children()) new IOFile(target, file.name()).write(file.read());
+
+      // logged update: lock file is removed after the log has been replayed
+      execute(new Open(NAME));
+      query("insert node <a/> into /x");
+      final MetaData meta = context.data().meta;
+      final String[] names = { meta.updateFile().name(), meta.dbfile(DataText.DATAWAL).name() };
+      for(final String name : names) new IOFile(target, name).write(new IOFile(source, name).read());
+      execute(new Open(COPY));
+      execute(new Close());
+
+      // unlogged update: database will not be opened
+      execute(new Open(NAME));
+      query(_DB_STORE.args(NAME, "bin", "x"));
+      for(final String name : names) new IOFile(target, name).write(new IOFile(source, name).read());
+      assertFalse(new Open(COPY).run(context));
+      new IOFile(target, names[0]).delete();
+    } finally {
+      set(MainOptions.FLUSHDELAY, 0);
+    }
+  }
+
+  /**
+   * Adds evicted pages to the log before the changes are committed.
+   */
+  @Test public void evicted() {
+    set(MainOptions.AUTOFLUSH, false);
+    try {
+      execute(new CreateDB(NAME, "<x/>"));
+      query("insert node (1 to 20000) ! <a>{ . }</a> into /x");
+      query("delete node /x/a[. mod 2 = 0]");
+      final IOFile wal = context.data().meta.dbfile(DataText.DATAWAL);
+      assertTrue(wal.length() > 0);
+      // evicted pages are read back from the log
+      query("count(/x/a), sum(/x/a ! xs:integer(.))", "10000\n100000000");
+      // index files are not logged: pending changes are written before the index is created
+      execute(new CreateIndex(CmdIndex.TEXT));
+      query("count(/x/a[text() = '1'])", 1);
+
+      execute(new Close());
+      execute(new Open(NAME));
+      query("count(/x/a), sum(/x/a ! xs:integer(.))", "10000\n100000000");
+      execute(new Check(NAME));
+    } finally {
+      set(MainOptions.AUTOFLUSH, true);
+    }
+  }
+
+  /**
+   * Reads pages of the current batch.
+   * @throws IOException I/O exception
+   */
+  @Test public void read() throws IOException {
+    final IOFile dir = new IOFile(sandbox(), NAME);
+    dir.md();
+    final IOFile file = new IOFile(dir, DataText.DATAWAL + IO.BASEXSUFFIX);
+    final WriteAheadLog wal = new WriteAheadLog(file);
+    final long off1 = wal.page("f", 0, Token.token("abcd"), 4);
+    wal.commit();
+    final long off2 = wal.page("f", 4, Token.token("efgh"), 4);
+    final byte[] data = new byte[4];
+    wal.read(off1, data, 4);
+    assertEquals("abcd", Token.string(data));
+    wal.read(off2, data, 4);
+    assertEquals("efgh", Token.string(data));
+    wal.commit();
+    wal.close();
+    dir.delete();
+  }
+
+  /**
+   * Ignores an uncommitted batch at the end of the log.
+   * @throws IOException I/O exception
+   */
+  @Test public void uncommitted() throws IOException {
+    final IOFile dir = new IOFile(sandbox(), NAME);
+    dir.md();
+    final IOFile file = new IOFile(dir, DataText.DATAWAL + IO.BASEXSUFFIX);
+    final WriteAheadLog wal = new WriteAheadLog(file);
+    wal.page("f", 0, Token.token("abcd"), 4);
+    wal.commit();
+    wal.page("f", 4, Token.token("efgh"), 4);
+    wal.length("f", 8);
+    final byte[] log = file.read();
+    wal.close();
+    assertFalse(file.exists());
+
+    file.write(log);
+    assertTrue(WriteAheadLog.replay(file));
+    assertFalse(file.exists());
+    assertEquals("abcd", Token.string(new IOFile(dir, "f").read()));
+    dir.delete();
+  }
+}
@@ -0,0 +1,111 @@
+package org.basex.index;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.parse.Commands.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the Bloom filters of the value indexes.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class BloomFilterTest extends SandboxTest {
+  /**
+   * Initializes the tests.
+   */
+  @Before public void init() {
+    set(MainOptions.BLOOMFILTER, true);
+    set(MainOptions.TOKENINDEX, true);
+  }
+
+  /**
+   * Finishes the tests.
+   */
+  @After public void finish() {
+    set(MainOptions.BLOOMFILTER, false);
+    set(MainOptions.TOKENINDEX, false);
+    set(MainOptions.UPDINDEX, false);
+    set(MainOptions.INDEXTHREADS, 0);
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Lookups of existing and missing keys.
+   */
+  @Test public void lookup() {
+    execute(new CreateDB(NAME, "<x><a id='x1'>A</a><a id='x2 x3'>B</a></x>"));
+    assertTrue(file("txtb").exists());
+    assertTrue(file("atvb").exists());
+    assertTrue(file("tokb").exists());
+
+    query(_DB_TEXT.args(NAME, "A") + " ! string()", "A");
+    query(_DB_TEXT.args(NAME, "C") + " ! string()", "");
+    query(_DB_ATTRIBUTE.args(NAME, "x1") + " ! string()", "x1");
+    query(_DB_ATTRIBUTE.args(NAME, "x2") + " ! string()", "");
+    query(_DB_TOKEN.args(NAME, "x3") + " ! string()", "x2 x3");
+    query(_DB_TOKEN.args(NAME, "x4") + " ! string()", "");
+    query("count(" + _DB_OPEN.args(NAME) + "//a[text() = ('A', 'C')])", 1);
+  }
+
+  /**
+   * Updates.
+   */
+  @Test public void update() {
+    set(MainOptions.UPDINDEX, true);
+    execute(new CreateDB(NAME, "<x><a>A</a></x>"));
+    query(_DB_TEXT.args(NAME, "B") + " ! string()", "");
+
+    // pending keys
+    query("insert node <a>B</a> into " + _DB_OPEN.args(NAME) + "/x");
+    query(_DB_TEXT.args(NAME, "B") + " ! string()", "B");
+
+    // merged keys: filter will be rewritten when the database is closed
+    execute(new Optimize());
+    assertFalse(file("txtb").exists());
+    query(_DB_TEXT.args(NAME, "B") + " ! string()", "B");
+    execute(new Close());
+    assertTrue(file("txtb").exists());
+    query(_DB_TEXT.args(NAME, "B") + " ! string()", "B");
+    query(_DB_TEXT.args(NAME, "C") + " ! string()", "");
+
+    // no filter if option is disabled
+    set(MainOptions.BLOOMFILTER, false);
+    execute(new Open(NAME));
+    execute(new CreateIndex(CmdIndex.TEXT));
+    assertFalse(file("txtb").exists());
+    query(_DB_TEXT.args(NAME, "B") + " ! string()", "B");
+  }
+
+  /**
+   * Merged partial indexes.
+   */
+  @Test public void merge() {
+    set(MainOptions.INDEXTHREADS, 2);
+    final TokenBuilder tb = new TokenBuilder().add("<x>");
+    for(int i = 0; i < 70000; i++) tb.add("<a>").addInt(i).add("</a>");
+    execute(new CreateDB(NAME, tb.add("</x>").toString()));
+    assertTrue(file("txtb").exists());
+
+    query("every $i in 0 to 69999 satisfies " + _DB_TEXT.args(NAME, " string($i)") +
+        " = string($i)", true);
+    query(_DB_TEXT.args(NAME, "70000"), "");
+  }
+
+  /**
+   * Returns a database file.
+   * @param name name of file (without suffix)
+   * @return file
+   */
+  private static IOFile file(final String name) {
+    return new IOFile(context.soptions.dbPath(NAME), name + IO.BASEXSUFFIX);
+  }
+}
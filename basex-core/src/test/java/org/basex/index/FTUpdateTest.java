@@ -0,0 +1,106 @@
+package org.basex.index;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the incremental update of the full-text index.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class FTUpdateTest extends SandboxTest {
+  /** Name of the reference database. */
+  private static final String REF = NAME + "ref";
+  /** Full-text queries. */
+  private static final String[] QUERIES = {
+    "//text()[. contains text 'a1']",
+    "//text()[. contains text 'b.*' using wildcards]",
+    "//text()[. contains text 'wort1' using fuzzy]",
+    "//x[text() contains text 'a2 b3' all words]",
+  };
+
+  /**
+   * Creates the test databases.
+   */
+  @Before public void init() {
+    final String doc = "<_><x>a1 b1 word1</x><x>a2 b2 word2</x></_>";
+    set(MainOptions.UPDINDEX, true);
+    execute(new CreateDB(REF, doc));
+    set(MainOptions.FTINDEX, true);
+    execute(new CreateDB(NAME, doc));
+  }
+
+  /**
+   * Resets the options.
+   */
+  @After public void reset() {
+    set(MainOptions.UPDINDEX, false);
+    set(MainOptions.FTINDEX, false);
+    execute(new DropDB(REF));
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Performs updates and compares the results with a database without full-text index.
+   */
+  @Test public void update() {
+    update("insert node (1 to 100) ! <x>a{ . mod 7 } b{ . mod 5 } word{ . mod 3 }</x> into %/_");
+    update("delete node %/_/x[position() mod 3 = 0]");
+    update("for $t in %/_/x[position() mod 5 = 0]/text() "
+        + "return replace value of node $t with 'a2 b3'");
+    update("for $x in %/_/x[position() mod 4 = 0] return rename node $x as 'y'");
+    compare();
+
+    // pending updates are persistent
+    execute(new Close());
+    compare();
+
+    // merge pending updates
+    execute(new Open(NAME));
+    execute(new Optimize());
+    assertTrue(context.data().meta.ftindex);
+    assertFalse(context.data().meta.dbfile(DataText.DATAFTX + 'd').exists());
+    compare();
+  }
+
+  /**
+   * Inserts nodes until the pending updates are merged into the index files.
+   */
+  @Test public void merge() {
+    update("insert node (1 to 50000) ! <x>a{ . } b{ . }</x> into %/_");
+    execute(new Open(NAME));
+    assertFalse(context.data().meta.dbfile(DataText.DATAFTX + 'd').exists());
+    execute(new Close());
+
+    update("delete node %/_/x[position() > 10]");
+    query("count(" + _FT_TOKENS.args(NAME) + "[starts-with(., 'a')])", 8);
+    compare();
+  }
+
+  /**
+   * Runs an update on both databases.
+   * @param query query (the database reference is indicated by {@code %})
+   */
+  private static void update(final String query) {
+    for(final String db : new String[] { NAME, REF }) query(Util.info(query, _DB_OPEN.args(db)));
+  }
+
+  /**
+   * Compares the results of full-text queries with the results of the reference database.
+   */
+  private static void compare() {
+    for(final String query : QUERIES) {
+      assertEquals(query(_DB_NODE_PRE.args(' ' + _DB_OPEN.args(REF) + query)),
+          query(_DB_NODE_PRE.args(' ' + _DB_OPEN.args(NAME) + query)));
+    }
+  }
+}
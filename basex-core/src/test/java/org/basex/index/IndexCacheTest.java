@@ -1,11 +1,18 @@
 package org.basex.index;
 
+import static org.basex.query.func.Function.*;
 import static org.basex.util.Token.*;
 import static org.junit.Assert.*;
 
+import java.io.*;
 import java.util.*;
 
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
 import org.junit.*;
+import org.junit.Test;
 
 /**
  * Tests for {@link IndexCache}.
@@ -13,7 +20,7 @@ import org.junit.*;
  * @author BaseX Team 2005-19, BSD License
  * @author Dimitar Popov
  */
-public final class IndexCacheTest {
+public final class IndexCacheTest extends SandboxTest {
   /** Test instance. */
   private IndexCache cache;
 
@@ -69,6 +76,61 @@ public final class IndexCacheTest {
     assertNull(cache.get(key));
   }
 
+  /** Test for the budget and the admission of frequently requested keys. */
+  @Test public void admission() {
+    cache = new IndexCache(10000);
+    final byte[] hot = token("hot");
+    for(int i = 0; i < 10000; ++i) {
+      if(i % 10 == 0 && cache.get(hot) == null) cache.add(hot, 1, 1L);
+      final byte[] key = token("key" + i);
+      if(cache.get(key) == null) cache.add(key, i, i);
+    }
+    assertTrue(cache.size() < 10000 / 80);
+    assertCacheEntry(hot, 1, 1L);
+  }
+
+  /**
+   * Test for methods {@link IndexCache#write(IOFile)} and {@link IndexCache#read(IOFile)}.
+   * @throws IOException I/O exception
+   */
+  @Test public void write() throws IOException {
+    for(int i = 0; i < 100; ++i) cache.add(token("key" + i), i, i);
+    for(int i = 0; i < 5; ++i) cache.get(token("key50"));
+
+    final IOFile file = new IOFile(sandbox(), "keys");
+    cache.write(file);
+    final byte[][] keys = IndexCache.read(file);
+    assertEquals(100, keys.length);
+    assertEquals("key50", string(keys[0]));
+    assertFalse(file.exists());
+    assertEquals(0, IndexCache.read(file).length);
+  }
+
+  /** Warms up the caches of a database. */
+  @Test public void warm() {
+    set(MainOptions.WARMCACHE, true);
+    set(MainOptions.FTINDEX, true);
+    try {
+      execute(new CreateDB(NAME, "<x><a>A</a><b n='B'>C D</b></x>"));
+      query(_DB_TEXT.args(NAME, "A") + ", " + _DB_ATTRIBUTE.args(NAME, "B") + ", "
+          + _FT_SEARCH.args(NAME, "D"));
+      execute(new Close());
+      final IOFile dir = context.soptions.dbPath(NAME);
+      assertTrue(new IOFile(dir, "txtc" + IO.BASEXSUFFIX).exists());
+      assertTrue(new IOFile(dir, "ftxc" + IO.BASEXSUFFIX).exists());
+
+      execute(new Open(NAME));
+      assertFalse(new IOFile(dir, "txtc" + IO.BASEXSUFFIX).exists());
+      query(_DB_TEXT.args(NAME, "A") + " ! name(..)", "a");
+      query(_DB_ATTRIBUTE.args(NAME, "B") + " ! name(..)", "b");
+      query(_FT_SEARCH.args(NAME, "D") + " ! name(..)", "b");
+    } finally {
+      set(MainOptions.WARMCACHE, false);
+      set(MainOptions.FTINDEX, false);
+      execute(new DropDB(NAME));
+    }
+  }
+
   /**
    * Test that new records can be continuously added without hitting
    * {@link OutOfMemoryError}.
@@ -0,0 +1,114 @@
+package org.basex.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests if index structures that are built in parallel are identical to
+ * sequentially built structures.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class IndexThreadsTest extends SandboxTest {
+  /** Query that returns the contents of all index structures. */
+  private static final String QUERY = "let $db := '" + NAME + "' return ("
+      + "index:texts($db) ! (. || ':' || @count), "
+      + "index:attributes($db) ! (. || ':' || @count), "
+      + "index:tokens($db) ! (. || ':' || @count), "
+      + "ft:tokens($db) ! (. || ':' || @count), "
+      + "db:text($db, ('1', '500', '999')) ! db:node-pre(.), "
+      + "db:attribute($db, '42') ! db:node-pre(.), "
+      + "db:token($db, 'y3') ! db:node-pre(.), "
+      + "ft:search($db, 'x11') ! db:node-pre(.))";
+
+  /** Document. */
+  private static String doc;
+
+  /**
+   * Creates the test document.
+   */
+  @BeforeClass public static void init() {
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add("<xml>");
+    for(int i = 1; i <= 70000; i++) {
+      tb.add("<a n='").addInt(i % 97).add("' t='x").addInt(i % 13).add(" y").addInt(i % 7);
+      tb.add("'>").addInt(i % 1000).add(" x").addInt(i % 17).add("</a>");
+    }
+    tb.add("</xml>");
+    doc = tb.toString();
+  }
+
+  /**
+   * Resets the options.
+   */
+  @After public void finish() {
+    set(MainOptions.INDEXTHREADS, 0);
+    set(MainOptions.SPLITSIZE, 0);
+    set(MainOptions.UPDINDEX, false);
+    set(MainOptions.TOKENINDEX, false);
+    set(MainOptions.FTINDEX, false);
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Creates a database with all index structures.
+   */
+  @Test public void create() {
+    compare();
+  }
+
+  /**
+   * Creates a database with small partial indexes.
+   */
+  @Test public void split() {
+    set(MainOptions.SPLITSIZE, 1);
+    compare();
+  }
+
+  /**
+   * Creates a database with updatable indexes.
+   */
+  @Test public void updindex() {
+    set(MainOptions.UPDINDEX, true);
+    compare();
+  }
+
+  /**
+   * Optimizes a database.
+   */
+  @Test public void optimize() {
+    final String expected = build();
+    set(MainOptions.INDEXTHREADS, 4);
+    execute(new Optimize());
+    assertEquals(expected, query(QUERY));
+    execute(new OptimizeAll());
+    assertEquals(expected, query(QUERY));
+  }
+
+  /**
+   * Compares the index structures of sequentially and parallel built databases.
+   */
+  private static void compare() {
+    final String expected = build();
+    set(MainOptions.INDEXTHREADS, 4);
+    assertEquals(expected, build());
+  }
+
+  /**
+   * Creates the database and returns the contents of the index structures.
+   * @return contents
+   */
+  private static String build() {
+    set(MainOptions.TOKENINDEX, true);
+    set(MainOptions.FTINDEX, true);
+    execute(new CreateDB(NAME, doc));
+    return query(QUERY);
+  }
+}
@@ -13,6 +13,7 @@ import org.basex.core.cmd.Set;
 import org.basex.index.query.*;
 import org.basex.index.value.*;
 import org.basex.util.hash.*;
+import org.basex.util.list.*;
 import org.junit.*;
 import org.junit.Test;
 import org.junit.runner.*;
@@ -122,6 +123,36 @@ public final class ValueIndexTest extends SandboxTest {
     valueIndexTest(IndexType.TOKEN, tokens, paramSet);
   }
 
+  /**
+   * Skips the results of index iterators.
+   */
+  @Test public void skipTest() {
+    for(final Set option : paramSet) execute(option);
+    final StringBuilder sb = new StringBuilder("<_>");
+    for(int i = 0; i < 5000; i++) sb.append("<x>").append(i % 3).append("</x>");
+    execute(new CreateDB(NAME, sb.append("</_>").toString()));
+
+    final ValueIndex index = (ValueIndex) context.data().index(IndexType.TEXT);
+    final IndexEntries entries = new IndexEntries(token("1"), IndexType.TEXT);
+    final IntList pres = new IntList();
+    for(final IndexIterator it = index.iter(entries); it.more();) pres.add(it.pre());
+    assertEquals(1667, pres.size());
+
+    final int ps = pres.size();
+    for(final int step : new int[] { 1, 7, 500, 3000 }) {
+      final IndexIterator it = index.iter(entries);
+      int p = -1;
+      for(int target = 0;; target += step) {
+        // the iterator advances by at least one result
+        do p++; while(p < ps && pres.get(p) < target);
+        final boolean found = it.skip(target);
+        assertEquals(p < ps, found);
+        if(!found) break;
+        assertEquals(pres.get(p), it.pre());
+      }
+    }
+  }
+
   /**
    * Tests the index: fetch results for different tokens, compare whether the right node was
    * returned and verify against the expected result size.
@@ -0,0 +1,159 @@
+package org.basex.index;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the incremental update of the value indexes.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class ValueUpdateTest extends SandboxTest {
+  /** Name of the reference database. */
+  private static final String REF = NAME + "ref";
+  /** Index queries. */
+  private static final String[] QUERIES = {
+    "//x[text() = 'x5']",
+    "//x[@a = '3']",
+    "//x[contains-token(@t, 'k3')]",
+    "//x[text() >= 'x3' and text() < 'x7']",
+    "//x[@a >= 2 and @a <= 4]",
+    "//x[@a > -1.5 and @a < 3.5]",
+  };
+  /** Queries for returning index entries. */
+  private static final String[] ENTRIES = {
+    _INDEX_TEXTS.args(NAME),
+    _INDEX_TEXTS.args(NAME, "x"),
+    _INDEX_TEXTS.args(NAME, "x5", " false()"),
+    _INDEX_ATTRIBUTES.args(NAME, "3", " true()"),
+    _INDEX_TOKENS.args(NAME),
+  };
+
+  /**
+   * Creates the test databases.
+   */
+  @Before public void init() {
+    final String doc = "<_><x a='1' t='k1 k2'>x1</x><x a='2' t='k2'>x2</x></_>";
+    set(MainOptions.UPDINDEX, true);
+    set(MainOptions.TEXTINDEX, false);
+    set(MainOptions.ATTRINDEX, false);
+    execute(new CreateDB(REF, doc));
+    set(MainOptions.TEXTINDEX, true);
+    set(MainOptions.ATTRINDEX, true);
+    set(MainOptions.TOKENINDEX, true);
+    execute(new CreateDB(NAME, doc));
+  }
+
+  /**
+   * Resets the options.
+   */
+  @After public void reset() {
+    set(MainOptions.UPDINDEX, false);
+    set(MainOptions.TOKENINDEX, false);
+    execute(new DropDB(REF));
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Performs updates and compares the results with a database without value indexes.
+   */
+  @Test public void update() {
+    update("insert node (1 to 100) ! <x a='{ . mod 7 }' t='k{ . mod 5 } k{ . mod 3 }'>"
+        + "x{ . mod 11 }</x> into %/_");
+    update("delete node %/_/x[position() mod 3 = 0]");
+    update("for $x in %/_/x[position() mod 5 = 0] return ("
+        + "replace value of node $x/text() with 'x5', replace value of node $x/@a with '3')");
+    compare();
+
+    // pending entries are persistent
+    execute(new Close());
+    compare();
+
+    // merge pending entries
+    execute(new Open(NAME));
+    final String entries = entries();
+    execute(new Optimize());
+    assertFalse(context.data().meta.dbfile(DataText.DATATXT + 'u').exists());
+    assertEquals(entries, entries());
+    compare();
+  }
+
+  /**
+   * Persists pending entries when the database is closed without being flushed.
+   */
+  @Test public void noFlush() {
+    set(MainOptions.AUTOFLUSH, false);
+    try {
+      update("insert node <x a='7' t='z'>hello world</x> into %/_");
+      execute(new Close());
+      compare();
+      for(final String query : new String[] { "//x[@t = 'z']", "//x[contains-token(@t, 'z')]",
+          "//x[text() = 'hello world']", "//x[@a = 7]" }) {
+        query("count(" + _DB_OPEN.args(NAME) + query + ')', 1);
+      }
+    } finally {
+      set(MainOptions.AUTOFLUSH, true);
+    }
+  }
+
+  /**
+   * Inserts nodes until the pending entries are merged into the index files.
+   */
+  @Test public void merge() {
+    update("insert node (1 to 50000) ! <x a='{ . }' t='k{ . }'>x{ . }</x> into %/_");
+    execute(new Open(NAME));
+    assertFalse(context.data().meta.dbfile(DataText.DATAATV + 'u').exists());
+    execute(new Close());
+
+    for(final String db : new String[] { NAME, REF }) {
+      query("for $d in 1 to 10 return " +
+          _DB_ADD.args(db, " <_>{ (1 to 100) ! <x a='{ . }' t='k3'>x5</x> }</_>", "add.xml"));
+    }
+    update("delete node %/_/x[position() mod 100 = 0]");
+    compare();
+
+    final String entries = entries();
+    execute(new Open(NAME));
+    execute(new OptimizeAll());
+    assertEquals(entries, entries());
+  }
+
+  /**
+   * Runs an update on both databases.
+   * @param query query (the database reference is indicated by {@code %})
+   */
+  private static void update(final String query) {
+    for(final String db : new String[] { NAME, REF }) query(Util.info(query, _DB_OPEN.args(db)));
+  }
+
+  /**
+   * Compares the results of index queries with the results of the reference database.
+   */
+  private static void compare() {
+    for(final String query : QUERIES) {
+      assertEquals(query(_DB_NODE_PRE.args(' ' + _DB_OPEN.args(REF) + query)),
+          query(_DB_NODE_PRE.args(' ' + _DB_OPEN.args(NAME) + query)));
+    }
+  }
+
+  /**
+   * Returns the serialized index entries.
+   * @return entries
+   */
+  private static String entries() {
+    final StringBuilder sb = new StringBuilder();
+    for(final String query : ENTRIES) {
+      sb.append(query("string-join((" + query + ") ! (. || '=' || @count), ',')")).append('\n');
+    }
+    return sb.toString();
+  }
+}
@@ -182,6 +182,57 @@ public class DataAccessTest {
     assertEquals(STR, Token.string(da.readToken()));
   }
 
+  /**
+   * Test method for {@link DataAccess#readNumAt(long)}.
+   * @throws IOException I/O exception
+   */
+  @Test public final void testReadNumAt() throws IOException {
+    readNumAt(da);
+    try(DataAccess pread = new DataAccess(file, false, true, null)) {
+      readNumAt(pread);
+      assertEquals(0L, pread.cursor());
+    }
+  }
+
+  /**
+   * Test method for {@link DataAccess#readTokenAt(long)}.
+   * @throws IOException I/O exception
+   */
+  @Test public final void testReadTokenAt() throws IOException {
+    readTokenAt(da);
+    try(DataAccess pread = new DataAccess(file, false, true, null)) {
+      readTokenAt(pread);
+      assertEquals(0L, pread.cursor());
+    }
+  }
+
+  /**
+   * Test method for {@link DataAccess#readTokenAt(long)}, using a memory-mapped file.
+   * @throws IOException I/O exception
+   */
+  @Test public final void testReadTokenAtMapped() throws IOException {
+    try(DataAccess mapped = new DataAccess(file, true)) {
+      assertEquals(STR, Token.string(mapped.readTokenAt(0L)));
+      assertEquals(STR, Token.string(mapped.readTokenAt(BLOCK_BOUNDARY_POS)));
+
+      // pending changes will be considered, and the file will be remapped after flushing
+      final long pos = mapped.length();
+      mapped.writeToken(pos, Token.token(STR_LONG));
+      assertEquals(STR_LONG, Token.string(mapped.readTokenAt(pos)));
+      mapped.flush();
+      assertEquals(STR_LONG, Token.string(mapped.readTokenAt(pos)));
+    }
+  }
+
+  /** Test method for {@link DataAccess#readTokenAt(long)}, reading pending changes. */
+  @Test public final void testReadTokenAtPending() {
+    final long pos = RANDOM_POS;
+    da.writeToken(pos, Token.token(STR_LONG));
+    assertEquals(STR_LONG, Token.string(da.readTokenAt(pos)));
+    da.flush();
+    assertEquals(STR_LONG, Token.string(da.readTokenAt(pos)));
+  }
+
   /** Test method for {@link DataAccess#readBytes(long, int)}. */
   @Test public final void testReadBytesLongInt() {
     final byte[] bytes = Token.token(STR);
@@ -478,4 +529,28 @@ public class DataAccessTest {
     for(int i = 0; i < n; ++i) str.append(s);
     return str.toString();
   }
+
+  /**
+   * Reads numbers with {@link DataAccess#readNumAt(long)}.
+   * @param access data access
+   */
+  private static void readNumAt(final DataAccess access) {
+    long off = STR_BIN.length + BYTE_BIN.length + LONG_BIN.length + INT_BIN.length;
+    assertEquals(CINT5, access.readNumAt(off));
+    off += CINT5_BIN.length;
+    assertEquals(CINT4, access.readNumAt(off));
+    off += CINT4_BIN.length;
+    assertEquals(CINT2, access.readNumAt(off));
+    off += CINT2_BIN.length;
+    assertEquals(CINT1, access.readNumAt(off));
+  }
+
+  /**
+   * Reads tokens with {@link DataAccess#readTokenAt(long)}.
+   * @param access data access
+   */
+  private static void readTokenAt(final DataAccess access) {
+    assertEquals(STR, Token.string(access.readTokenAt(0L)));
+    assertEquals(STR, Token.string(access.readTokenAt(BLOCK_BOUNDARY_POS)));
+  }
 }
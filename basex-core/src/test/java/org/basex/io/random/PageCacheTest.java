@@ -0,0 +1,164 @@
+package org.basex.io.random;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for class {@link PageCache}.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class PageCacheTest extends SandboxTest {
+  /** Test file. */
+  private static final String FILE = "src/test/resources/xmark.xml";
+  /** Query for traversing the whole table and all texts. */
+  private static final String QUERY =
+      "string-join(//node() ! (name() || count(ancestor::node()) || string()))";
+
+  /**
+   * Initializes the test.
+   */
+  @BeforeClass public static void init() {
+    set(MainOptions.TEXTINDEX, false);
+    set(MainOptions.ATTRINDEX, false);
+  }
+
+  /**
+   * Disables the cache.
+   */
+  @After public void reset() {
+    PageCache.get().size(0);
+    PageCache.get().compress(false);
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Compares the results of cached and uncached access.
+   */
+  @Test public void read() {
+    execute(new CreateDB(NAME, FILE));
+    final String expected = query(QUERY);
+    execute(new Close());
+
+    // cache is too small for all pages: entries will be evicted
+    PageCache.get().size(1);
+    execute(new Open(NAME));
+    assertEquals(expected, query(QUERY));
+    assertEquals(expected, query(QUERY));
+    query("exists(db:system()/pagecache/hits[. > 0])", true);
+  }
+
+  /**
+   * Reads cached pages after updates have been performed.
+   */
+  @Test public void update() {
+    PageCache.get().size(16);
+    execute(new CreateDB(NAME, FILE));
+    query("count(//node())");
+
+    query("insert node (1 to 1000) ! <a>{ . }</a> into /*");
+    query("replace value of node (//a)[1] with 'x'");
+    query("delete node //a[. = ('2', '3')]");
+    query("(//a)[1] || count(//a) || sum((//a)[position() > 1])", "x998500494");
+
+    execute(new Close());
+    execute(new Open(NAME));
+    query("(//a)[1] || count(//a) || sum((//a)[position() > 1])", "x998500494");
+  }
+
+  /**
+   * Compares the results of compressed and uncompressed cached access.
+   */
+  @Test public void compress() {
+    execute(new CreateDB(NAME, FILE));
+    final String expected = query(QUERY);
+    execute(new Close());
+
+    PageCache.get().size(1);
+    PageCache.get().compress(true);
+    execute(new Open(NAME));
+    assertEquals(expected, query(QUERY));
+    assertEquals(expected, query(QUERY));
+
+    query("insert node (1 to 1000) ! <a>{ . }</a> into /*");
+    query("delete node //a[. = ('2', '3')]");
+    query("count(//a) || sum(//a)", "998500495");
+  }
+
+  /**
+   * Removes the pages of single files, and accesses the cache concurrently.
+   * @throws Exception exception
+   */
+  @Test public void files() throws Exception {
+    final PageCache cache = PageCache.get();
+    cache.size(16);
+    final long id1 = PageCache.id(), id2 = PageCache.id();
+    final byte[] page = new byte[IO.BLOCKSIZE], data = new byte[IO.BLOCKSIZE];
+    for(int p = 0; p < 100; p++) {
+      page[0] = (byte) p;
+      cache.write(id1, p, page);
+      cache.write(id2, p, page);
+    }
+    cache.remove(id1);
+    cache.remove(id2, 0);
+    assertFalse(cache.read(id1, 1, data));
+    assertFalse(cache.read(id2, 0, data));
+    assertTrue(cache.read(id2, 1, data));
+    assertEquals(1, data[0]);
+
+    final Thread[] threads = new Thread[4];
+    final boolean[] failed = new boolean[1];
+    for(int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        final byte[] target = new byte[IO.BLOCKSIZE];
+        for(int r = 0; r < 1000; r++) {
+          final int p = 1 + r % 99;
+          if(!cache.read(id2, p, target) || target[0] != p) failed[0] = true;
+        }
+      });
+      threads[t].start();
+    }
+    for(final Thread thread : threads) thread.join();
+    assertFalse(failed[0]);
+    cache.remove(id2);
+  }
+
+  /**
+   * Compresses and decompresses table pages and random pages.
+   * @throws IOException I/O exception
+   */
+  @Test public void codec() throws IOException {
+    execute(new CreateDB(NAME, FILE));
+    execute(new Close());
+    final byte[] table = new IOFile(context.soptions.dbPath(NAME),
+        DataText.DATATBL + IO.BASEXSUFFIX).read();
+
+    final Random rnd = new Random(0);
+    final byte[] page = new byte[IO.BLOCKSIZE], decoded = new byte[IO.BLOCKSIZE];
+    for(int o = 0; o + IO.BLOCKSIZE <= table.length; o += IO.BLOCKSIZE) {
+      System.arraycopy(table, o, page, 0, IO.BLOCKSIZE);
+      final byte[] encoded = PageCodec.encode(page);
+      assertTrue(encoded.length < IO.BLOCKSIZE);
+      PageCodec.decode(encoded, decoded);
+      assertArrayEquals(page, decoded);
+    }
+    for(int r = 0; r < 100; r++) {
+      for(int i = 0; i < IO.BLOCKSIZE; i++) {
+        page[i] = rnd.nextInt(r % 10 + 1) == 0 ? 0 : (byte) rnd.nextInt();
+      }
+      PageCodec.decode(PageCodec.encode(page), decoded);
+      assertArrayEquals(page, decoded);
+    }
+  }
+}
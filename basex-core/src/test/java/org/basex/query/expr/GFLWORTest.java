@@ -4,6 +4,8 @@ import static org.basex.query.QueryError.*;
 import static org.basex.query.func.Function.*;
 import static org.junit.Assert.*;
 
+import org.basex.core.*;
+import org.basex.core.cmd.CreateDB;
 import org.basex.query.ast.*;
 import org.basex.query.expr.gflwor.*;
 import org.basex.query.up.expr.*;
@@ -358,4 +360,88 @@ public final class GFLWORTest extends QueryPlanTest {
     check("let $x := <x>0</x> let $b := $x/text() return $b + 1", 1, count(Let.class, 1));
     error("let $x := <x>false</x> let $b as xs:boolean := $x/text() return $b", INVTYPE_X_X_X);
   }
+
+  /** Parallel evaluation. */
+  @Test public void parallel() {
+    final String seq = query("for $i at $p in 1 to 100 let $j := $i * 2 where $j mod 3 = 0 " +
+        "return <x p='{ $p }'>{ $j }</x>");
+    assertEquals(seq, query("(# basex:parallel 4 #) { for $i at $p in 1 to 100 " +
+        "let $j := $i * 2 where $j mod 3 = 0 return <x p='{ $p }'>{ $j }</x> }"));
+    assertEquals(seq, query("(# basex:parallel #) { for $i at $p in 1 to 100 " +
+        "let $j := $i * 2 where $j mod 3 = 0 return <x p='{ $p }'>{ $j }</x> }"));
+
+    query("(# basex:parallel 8 #) { for $i in 1 to 3 for $j in 1 to 2 return $i * $j }",
+        "1\n2\n2\n4\n3\n6");
+    query("(# basex:parallel 4 #) { for $i in () return $i }", "");
+    query("'x' ! ((# basex:parallel 2 #) { for $i in 1 to 3 return . || $i })", "x1\nx2\nx3");
+    query("(# basex:parallel 2 #) { for $i in 1 to 3 order by -$i return $i }", "3\n2\n1");
+    query("count((# basex:parallel 4 #) { for $i in 1 to 100 return current-dateTime() } " +
+        "=> distinct-values())", 1);
+    error("(# basex:parallel 4 #) { for $i in 1 to 100 return " +
+        "if($i = 77) then error() else $i }", FUNERR1);
+
+    // where clauses are not rewritten to predicates, which would be evaluated sequentially
+    check("sum((# basex:parallel 4 #) { for $i in 1 to 1000000 where $i mod 2 = 0 return $i })",
+        250000500000L, exists(GFLWOR.class), exists(Where.class));
+  }
+
+  /** Order by clauses. */
+  @Test public void orderBy() {
+    query("for $a in (3, 1, 2, 1) order by $a descending return $a", "3\n2\n1\n1");
+    query("for $a in (2, 1.5e0, 1) order by $a return $a", "1\n1.5\n2");
+    query("for $a in (1.5e0, -0e0, 0e0, -1e0, xs:double('NaN')) order by $a return string($a)",
+        "NaN\n-1\n-0\n0\n1.5");
+    query("for $a in (<a>2</a>, <a/>, <a>1</a>) order by $a/text() ! xs:integer(.) " +
+        "empty greatest return string($a)", "1\n2\n");
+
+    // stable sort
+    query("for $a in (<a k='1'>x</a>, <a k='0'>y</a>, <a k='1'>z</a>, <a k='0'>w</a>) " +
+        "order by xs:integer($a/@k) return string($a)", "y\nw\nx\nz");
+    query("let $s := (1 to 10000) ! ((. * 7919) mod 10007) " +
+        "return deep-equal(for $i in $s order by $i return $i, sort($s))", true);
+    query("let $s := (1 to 10000) ! ((. * 7919) mod 101) return deep-equal(" +
+        "for $i at $p in $s order by $i descending, $p return $p, " +
+        "for $i at $p in $s order by -$i return $p)", true);
+
+    error("for $a in (1, 'a') order by $a return $a", INVTYPE_X_X_X);
+  }
+
+  /** Order by clauses with sorted runs in temporary files. */
+  @Test public void orderBySpill() {
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 0; i < 20; i++) sb.append("<a>1</a><a>3</a><a>2</a>");
+    execute(new CreateDB(NAME, sb.append("</x>").toString()));
+    final String temp = _FILE_LIST.args(_FILE_TEMP_DIR.args(), false, "BaseX-*.tmp") +
+        " => count()";
+    final String files = query(temp);
+    final String[] queries = {
+      "for $i in (1 to 1000) ! ((. * 7919) mod 10007) order by $i return $i",
+      "for $i in (1 to 100) ! string(. mod 37) order by $i descending return $i",
+      "for $i in 1 to 100 let $k := if($i mod 10 = 0) then () else xs:double($i mod 7) " +
+        "order by $k empty greatest, $i descending return $i",
+      "for $i at $p in (1 to 1000) ! ((. * 7919) mod 101) order by $i return $p",
+      "for $a at $p in db:open('" + NAME + "')//a order by xs:integer($a) " +
+        "return db:node-pre($a) + $p",
+      "for $i in 1 to 100 let $v := if($i > 50) then <e>{ $i }</e> else $i " +
+        "order by $i mod 3, $i return $v",
+      "for $i in 1 to 100 let $v := if($i = 35) then map { } else ($i, true()) " +
+        "order by $i mod 3, $i return $v ! (if(. instance of map(*)) then 0 else .)"
+    };
+    final String[] results = new String[queries.length];
+    for(int q = 0; q < queries.length; q++) results[q] = query(queries[q]);
+
+    set(MainOptions.SORTLIMIT, 10);
+    try {
+      for(int q = 0; q < queries.length; q++) query(queries[q], results[q]);
+      query("let $e := (1 to 100) ! <e>{ . }</e> " +
+        "return count((for $x in $e order by -xs:integer($x) return $x) | $e)", 100);
+      // 10 runs are written to temporary files
+      query("head(for $i in 1 to 100 order by -$i return " + temp + ") - " + files, 10);
+      query("head(for $i in 1 to 100 order by -$i return $i)", 100);
+      error("for $a in (1 to 20, 'a') order by $a return $a", INVTYPE_X_X_X);
+    } finally {
+      set(MainOptions.SORTLIMIT, 0);
+    }
+    query(temp, files);
+  }
 }
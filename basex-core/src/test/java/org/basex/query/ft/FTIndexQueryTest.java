@@ -51,6 +51,23 @@ public final class FTIndexQueryTest extends FTData {
     assertQuery("Ext 3", _FT_MARK.args(" //*[text() contains text 'A' ftand 'B'], 'b'"));
   }
 
+  /**
+   * Tests intersections of long index entries.
+   */
+  @Test public void intersect() {
+    final StringBuilder sb = new StringBuilder("<_>");
+    for(int i = 1; i <= 5000; i++) {
+      sb.append("<x>a").append(i % 2).append(" b").append(i % 3).append(" c").append(i % 1500);
+      sb.append("</x>");
+    }
+    init(sb.append("</_>").toString());
+    final String query = "count(//x[text() contains text %])";
+    assertQuery("Intersect 1", query.replace("%", "'a1 b2' all words"));
+    assertQuery("Intersect 2", query.replace("%", "'c7' ftand 'a1' ftand 'b1'"));
+    assertQuery("Intersect 3", query.replace("%", "'b0 c3' all words ordered"));
+    assertQuery("Intersect 4", query.replace("%", "'a0' ftand ftnot 'b0'"));
+  }
+
   /**
    * Tests mixed content.
    */
@@ -113,6 +113,17 @@ public final class XQueryModuleTest extends SandboxTest {
     query(func.args(" (true#0, function() { (1 to 10000000)[.=1] })"), "true\n1");
     query(func.args(" ()"), "");
 
+    // limit number of parallel evaluations, nested calls
+    final String funcs = " for $i in 1 to 5 return function() { $i }";
+    query(func.args(funcs, " map { 'parallel': 2 }"), "1\n2\n3\n4\n5");
+    query(func.args(funcs, " map { 'parallel': 1 }"), "1\n2\n3\n4\n5");
+    query("sum(" + func.args(" for $i in 1 to 100 return function() { sum(" +
+        func.args(" for $j in 1 to 10 return function() { $j }") + ") }") + ')', 5500);
+
+    // stop evaluation after timeout
+    error(_XQUERY_EVAL.args(func.args(" (1 to 4) ! function() { (1 to 100000000000)[. = 0] }").
+        trim(), " map { }", " map { 'timeout': 1 }"), XQUERY_TIMEOUT);
+
     // errors
     error(func.args(" count#1"), ZEROFUNCS_X_X);
     error(func.args(" 123"), ZEROFUNCS_X_X);
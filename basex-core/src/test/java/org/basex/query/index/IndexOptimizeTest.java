@@ -5,8 +5,10 @@ import static org.basex.query.func.Function.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
 import org.basex.query.ast.*;
+import org.basex.query.expr.*;
 import org.basex.query.expr.ft.*;
 import org.basex.query.expr.index.*;
+import org.basex.query.expr.path.*;
 import org.basex.util.*;
 import org.junit.*;
 import org.junit.Test;
@@ -240,6 +242,36 @@ public final class IndexOptimizeTest extends QueryPlanTest {
     check("let $s := 1 return *[if($s) then () else .//text() = 'A']", "", empty());
   }
 
+  /** Intersects the results of multiple predicates. */
+  @Test public void intersect() {
+    execute(new CreateDB(NAME, "<xml><a t='x y'>1 2</a><a t='x'>1</a>"
+        + "<a t='y'>2</a><a t='x y'>2</a></xml>"));
+    check("//a[text() contains text '1'][contains-token(@t, 'x')] ! string()", "1 2\n1",
+        count(ValueAccess.class, 1), count(FTIndexAccess.class, 1), exists(Intersect.class));
+    check("//a[contains-token(@t, 'x')][contains-token(@t, 'y')] ! string()", "1 2\n2",
+        count(ValueAccess.class, 2), exists(Intersect.class));
+    check("//a[text() = '2'][@t = 'x y'] ! string()", 2,
+        count(ValueAccess.class, 2), exists(Intersect.class));
+  }
+
+  /** Intersects the results of equality and range comparisons. */
+  @Test public void intersectValues() {
+    final StringBuilder sb = new StringBuilder("<xml>");
+    for(int i = 1; i <= 20; i++) {
+      sb.append("<item id='").append(i).append("' type='").append(i % 2 == 0 ? 'a' : 'c');
+      sb.append("' region='").append(i % 3 == 0 ? 'b' : 'c').append("'/>");
+    }
+    execute(new CreateDB(NAME, sb.append("</xml>").toString()));
+
+    check("//item[@type='a'][@region='b'] ! @id ! string()", "6\n12\n18",
+        count(ValueAccess.class, 2), exists(Intersect.class), count(IterPath.class, 2));
+    check("//item[@type='a'][@id >= 10 and @id <= 15] ! @id ! string()", "10\n12\n14",
+        count(RangeAccess.class, 1), count(ValueAccess.class, 1), exists(Intersect.class));
+    // single result: remaining predicates are evaluated as filters
+    check("//item[@type='a'][@id='6'] ! @id ! string()", 6,
+        count(ValueAccess.class, 1), empty(Intersect.class));
+  }
+
   /**
    * Creates a test database.
    */
@@ -0,0 +1,94 @@
+package org.basex.query.index;
+
+import static org.basex.query.func.Function.*;
+
+import org.basex.core.cmd.*;
+import org.basex.query.ast.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests if descendant steps with selective element names are correctly evaluated
+ * with the name index.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class NameIndexTest extends QueryPlanTest {
+  /** Reference query, which cannot be answered by the name index. */
+  private static final String REF = "//*[local-name() = 'record']";
+
+  /**
+   * Initializes the tests.
+   */
+  @Before public void init() {
+    // create a document with rare record elements
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add("<xml>");
+    for(int i = 1; i <= 25000; i++) {
+      tb.add("<item><name>").addInt(i).add("</name>");
+      if(i % 1000 == 0) tb.add("<record>").addInt(i / 1000).add("</record>");
+      tb.add("</item>");
+    }
+    tb.add("</xml>");
+    execute(new CreateDB(NAME, tb.toString()));
+  }
+
+  /**
+   * Finishes the tests.
+   */
+  @AfterClass public static void finish() {
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Queries with selective names.
+   */
+  @Test public void query() {
+    // descendant step will not be rewritten to child steps
+    check("//record ! string()", "1\n2\n3\n4\n5\n6\n7\n8\n9\n10\n11\n12\n13\n14\n15\n16\n17\n18\n"
+        + "19\n20\n21\n22\n23\n24\n25", exists("IterStep[@axis = 'descendant']"));
+    check("(//item)[5000]//record ! string()", 5);
+    check("(//item)[5001]//record ! string()", "");
+    check("//record[. = '7'] ! string()", 7);
+    check("(//record)[last()] ! string()", 25);
+    check("//xml/descendant-or-self::record[2] ! string()", 2);
+
+    // frequent names: child steps
+    check("count(//name)", 25000, empty("IterStep[@axis = 'descendant']"));
+  }
+
+  /**
+   * Updates.
+   */
+  @Test public void update() {
+    // build index before updates
+    check("(//record)[last()] ! string()", 25);
+    query("insert node <record>new</record> into (//item)[1234]");
+    check("(//item)[1234]//record ! string()", "new");
+    compare();
+    query("delete node (//item)[3000]");
+    compare();
+    query("rename node (//name)[7] as 'record'");
+    query("rename node (//record)[5] as 'name'");
+    compare();
+    query("replace node (//item)[10000] with "
+        + "<item><record>a</record><b><record>b</record></b></item>");
+    compare();
+    query("insert node <x:record xmlns:x='x'>x</x:record> into (//item)[1]");
+    compare();
+    execute(new Optimize());
+    compare();
+    check("count(//record)", 27);
+    check("(//*:record)[1] ! string()", "x");
+  }
+
+  /**
+   * Compares the results of a query with and without index access.
+   */
+  private static void compare() {
+    query("deep-equal(" + REF + " ! " + _DB_NODE_PRE.args(" .") + ", //*:record ! "
+        + _DB_NODE_PRE.args(" .") + ')', true);
+  }
+}
@@ -0,0 +1,94 @@
+package org.basex.query.index;
+
+import static org.basex.query.func.Function.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.ast.*;
+import org.basex.query.expr.index.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests if location paths are correctly evaluated with the node lists of the
+ * path index.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class PathIndexTest extends QueryPlanTest {
+  /**
+   * Initializes the tests.
+   */
+  @BeforeClass public static void start() {
+    execute(new CreateDB(NAME, "<xml>"
+        + "<sec><title>A</title><sec><title>B</title><note>1</note></sec><!--c--></sec>"
+        + "<sec><title>C</title><meta><note>2</note></meta></sec>"
+        + "<sec n='x'><sec><sec><title>D</title><note>3</note></sec></sec></sec>"
+        + "</xml>"));
+    set(MainOptions.PATHINDEX, true);
+  }
+
+  /**
+   * Finishes the tests.
+   */
+  @AfterClass public static void finish() {
+    set(MainOptions.PATHINDEX, false);
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Paths that are answered by the path index.
+   */
+  @Test public void paths() {
+    test("//sec ! count(*)", "2\n2\n2\n1\n1\n2");
+    test("//note ! string()", "1\n2\n3");
+    test("//sec/sec/note ! string()", "1\n3");
+    test("/xml/sec/meta/note ! string()", "2");
+    test("//title/text() ! string()", "A\nB\nC\nD");
+    test("//sec//comment() ! string()", "c");
+    test("//sec/title[contains(., 'C')] ! string()", "C");
+    test("(//note)[last()] ! string()", "3");
+    test(_DB_OPEN.args(NAME) + "//sec/title ! string()", "A\nB\nC\nD");
+  }
+
+  /**
+   * Paths that are not answered by the path index.
+   */
+  @Test public void skipped() {
+    check("//sec[2] ! count(*)", 2, empty(PathAccess.class));
+    check("//sec[title = 'A']/sec/note ! string()", 1, empty(PathAccess.class));
+    check("//sec/@n ! string()", "x", empty(PathAccess.class));
+    check("count(xml)", 1, empty(PathAccess.class));
+  }
+
+  /**
+   * Updates and optimizations.
+   */
+  @Test public void update() {
+    test("//note ! string()", "1\n2\n3");
+    query(_DB_ADD.args(NAME, "<doc><note>4</note></doc>", "doc.xml"));
+    // the path summary is outdated: no path index access
+    check("//note ! string()", "1\n2\n3\n4", empty(PathAccess.class));
+    execute(new Optimize());
+    test("//note ! string()", "1\n2\n3\n4");
+    query(_DB_DELETE.args(NAME, "doc.xml"));
+    execute(new Optimize());
+    test("//note ! string()", "1\n2\n3");
+  }
+
+  /**
+   * Compares the result of a query with and without path index access.
+   * @param query query
+   * @param result expected result
+   */
+  private static void test(final String query, final Object result) {
+    check(query, result, exists(PathAccess.class));
+    set(MainOptions.PATHINDEX, false);
+    try {
+      check(query, result, empty(PathAccess.class));
+    } finally {
+      set(MainOptions.PATHINDEX, true);
+    }
+  }
+}
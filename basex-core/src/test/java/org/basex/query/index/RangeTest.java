@@ -0,0 +1,109 @@
+package org.basex.query.index;
+
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.CmdIndex;
+import org.basex.query.*;
+import org.basex.query.ast.*;
+import org.basex.query.expr.*;
+import org.basex.query.expr.index.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests if numeric and date range queries are correctly evaluated with(out) the index.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author agent
+ */
+public final class RangeTest extends QueryPlanTest {
+  /**
+   * Initializes the tests.
+   */
+  @BeforeClass public static void start() {
+    // create initial document
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add("<xml>");
+    for(int i = 0; i < 1000; i++) {
+      // add numeric value
+      tb.add("<n>").add(Token.token(i / 4d - 100)).add("</n>");
+      // add dates
+      tb.add("<d>").add(String.format("%04d-%02d-%02d", 1990 + i % 30, i % 12 + 1, i % 28 + 1));
+      tb.add("</d>");
+      tb.add("<t>").add(String.format("2000-01-01T%02d:%02d:00Z", i % 24, i % 60)).add("</t>");
+    }
+    tb.add("<x>invalid</x><x>2000-13-01</x></xml>");
+    execute(new CreateDB(NAME, tb.toString()));
+  }
+
+  /**
+   * Finishes the tests.
+   */
+  @AfterClass public static void finish() {
+    execute(new DropDB(NAME));
+  }
+
+  /**
+   * Numeric ranges.
+   */
+  @Test public void numbers() {
+    final Class<? extends Expr> clz = RangeAccess.class;
+    test("count(//n[text() >= -100 and text() <= -99])", 5, clz);
+    test("count(//n[text() > -100 and text() < -99])", 3, clz);
+    test("count(//n[text() >= 0.25 and text() < 1.5])", 5, clz);
+    test("count(//n[text() > 149])", 3, clz);
+    test("count(//n[text() < -99.5])", 2, clz);
+    test("count(//n[text() >= 9 and text() <= 10])", 5, clz);
+    test("count(//n[text() >= 1000])", 0);
+  }
+
+  /**
+   * Date ranges.
+   */
+  @Test public void dates() {
+    final Class<? extends Expr> clz = DateRangeAccess.class;
+    test("count(//d[text() >= xs:date('2000-01-01') and text() < xs:date('2001-01-01')])", 33,
+        clz);
+    test("count(//d[text() > xs:date('2019-06-01')])", 33, clz);
+    test("count(//d[text() <= xs:date('1990-12-31')])", 34, clz);
+    test("count(//t[text() >= xs:dateTime('2000-01-01T10:00:00Z') and "
+        + "text() < xs:dateTime('2000-01-01T13:00:00+02:00')])", 42, clz);
+
+    // dates without time zone: order depends on the implicit time zone
+    test("count(//t[text() >= xs:dateTime('2000-01-01T23:00:00')]) > 0", true);
+
+    // values of compared nodes cannot be converted: no index access
+    execute(new CreateIndex(CmdIndex.TEXT));
+    error("//x[text() > xs:date('2002-01-01')]", QueryError.DATEFORMAT_X_X_X);
+    error("//*[text() > xs:date('2002-01-01')]", QueryError.DATEFORMAT_X_X_X);
+    execute(new DropIndex(CmdIndex.TEXT));
+    error("//x[text() > xs:date('2002-01-01')]", QueryError.DATEFORMAT_X_X_X);
+  }
+
+  /**
+   * Tests a query with and without index.
+   * @param query query
+   * @param result expected result
+   * @param expr class expected in query plan
+   */
+  private static void test(final String query, final Object result,
+      final Class<? extends Expr> expr) {
+
+    execute(new CreateIndex(CmdIndex.TEXT));
+    check(query, result, exists(Util.className(expr)));
+    execute(new DropIndex(CmdIndex.TEXT));
+    check(query, result, empty(Util.className(expr)));
+  }
+
+  /**
+   * Tests a query with and without index.
+   * @param query query
+   * @param result expected result
+   */
+  private static void test(final String query, final Object result) {
+    execute(new CreateIndex(CmdIndex.TEXT));
+    check(query, result);
+    execute(new DropIndex(CmdIndex.TEXT));
+    check(query, result);
+  }
+}